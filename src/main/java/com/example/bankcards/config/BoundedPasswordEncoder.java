@@ -0,0 +1,128 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.exception.ServiceBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs a CPU-heavy password encoder on its own small pool, so a burst of logins or
+ * registrations occupies at most that many cores and leaves request threads to other endpoints.
+ * The caller's request thread only waits. A hash that cannot be queued, or that does not start
+ * within the queue budget, fails fast with {@link ServiceBusyException} instead of piling up.
+ */
+@Slf4j
+public class BoundedPasswordEncoder implements PasswordEncoder, AutoCloseable {
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final long queueBudgetNanos;
+
+    private final Timer encodeLatency;
+    private final Timer matchesLatency;
+    private final Timer queueWait;
+    private final Counter queueFull;
+    private final Counter budgetExceeded;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, MeterRegistry meterRegistry,
+                                  int threads, int queueCapacity, Duration queueBudget) {
+        this.delegate = delegate;
+        this.queueBudgetNanos = queueBudget.toNanos();
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "password-hasher-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.encodeLatency = Timer.builder("password.hash.latency").tag("operation", "encode")
+                .register(meterRegistry);
+        this.matchesLatency = Timer.builder("password.hash.latency").tag("operation", "matches")
+                .register(meterRegistry);
+        this.queueWait = Timer.builder("password.hash.queue.wait").register(meterRegistry);
+        this.queueFull = Counter.builder("password.hash.rejected").tag("reason", "queue_full")
+                .register(meterRegistry);
+        this.budgetExceeded = Counter.builder("password.hash.rejected").tag("reason", "queue_budget")
+                .register(meterRegistry);
+        Gauge.builder("password.hash.queue.size", executor, pool -> pool.getQueue().size())
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return submit(encodeLatency, () -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return submit(matchesLatency, () -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    // Whoever flips 'claimed' first decides: the worker runs the hash, or the caller gives up on it.
+    private <T> T submit(Timer latency, Supplier<T> hash) {
+        long enqueuedAt = System.nanoTime();
+        AtomicBoolean claimed = new AtomicBoolean();
+        FutureTask<T> task = new FutureTask<>(() -> {
+            if (!claimed.compareAndSet(false, true)) {
+                return null;
+            }
+            queueWait.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+            return latency.record(hash);
+        });
+
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            queueFull.increment();
+            throw new ServiceBusyException("Too many authentication requests, please retry later");
+        }
+
+        try {
+            try {
+                return task.get(queueBudgetNanos, TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                if (claimed.compareAndSet(false, true)) {
+                    executor.remove(task);
+                    budgetExceeded.increment();
+                    throw new ServiceBusyException("Too many authentication requests, please retry later");
+                }
+                return task.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException("Interrupted while waiting for password hashing");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
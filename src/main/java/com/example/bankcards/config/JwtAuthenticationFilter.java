@@ -1,16 +1,18 @@
 package com.example.bankcards.config;
 
+import com.example.bankcards.entity.CustomUserDetails;
 import com.example.bankcards.service.JwtService;
+import com.example.bankcards.service.TokenRevocationRegistry;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
@@ -19,12 +21,23 @@ import org.springframework.web.filter.OncePerRequestFilter;
 import java.io.IOException;
 
 @Component
-@RequiredArgsConstructor
 @Slf4j
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
+    private final TokenRevocationRegistry revocationRegistry;
+    private final boolean trustClaims;
+
+    public JwtAuthenticationFilter(JwtService jwtService,
+                                   UserDetailsService userDetailsService,
+                                   TokenRevocationRegistry revocationRegistry,
+                                   @Value("${jwt.trust-claims:true}") boolean trustClaims) {
+        this.jwtService = jwtService;
+        this.userDetailsService = userDetailsService;
+        this.revocationRegistry = revocationRegistry;
+        this.trustClaims = trustClaims;
+    }
 
     @Override
     protected void doFilterInternal(
@@ -55,13 +68,23 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         final String jwt = authHeader.substring(7);
 
         try {
-            final String username = jwtService.extractUsername(jwt);
+            final Claims claims = jwtService.verify(jwt);
+            final String username = claims.getSubject();
             log.debug("Extracted username from JWT: {}", username);
 
             if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+                CustomUserDetails userDetails = jwtService.principalOf(claims);
+                // Tokens issued before they carried the principal count as version 0.
+                int tokenVersion = userDetails != null ? userDetails.getTokenVersion() : 0;
+                if (userDetails == null || !trustClaims) {
+                    userDetails = (CustomUserDetails) this.userDetailsService.loadUserByUsername(username);
+                }
 
-                if (jwtService.isTokenValid(jwt, userDetails)) {
+                if (!jwtService.isTokenValid(claims, userDetails)) {
+                    log.debug("Invalid JWT token for user: {}", username);
+                } else if (revocationRegistry.isRevoked(userDetails.getId(), tokenVersion)) {
+                    log.debug("Revoked JWT token for user: {}", username);
+                } else {
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                             userDetails,
                             null,
@@ -70,8 +93,6 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                     authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                     SecurityContextHolder.getContext().setAuthentication(authToken);
                     log.debug("Authentication set for user: {}", username);
-                } else {
-                    log.debug("Invalid JWT token for user: {}", username);
                 }
             }
         } catch (Exception e) {
@@ -3,8 +3,13 @@ package com.example.bankcards.controller;
 import com.example.bankcards.dto.filter.CardFilter;
 import com.example.bankcards.dto.request.CreateCardRequest;
 import com.example.bankcards.dto.response.BankCardResponse;
+import com.example.bankcards.dto.response.LedgerReconcileResponse;
+import com.example.bankcards.dto.response.LockStripeStatsResponse;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.transfer.CardBalanceShards;
+import com.example.bankcards.service.transfer.CardLockManager;
+import com.example.bankcards.service.transfer.LedgerService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -18,6 +23,8 @@ import org.springframework.data.web.PageableDefault;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/admin/cards")
 @RequiredArgsConstructor
@@ -26,6 +33,9 @@ import org.springframework.web.bind.annotation.*;
 public class AdminCardController {
 
     private final CardService cardService;
+    private final CardLockManager cardLockManager;
+    private final CardBalanceShards cardBalanceShards;
+    private final LedgerService ledgerService;
 
     @PostMapping
     @Operation(summary = "Создать новую карту для пользователя")
@@ -53,6 +63,27 @@ public class AdminCardController {
         return ResponseEntity.ok(cards);
     }
 
+    @GetMapping("/lock-stripes")
+    @Operation(summary = "Получить наиболее нагруженные блокировки карт")
+    public ResponseEntity<List<LockStripeStatsResponse>> getHotLockStripes(
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(cardLockManager.hotStripes(limit));
+    }
+
+    @PostMapping("/ledger/reconcile")
+    @Operation(summary = "Сверить балансы карт с журналом операций")
+    public ResponseEntity<LedgerReconcileResponse> reconcileLedger(
+            @RequestParam(defaultValue = "false") boolean repair) {
+        return ResponseEntity.ok(ledgerService.reconcile(repair));
+    }
+
+    @PutMapping("/{cardId}/balance-slots")
+    @Operation(summary = "Разделить баланс карты на слоты для частых зачислений")
+    public ResponseEntity<Void> configureBalanceSlots(@PathVariable Long cardId, @RequestParam int slots) {
+        cardBalanceShards.configure(cardId, slots);
+        return ResponseEntity.ok().build();
+    }
+
     @PutMapping("/{cardId}/block")
     @Operation(summary = "Заблокировать карту")
     public ResponseEntity<Void> blockCard(@PathVariable Long cardId) {
@@ -0,0 +1,29 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.service.TokenRevocationRegistry;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/admin/users")
+@RequiredArgsConstructor
+@Tag(name = "Admin Users", description = "Управление пользователями администратором")
+@SecurityRequirement(name = "bearerAuth")
+public class AdminUserController {
+
+    private final TokenRevocationRegistry tokenRevocationRegistry;
+
+    @PostMapping("/{userId}/revoke-tokens")
+    @Operation(summary = "Отозвать все выданные пользователю токены")
+    public ResponseEntity<Void> revokeTokens(@PathVariable Long userId) {
+        tokenRevocationRegistry.revokeAll(userId);
+        return ResponseEntity.ok().build();
+    }
+}
@@ -1,7 +1,11 @@
 package com.example.bankcards.controller;
 
-import com.example.bankcards.entity.AuditLog;
+import com.example.bankcards.dto.response.AuditLogResponse;
+import com.example.bankcards.dto.response.AuditStatsResponse;
+import com.example.bankcards.dto.response.CursorPageResponse;
 import com.example.bankcards.service.AuditService;
+import com.example.bankcards.service.audit.AuditLogExporter;
+import com.example.bankcards.service.audit.AuditRollupService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -12,10 +16,15 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/admin/audit")
@@ -25,10 +34,11 @@ import java.time.LocalDateTime;
 public class AuditController {
 
     private final AuditService auditService;
+    private final AuditRollupService auditRollupService;
 
     @GetMapping
     @Operation(summary = "Получить журнал аудита с фильтрацией")
-    public ResponseEntity<Page<AuditLog>> getAuditLogs(
+    public ResponseEntity<Page<AuditLogResponse>> getAuditLogs(
             @ParameterObject @PageableDefault(
                     size = 20,
                     sort = "createdAt",
@@ -42,15 +52,71 @@ public class AuditController {
             @RequestParam(required = false)
             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
 
-        Page<AuditLog> logs = auditService.searchAuditLogs(
+        Page<AuditLogResponse> logs = auditService.searchAuditLogs(
                 userId, action, entityType, startDate, endDate, pageable);
 
         return ResponseEntity.ok(logs);
     }
 
+    @GetMapping("/feed")
+    @Operation(summary = "Получить журнал аудита постранично по курсору (без подсчёта общего количества)")
+    public ResponseEntity<CursorPageResponse<AuditLogResponse>> getAuditLogFeed(
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) String action,
+            @RequestParam(required = false) String entityType,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+
+        return ResponseEntity.ok(auditService.getAuditLogFeed(
+                userId, action, entityType, startDate, endDate, cursor, size, includeTotal));
+    }
+
+    @GetMapping("/export")
+    @Operation(summary = "Выгрузить журнал аудита потоком в формате NDJSON или CSV (опционально gzip)")
+    public ResponseEntity<StreamingResponseBody> exportAuditLogs(
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) String action,
+            @RequestParam(required = false) String entityType,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+
+        AuditLogExporter.Format exportFormat = AuditLogExporter.Format.parse(format);
+        StreamingResponseBody body = auditService.exportAuditLogs(
+                userId, action, entityType, startDate, endDate, exportFormat, gzip);
+
+        String filename = "audit-logs." + exportFormat.getExtension() + (gzip ? ".gz" : "");
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(gzip ? "application/gzip" : exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
+    }
+
+    @GetMapping("/stats")
+    @Operation(summary = "Получить почасовую статистику событий аудита по действиям и типам сущностей")
+    public ResponseEntity<List<AuditStatsResponse>> getAuditStats(
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String action,
+            @RequestParam(required = false) String entityType) {
+
+        return ResponseEntity.ok(auditRollupService.getStats(from, to, action, entityType));
+    }
+
     @GetMapping("/user/{userId}")
     @Operation(summary = "Получить аудит действий пользователя")
-    public ResponseEntity<Page<AuditLog>> getUserAuditLogs(
+    public ResponseEntity<Page<AuditLogResponse>> getUserAuditLogs(
             @PathVariable Long userId,
             @ParameterObject @PageableDefault(
                     size = 20,
@@ -58,7 +124,7 @@ public class AuditController {
                     direction = Sort.Direction.DESC
             ) Pageable pageable) {
 
-        Page<AuditLog> logs = auditService.getUserAuditLogs(userId, pageable);
+        Page<AuditLogResponse> logs = auditService.getUserAuditLogs(userId, pageable);
         return ResponseEntity.ok(logs);
     }
 }
\ No newline at end of file
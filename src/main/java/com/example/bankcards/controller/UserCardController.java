@@ -1,25 +1,41 @@
 package com.example.bankcards.controller;
 
+import com.example.bankcards.dto.request.BatchTransferRequest;
 import com.example.bankcards.dto.request.CardTransferRequest;
 import com.example.bankcards.dto.response.BankCardResponse;
+import com.example.bankcards.dto.response.BatchTransferResponse;
+import com.example.bankcards.dto.response.CardBalanceResponse;
+import com.example.bankcards.dto.response.CursorPageResponse;
+import com.example.bankcards.dto.response.TransferStatusResponse;
 import com.example.bankcards.dto.filter.CardFilter;
 import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardTransaction;
+import com.example.bankcards.exception.InvalidIdempotencyKeyException;
 import com.example.bankcards.service.AuthenticationService;
 import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.transfer.AsyncTransferService;
+import com.example.bankcards.service.transfer.BatchTransferService;
+import com.example.bankcards.service.transfer.LedgerService;
+import com.example.bankcards.service.transfer.TransferIdempotencyService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springdoc.core.annotations.ParameterObject;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
 
 @RestController
 @RequestMapping("/api/user/cards")
@@ -28,8 +44,15 @@ import java.math.BigDecimal;
 @SecurityRequirement(name = "bearerAuth")
 public class UserCardController {
 
+    // Stored as VARCHAR(255), so anything longer could never be looked up again.
+    private static final Pattern IDEMPOTENCY_KEY = Pattern.compile("[\\x20-\\x7E]{1,255}");
+
     private final CardService cardService;
     private final AuthenticationService authService;
+    private final BatchTransferService batchTransferService;
+    private final TransferIdempotencyService idempotencyService;
+    private final AsyncTransferService asyncTransferService;
+    private final LedgerService ledgerService;
 
     @GetMapping
     @Operation(summary = "Получить список карт пользователя с фильтрацией")
@@ -55,6 +78,31 @@ public class UserCardController {
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping("/{cardId}/transactions")
+    @Operation(summary = "Получить историю операций по карте (постранично по курсору)")
+    public ResponseEntity<CursorPageResponse<TransferStatusResponse>> getCardTransactions(
+            @PathVariable Long cardId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        Long userId = authService.getCurrentUserId();
+        return ResponseEntity.ok(cardService.getCardTransactions(cardId, userId, cursor, size));
+    }
+
+    @GetMapping("/{cardId}/balance")
+    @Operation(summary = "Получить баланс карты на указанный момент по журналу операций")
+    public ResponseEntity<CardBalanceResponse> getCardBalanceAt(
+            @PathVariable Long cardId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        Long userId = authService.getCurrentUserId();
+        cardService.getUserCardById(cardId, userId);
+        LocalDateTime moment = at != null ? at : LocalDateTime.now();
+        return ResponseEntity.ok(CardBalanceResponse.builder()
+                .cardId(cardId)
+                .balance(ledgerService.balanceAt(cardId, moment))
+                .at(moment)
+                .build());
+    }
+
     @GetMapping("/balance/total")
     @Operation(summary = "Получить общий баланс по всем картам")
     public ResponseEntity<BigDecimal> getTotalBalance() {
@@ -65,12 +113,55 @@ public class UserCardController {
 
     @PostMapping("/transfer")
     @Operation(summary = "Перевод между своими картами")
-    public ResponseEntity<Void> transferBetweenCards(
-            @Valid @RequestBody CardTransferRequest request) {
+    public ResponseEntity<TransferStatusResponse> transferBetweenCards(
+            @Valid @RequestBody CardTransferRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
 
         Long userId = authService.getCurrentUserId();
-        cardService.transferBetweenCards(request, userId);
-        return ResponseEntity.ok().build();
+        boolean async = asyncTransferService.isEnabled();
+        Supplier<CardTransaction> transfer = async
+                ? () -> asyncTransferService.submit(request, userId)
+                : () -> cardService.transferBetweenCards(request, userId);
+
+        HttpHeaders headers = new HttpHeaders();
+        Long transactionId;
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            transactionId = transfer.get().getId();
+        } else {
+            if (!IDEMPOTENCY_KEY.matcher(idempotencyKey).matches()) {
+                throw new InvalidIdempotencyKeyException(
+                        "Idempotency-Key must be 1 to 255 printable ASCII characters");
+            }
+            TransferIdempotencyService.TransferOutcome outcome =
+                    idempotencyService.execute(userId, idempotencyKey, request, transfer);
+            transactionId = outcome.transactionId();
+            headers.set("Idempotent-Replayed", String.valueOf(outcome.replayed()));
+        }
+
+        if (!async) {
+            return ResponseEntity.ok().headers(headers).build();
+        }
+        return ResponseEntity.accepted().headers(headers)
+                .body(cardService.getUserTransfer(transactionId, userId));
+    }
+
+    @GetMapping("/transactions/{transactionId}")
+    @Operation(summary = "Получить статус перевода")
+    public ResponseEntity<TransferStatusResponse> getTransfer(@PathVariable Long transactionId) {
+        Long userId = authService.getCurrentUserId();
+        return ResponseEntity.ok(cardService.getUserTransfer(transactionId, userId));
+    }
+
+    @PostMapping("/transfers/batch")
+    @Operation(summary = "Пакетный перевод между своими картами")
+    public ResponseEntity<BatchTransferResponse> transferBatch(
+            @Valid @RequestBody BatchTransferRequest request) {
+
+        Long userId = authService.getCurrentUserId();
+        BatchTransferResponse response = batchTransferService.transferBatch(request, userId);
+        return response.isCommitted()
+                ? ResponseEntity.ok(response)
+                : ResponseEntity.badRequest().body(response);
     }
 
     @PostMapping("/{cardId}/block")
@@ -0,0 +1,26 @@
+package com.example.bankcards.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransferRequest {
+
+    @Valid
+    @NotEmpty(message = "At least one transfer is required")
+    @Size(max = 500, message = "Batch cannot contain more than 500 transfers")
+    private List<CardTransferRequest> transfers;
+
+    @Builder.Default
+    private boolean atomic = true;
+}
@@ -0,0 +1,28 @@
+package com.example.bankcards.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class AuditLogResponse {
+    private Long id;
+    private String action;
+    private String entityType;
+    private Long entityId;
+    @JsonRawValue
+    private String details;
+    private Long userId;
+    private String username;
+    private String ipAddress;
+    private String userAgent;
+    private LocalDateTime createdAt;
+    private int eventCount;
+}
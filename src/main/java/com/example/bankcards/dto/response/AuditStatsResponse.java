@@ -0,0 +1,19 @@
+package com.example.bankcards.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class AuditStatsResponse {
+    private LocalDateTime bucket;
+    private String action;
+    private String entityType;
+    private long count;
+}
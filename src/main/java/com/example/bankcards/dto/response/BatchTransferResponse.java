@@ -0,0 +1,20 @@
+package com.example.bankcards.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchTransferResponse {
+    private boolean atomic;
+    private boolean committed;
+    private int succeeded;
+    private int failed;
+    private List<TransferItemResult> results;
+}
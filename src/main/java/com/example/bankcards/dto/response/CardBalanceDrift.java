@@ -0,0 +1,18 @@
+package com.example.bankcards.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class CardBalanceDrift {
+    private Long cardId;
+    private BigDecimal cardBalance;
+    private BigDecimal ledgerBalance;
+}
@@ -0,0 +1,19 @@
+package com.example.bankcards.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class LedgerReconcileResponse {
+    private int checkedCards;
+    private int driftedCards;
+    private boolean repaired;
+    private List<CardBalanceDrift> drifts;
+}
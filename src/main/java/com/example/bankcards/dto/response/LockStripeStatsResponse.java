@@ -0,0 +1,20 @@
+package com.example.bankcards.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class LockStripeStatsResponse {
+    private int stripe;
+    private long acquisitions;
+    private long contended;
+    private long timeouts;
+    private long totalWaitMillis;
+    private Long lastContendedCardId;
+    private int queueLength;
+}
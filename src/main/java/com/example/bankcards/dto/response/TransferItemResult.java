@@ -0,0 +1,25 @@
+package com.example.bankcards.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class TransferItemResult {
+    private int index;
+    private Long fromCardId;
+    private Long toCardId;
+    private BigDecimal amount;
+    private Status status;
+    private String error;
+
+    public enum Status {
+        SUCCESS, FAILED, ROLLED_BACK
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.bankcards.dto.response;
+
+import com.example.bankcards.entity.CardTransaction;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class TransferStatusResponse {
+    private Long id;
+    private Long fromCardId;
+    private Long toCardId;
+    private BigDecimal amount;
+    private CardTransaction.TransactionStatus status;
+    private String failureReason;
+    private LocalDateTime transactionDate;
+}
@@ -1,15 +1,24 @@
 package com.example.bankcards.entity;
 
+import com.example.bankcards.service.audit.AuditDictionaryConverters;
+import com.fasterxml.jackson.annotation.JsonRawValue;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnTransformer;
 
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "audit_logs")
+@Table(name = "audit_logs", indexes = {
+        @Index(name = "idx_audit_logs_user_created", columnList = "user_id, created_at DESC"),
+        @Index(name = "idx_audit_logs_action_created", columnList = "action_id, created_at DESC"),
+        @Index(name = "idx_audit_logs_entity_type_created", columnList = "entity_type_id, created_at DESC"),
+        @Index(name = "idx_audit_logs_created_at", columnList = "created_at DESC"),
+        @Index(name = "idx_audit_logs_entity_composite", columnList = "entity_type_id, entity_id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -20,31 +29,41 @@ public class AuditLog {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(nullable = false)
+    @Convert(converter = AuditDictionaryConverters.Action.class)
+    @Column(name = "action_id", nullable = false)
     private String action;
 
-    @Column(name = "entity_type")
+    @Convert(converter = AuditDictionaryConverters.EntityType.class)
+    @Column(name = "entity_type_id")
     private String entityType;
 
     @Column(name = "entity_id")
     private Long entityId;
 
-    @Column(columnDefinition = "TEXT")
+    @JsonRawValue
+    @ColumnTransformer(write = "CAST(? AS jsonb)")
+    @Column(columnDefinition = "jsonb")
     private String details;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
 
-    @Column(name = "ip_address")
+    @ColumnTransformer(write = "CAST(? AS inet)")
+    @Column(name = "ip_address", columnDefinition = "inet")
     private String ipAddress;
 
-    @Column(name = "user_agent")
+    @Convert(converter = AuditDictionaryConverters.UserAgent.class)
+    @Column(name = "user_agent_id")
     private String userAgent;
 
-    @Column(name = "created_at")
+    @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
 
+    @Column(name = "event_count", nullable = false)
+    @Builder.Default
+    private Integer eventCount = 1;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -0,0 +1,42 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "audit_log_rollups", uniqueConstraints = @UniqueConstraint(
+        name = "uk_audit_log_rollups_key", columnNames = {"bucket", "action", "entity_type"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AuditLogRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDateTime bucket;
+
+    @Column(nullable = false, length = 100)
+    private String action;
+
+    // '' rather than NULL, so the unique key also covers events without an entity type.
+    @Column(name = "entity_type", nullable = false, length = 50)
+    private String entityType;
+
+    @Column(name = "event_count", nullable = false)
+    private Long eventCount;
+}
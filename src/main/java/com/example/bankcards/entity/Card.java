@@ -6,6 +6,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.Formula;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.math.BigDecimal;
@@ -46,6 +47,16 @@ public class Card {
     @Column(precision = 15, scale = 2)
     private BigDecimal balance;
 
+    @Column(name = "balance_slots", nullable = false)
+    @Builder.Default
+    private Integer balanceSlots = 0;
+
+    @Formula("(SELECT COALESCE(SUM(s.balance), 0) FROM card_balance_slots s WHERE s.card_id = id)")
+    private BigDecimal slotBalance;
+
+    @Version
+    private Long version;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
@@ -59,6 +70,14 @@ public class Card {
     public enum CardStatus {
         ACTIVE, BLOCKED, EXPIRED
     }
+
+    public BigDecimal getTotalBalance() {
+        if (balance == null || slotBalance == null) {
+            return balance;
+        }
+        return balance.add(slotBalance);
+    }
+
     public boolean isActive() {
         return status == CardStatus.ACTIVE && !isExpired();
     }
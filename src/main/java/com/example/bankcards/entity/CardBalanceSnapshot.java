@@ -0,0 +1,47 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "card_balance_snapshots",
+        indexes = @Index(name = "idx_card_balance_snapshots_card", columnList = "card_id, taken_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CardBalanceSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "card_id", nullable = false)
+    private Long cardId;
+
+    @Column(name = "last_entry_id", nullable = false)
+    private Long lastEntryId;
+
+    // The snapshot run that folded this card's entries; later runs and unfolded entries form the tail.
+    @Column(nullable = false)
+    @Builder.Default
+    private Long run = 0L;
+
+    @Column(nullable = false, precision = 15, scale = 2)
+    private BigDecimal balance;
+
+    @Column(name = "taken_at", nullable = false)
+    private LocalDateTime takenAt;
+}
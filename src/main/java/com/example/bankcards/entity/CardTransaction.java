@@ -8,6 +8,7 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.PrePersist;
@@ -21,7 +22,10 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "card_transactions")
+@Table(name = "card_transactions", indexes = {
+        @Index(name = "idx_card_transactions_from_history", columnList = "from_card_id, transaction_date, id"),
+        @Index(name = "idx_card_transactions_to_history", columnList = "to_card_id, transaction_date, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -50,6 +54,12 @@ public class CardTransaction {
     @Column(nullable = false)
     private TransactionStatus status;
 
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "failure_reason")
+    private String failureReason;
+
     @PrePersist
     protected void onCreate() {
         transactionDate = LocalDateTime.now();
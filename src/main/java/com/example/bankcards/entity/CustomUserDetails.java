@@ -11,6 +11,7 @@ public class CustomUserDetails extends User {
 
     private final Long id;
     private final String email;
+    private final int tokenVersion;
 
     public CustomUserDetails(
             Long id,
@@ -19,9 +20,18 @@ public class CustomUserDetails extends User {
             String email,
             Collection<? extends GrantedAuthority> authorities
     ) {
-        super(username, password, authorities);
-        this.id = id;
-        this.email = email;
+        this(id, username, password, email, true, 0, authorities);
+    }
+
+    public CustomUserDetails(
+            Long id,
+            String username,
+            String password,
+            String email,
+            boolean enabled,
+            Collection<? extends GrantedAuthority> authorities
+    ) {
+        this(id, username, password, email, enabled, 0, authorities);
     }
 
     public CustomUserDetails(
@@ -30,10 +40,12 @@ public class CustomUserDetails extends User {
             String password,
             String email,
             boolean enabled,
+            int tokenVersion,
             Collection<? extends GrantedAuthority> authorities
     ) {
         super(username, password, enabled, true, true, true, authorities);
         this.id = id;
         this.email = email;
+        this.tokenVersion = tokenVersion;
     }
-}
\ No newline at end of file
+}
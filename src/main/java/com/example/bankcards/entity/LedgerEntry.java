@@ -0,0 +1,59 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "ledger_entries", indexes = {
+        @Index(name = "idx_ledger_entries_card", columnList = "card_id, id"),
+        @Index(name = "idx_ledger_entries_card_run", columnList = "card_id, snapshot_run")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LedgerEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "card_id", nullable = false)
+    private Long cardId;
+
+    @Column(name = "transaction_id")
+    private Long transactionId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entry_type", nullable = false, length = 10)
+    private EntryType entryType;
+
+    // Signed: negative for debits, so a card's balance is the plain sum of its entries.
+    @Column(nullable = false, precision = 15, scale = 2)
+    private BigDecimal amount;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Set once, by the snapshot run that folds the entry into its card's balance.
+    @Column(name = "snapshot_run")
+    private Long snapshotRun;
+
+    public enum EntryType {
+        DEBIT, CREDIT
+    }
+}
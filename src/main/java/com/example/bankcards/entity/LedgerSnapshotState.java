@@ -0,0 +1,25 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Table(name = "ledger_snapshot_state")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LedgerSnapshotState {
+
+    @Id
+    private Integer id;
+
+    @Column(name = "last_run", nullable = false)
+    private Long lastRun;
+}
@@ -1,8 +1,10 @@
 package com.example.bankcards.entity;
 
+import com.example.bankcards.service.UserDetailsCacheListener;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.FetchType;
@@ -26,6 +28,7 @@ import java.util.List;
 
 @Entity
 @Table(name = "users")
+@EntityListeners(UserDetailsCacheListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -53,6 +56,10 @@ public class User implements UserDetails {
     @Builder.Default
     private boolean enabled = true;
 
+    @Column(name = "token_version", nullable = false)
+    @Builder.Default
+    private int tokenVersion = 0;
+
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
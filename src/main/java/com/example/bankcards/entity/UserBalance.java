@@ -0,0 +1,32 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "user_balances")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserBalance {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(nullable = false, precision = 17, scale = 2)
+    private BigDecimal balance;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -3,6 +3,7 @@ package com.example.bankcards.exception;
 import lombok.Builder;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -33,7 +34,8 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler({
             CardNotFoundException.class,
-            UserNotFoundException.class
+            UserNotFoundException.class,
+            TransactionNotFoundException.class
     })
     public ResponseEntity<ErrorResponse> handleNotFoundException(RuntimeException ex) {
         log.warn("Resource not found: {}", ex.getMessage());
@@ -48,7 +50,11 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler({
             InsufficientFundsException.class,
-            CardOperationException.class
+            CardOperationException.class,
+            InvalidCursorException.class,
+            InvalidIdempotencyKeyException.class,
+            UnsupportedExportFormatException.class,
+            UnsupportedSortPropertyException.class
     })
     public ResponseEntity<ErrorResponse> handleBadRequestException(RuntimeException ex) {
         log.warn("Bad request: {}", ex.getMessage());
@@ -94,6 +100,32 @@ public class GlobalExceptionHandler {
                 .build();
         return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
     }
+
+    @ExceptionHandler(IdempotencyKeyReuseException.class)
+    public ResponseEntity<ErrorResponse> handleIdempotencyKeyReuseException(IdempotencyKeyReuseException ex) {
+        log.warn("Idempotency key reuse: {}", ex.getMessage());
+        ErrorResponse error = ErrorResponse.builder()
+                .timestamp(LocalDateTime.now())
+                .status(HttpStatus.CONFLICT.value())
+                .error(HttpStatus.CONFLICT.getReasonPhrase())
+                .message(ex.getMessage())
+                .build();
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+
+    @ExceptionHandler(ServiceBusyException.class)
+    public ResponseEntity<ErrorResponse> handleServiceBusyException(ServiceBusyException ex) {
+        log.warn("Service busy: {}", ex.getMessage());
+        ErrorResponse error = ErrorResponse.builder()
+                .timestamp(LocalDateTime.now())
+                .status(HttpStatus.SERVICE_UNAVAILABLE.value())
+                .error(HttpStatus.SERVICE_UNAVAILABLE.getReasonPhrase())
+                .message(ex.getMessage())
+                .build();
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(error);
+    }
 }
 
 @Data
@@ -103,4 +135,4 @@ class ErrorResponse {
     private int status;
     private String error;
     private String message;
-}
\ No newline at end of file
+}
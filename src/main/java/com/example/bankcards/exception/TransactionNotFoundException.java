@@ -0,0 +1,7 @@
+package com.example.bankcards.exception;
+
+public class TransactionNotFoundException extends RuntimeException {
+    public TransactionNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.bankcards.exception;
+
+public class UnsupportedSortPropertyException extends RuntimeException {
+    public UnsupportedSortPropertyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.bankcards.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.util.List;
+
+/**
+ * Lookups in the audit dictionary tables. Table names come from {@code AuditDictionary.Kind} and
+ * are never user input.
+ */
+@Repository
+@RequiredArgsConstructor
+public class AuditDictionaryRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public Integer findId(String table, String name) {
+        List<Integer> ids = jdbcTemplate.queryForList("SELECT id FROM " + table + " WHERE name = ?",
+                Integer.class, name);
+        return ids.isEmpty() ? null : ids.get(0);
+    }
+
+    public String findName(String table, int id) {
+        List<String> names = jdbcTemplate.queryForList("SELECT name FROM " + table + " WHERE id = ?",
+                String.class, id);
+        return names.isEmpty() ? null : names.get(0);
+    }
+
+    public int count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+    }
+
+    public int insert(String table, String name) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO " + table + " (name) VALUES (?)", new String[]{"id"});
+            statement.setString(1, name);
+            return statement;
+        }, keyHolder);
+        return keyHolder.getKeyAs(Number.class).intValue();
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.service.audit.AuditDictionary;
+import com.example.bankcards.service.audit.AuditEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+@Repository
+@RequiredArgsConstructor
+public class AuditLogBatchRepository {
+
+    private static final String INSERT_PREFIX =
+            "INSERT INTO audit_logs (action_id, entity_type_id, entity_id, details, user_id, ip_address, " +
+            "user_agent_id, created_at, event_count) VALUES ";
+
+    private static final String ROW = "(?, ?, ?, CAST(? AS jsonb), ?, CAST(? AS inet), ?, ?, ?)";
+
+    // Keeps a single statement well below the 32767 bind parameters Postgres accepts.
+    private static final int MAX_ROWS_PER_STATEMENT = 1000;
+
+    private static final Pattern IPV4 = Pattern.compile(
+            "((25[0-5]|2[0-4]\\d|1\\d\\d|[1-9]?\\d)\\.){3}(25[0-5]|2[0-4]\\d|1\\d\\d|[1-9]?\\d)");
+    private static final Pattern IPV6_GROUP = Pattern.compile("[0-9a-fA-F]{1,4}");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AuditDictionary dictionary;
+
+    public int insert(List<AuditEvent> events) {
+        int inserted = 0;
+        for (int from = 0; from < events.size(); from += MAX_ROWS_PER_STATEMENT) {
+            List<AuditEvent> chunk = events.subList(from, Math.min(from + MAX_ROWS_PER_STATEMENT, events.size()));
+            List<Object> args = new ArrayList<>(chunk.size() * 9);
+            for (AuditEvent event : chunk) {
+                args.add(dictionary.idOf(AuditDictionary.Kind.ACTION, event.action()));
+                args.add(dictionary.idOf(AuditDictionary.Kind.ENTITY_TYPE, event.entityType()));
+                args.add(event.entityId());
+                args.add(event.detailsJson());
+                args.add(event.userId());
+                args.add(inetOrNull(event.ipAddress()));
+                args.add(dictionary.idOf(AuditDictionary.Kind.USER_AGENT, event.userAgent()));
+                args.add(Timestamp.valueOf(event.createdAt()));
+                args.add(event.eventCount());
+            }
+            inserted += jdbcTemplate.update(INSERT_PREFIX + String.join(", ", Collections.nCopies(chunk.size(), ROW)),
+                    args.toArray());
+        }
+        return inserted;
+    }
+
+    // A value the inet cast would reject must not fail the whole batch; it is stored as unknown.
+    static String inetOrNull(String value) {
+        if (value == null) {
+            return null;
+        }
+        if (IPV4.matcher(value).matches()) {
+            return value;
+        }
+        return isIpv6(value) ? value : null;
+    }
+
+    private static boolean isIpv6(String value) {
+        if (value.length() > 45 || value.indexOf(':') < 0) {
+            return false;
+        }
+        int groups = 8;
+        int lastColon = value.lastIndexOf(':');
+        // An embedded IPv4 tail takes the place of the last two groups.
+        if (IPV4.matcher(value.substring(lastColon + 1)).matches()) {
+            groups = 7;
+            value = value.substring(0, lastColon + 1) + "0";
+        }
+        int compressed = value.indexOf("::");
+        if (compressed < 0) {
+            return countGroups(value) == groups;
+        }
+        if (value.indexOf("::", compressed + 1) >= 0) {
+            return false;
+        }
+        int left = countGroups(value.substring(0, compressed));
+        int right = countGroups(value.substring(compressed + 2));
+        return left >= 0 && right >= 0 && left + right < groups;
+    }
+
+    // Number of ':'-separated hex groups, or -1 if any is malformed.
+    private static int countGroups(String part) {
+        if (part.isEmpty()) {
+            return 0;
+        }
+        String[] groups = part.split(":", -1);
+        for (String group : groups) {
+            if (!IPV6_GROUP.matcher(group).matches()) {
+                return -1;
+            }
+        }
+        return groups.length;
+    }
+}
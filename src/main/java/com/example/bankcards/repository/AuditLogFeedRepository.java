@@ -0,0 +1,190 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.dto.response.AuditLogResponse;
+import com.example.bankcards.exception.UnsupportedSortPropertyException;
+import com.example.bankcards.util.KeysetCursor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+@Repository
+@RequiredArgsConstructor
+public class AuditLogFeedRepository {
+
+    private static final String COLUMNS =
+            "l.id, a.name AS action, t.name AS entity_type, l.entity_id, l.details, l.user_id, usr.username, " +
+            "l.ip_address, u.name AS user_agent, l.created_at, l.event_count";
+
+    // The dictionaries are a few hundred rows each and stay cached, so the joins are cheap.
+    private static final String FROM_NAMED =
+            " FROM audit_logs l JOIN audit_actions a ON a.id = l.action_id" +
+            " LEFT JOIN audit_entity_types t ON t.id = l.entity_type_id" +
+            " LEFT JOIN audit_user_agents u ON u.id = l.user_agent_id" +
+            " LEFT JOIN users usr ON usr.id = l.user_id";
+
+    private static final Map<String, String> SORT_COLUMNS = Map.of(
+            "createdAt", "l.created_at",
+            "id", "l.id",
+            "action", "a.name",
+            "entityType", "t.name",
+            "userId", "l.user_id",
+            "username", "usr.username");
+
+    private static final Pattern PLAN_ROWS = Pattern.compile("\"Plan Rows\"\\s*:\\s*(\\d+)");
+
+    private static final RowMapper<AuditLogResponse> ROW_MAPPER = (rs, rowNum) -> AuditLogResponse.builder()
+            .id(rs.getLong("id"))
+            .action(rs.getString("action"))
+            .entityType(rs.getString("entity_type"))
+            .entityId(rs.getObject("entity_id", Long.class))
+            .details(rs.getString("details"))
+            .userId(rs.getObject("user_id", Long.class))
+            .username(rs.getString("username"))
+            .ipAddress(rs.getString("ip_address"))
+            .userAgent(rs.getString("user_agent"))
+            .createdAt(rs.getTimestamp("created_at").toLocalDateTime())
+            .eventCount(rs.getInt("event_count"))
+            .build();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile Boolean postgres;
+
+    // Only supplied filters become predicates, and the row-value comparison on (created_at, id)
+    // lets the scan start right after the cursor, so no page pays for the ones before it.
+    public List<AuditLogResponse> findPage(Filter filter, KeysetCursor after, int limit) {
+        List<Object> args = new ArrayList<>();
+        String where = where(filter, args);
+        StringBuilder sql = new StringBuilder("SELECT ").append(COLUMNS).append(FROM_NAMED).append(where);
+        if (after != null) {
+            sql.append(where.isEmpty() ? " WHERE " : " AND ").append("(l.created_at, l.id) < (?, ?)");
+            args.add(Timestamp.valueOf(after.timestamp()));
+            args.add(after.id());
+        }
+        sql.append(" ORDER BY l.created_at DESC, l.id DESC LIMIT ?");
+        args.add(limit);
+        return jdbcTemplate.query(sql.toString(), ROW_MAPPER, args.toArray());
+    }
+
+    // An index-ordered LIMIT: the database stops after the page instead of visiting the whole
+    // range, so the total is counted separately and only when the page needs it.
+    public List<AuditLogResponse> findPage(Filter filter, Pageable pageable) {
+        List<Object> args = new ArrayList<>();
+        String sql = "SELECT " + COLUMNS + FROM_NAMED + where(filter, args) +
+                     orderBy(pageable.getSort()) + " LIMIT ? OFFSET ?";
+        args.add(pageable.getPageSize());
+        args.add(pageable.getOffset());
+        return jdbcTemplate.query(sql, ROW_MAPPER, args.toArray());
+    }
+
+    // A forward-only cursor with a fixed fetch size: PostgreSQL only streams rows this way
+    // inside a transaction, so callers run it in one.
+    public void streamRange(Filter filter, int fetchSize, Consumer<AuditLogResponse> consumer) {
+        List<Object> args = new ArrayList<>();
+        String sql = "SELECT " + COLUMNS + FROM_NAMED + where(filter, args) + " ORDER BY l.created_at, l.id";
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            for (int i = 0; i < args.size(); i++) {
+                statement.setObject(i + 1, args.get(i));
+            }
+            return statement;
+        }, (RowCallbackHandler) rs -> consumer.accept(ROW_MAPPER.mapRow(rs, 0)));
+    }
+
+    // On PostgreSQL this is the planner's row estimate, which costs no scan; other databases
+    // get an exact count.
+    public long estimateCount(Filter filter) {
+        List<Object> args = new ArrayList<>();
+        String from = " FROM audit_logs l" + where(filter, args);
+
+        if (isPostgres()) {
+            String plan = String.join("\n", jdbcTemplate.queryForList(
+                    "EXPLAIN (FORMAT JSON) SELECT 1" + from, String.class, args.toArray()));
+            Matcher matcher = PLAN_ROWS.matcher(plan);
+            if (matcher.find()) {
+                return Long.parseLong(matcher.group(1));
+            }
+        }
+        return count(filter);
+    }
+
+    public long count(Filter filter) {
+        List<Object> args = new ArrayList<>();
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM audit_logs l" + where(filter, args),
+                Long.class, args.toArray());
+        return count != null ? count : 0L;
+    }
+
+    private static String where(Filter filter, List<Object> args) {
+        List<String> conditions = new ArrayList<>();
+        if (filter.startDate() != null) {
+            conditions.add("l.created_at >= ?");
+            args.add(Timestamp.valueOf(filter.startDate()));
+        }
+        if (filter.endDate() != null) {
+            conditions.add("l.created_at <= ?");
+            args.add(Timestamp.valueOf(filter.endDate()));
+        }
+        if (filter.userId() != null) {
+            conditions.add("l.user_id = ?");
+            args.add(filter.userId());
+        }
+        if (filter.action() != null) {
+            conditions.add("l.action_id = (SELECT id FROM audit_actions WHERE name = ?)");
+            args.add(filter.action());
+        }
+        if (filter.entityType() != null) {
+            conditions.add("l.entity_type_id = (SELECT id FROM audit_entity_types WHERE name = ?)");
+            args.add(filter.entityType());
+        }
+        return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+    }
+
+    // The id breaks ties so offset pages stay stable between requests.
+    private static String orderBy(Sort sort) {
+        List<String> orders = new ArrayList<>();
+        for (Sort.Order order : sort.isSorted() ? sort : Sort.by(Sort.Direction.DESC, "createdAt")) {
+            String column = SORT_COLUMNS.get(order.getProperty());
+            if (column == null) {
+                throw new UnsupportedSortPropertyException("Unsupported sort property: " + order.getProperty() +
+                        ", expected one of " + new TreeSet<>(SORT_COLUMNS.keySet()));
+            }
+            orders.add(column + (order.isAscending() ? " ASC" : " DESC"));
+        }
+        if (!orders.contains("l.id ASC") && !orders.contains("l.id DESC")) {
+            orders.add("l.id DESC");
+        }
+        return " ORDER BY " + String.join(", ", orders);
+    }
+
+    private boolean isPostgres() {
+        if (postgres == null) {
+            postgres = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                    "PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName()));
+        }
+        return postgres;
+    }
+
+    public record Filter(Long userId, String action, String entityType,
+                         LocalDateTime startDate, LocalDateTime endDate) {
+    }
+}
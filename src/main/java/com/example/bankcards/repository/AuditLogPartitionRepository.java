@@ -0,0 +1,110 @@
+package com.example.bankcards.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Partition DDL for the range-partitioned {@code audit_logs} table. PostgreSQL only; table
+ * names come from {@code AuditLogPartitionManager} and are never user input.
+ */
+@Repository
+@RequiredArgsConstructor
+public class AuditLogPartitionRepository {
+
+    // Key of the session advisory lock that keeps maintenance to one instance at a time.
+    private static final long MAINTENANCE_LOCK = 0x61756469745F70L;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Holds one pooled connection while the work runs; returns false if another session has it.
+    public boolean runExclusively(Runnable work) {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                try (ResultSet lock = statement.executeQuery("SELECT pg_try_advisory_lock(" + MAINTENANCE_LOCK + ")")) {
+                    if (!lock.next() || !lock.getBoolean(1)) {
+                        return false;
+                    }
+                }
+                try {
+                    work.run();
+                } finally {
+                    statement.execute("SELECT pg_advisory_unlock(" + MAINTENANCE_LOCK + ")");
+                }
+                return true;
+            }
+        }));
+    }
+
+    // Includes detached partitions whose export or drop did not finish.
+    public List<String> findPartitionTables(String pattern) {
+        return jdbcTemplate.queryForList(
+                "SELECT tablename FROM pg_tables WHERE schemaname = current_schema() AND tablename ~ ? " +
+                "ORDER BY tablename", String.class, pattern);
+    }
+
+    // Creating a partition locks audit_logs exclusively, so it gives up after the lock timeout
+    // rather than queueing every audit insert behind a long-running reader.
+    public void createPartition(String table, LocalDate from, LocalDate to, Duration lockTimeout) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET lock_timeout = " + lockTimeout.toMillis());
+                try {
+                    statement.execute("CREATE TABLE IF NOT EXISTS " + table + " PARTITION OF audit_logs " +
+                                      "FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+                } finally {
+                    statement.execute("RESET lock_timeout");
+                }
+            }
+            return null;
+        });
+    }
+
+    public boolean isAttached(String table) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                "WHERE c.relname = ? AND i.inhparent = 'audit_logs'::regclass)", Boolean.class, table));
+    }
+
+    // CONCURRENTLY never blocks inserts; a detach interrupted half-way is completed with FINALIZE.
+    public void detach(String table) {
+        boolean pending = Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                "WHERE c.relname = ? AND i.inhparent = 'audit_logs'::regclass AND i.inhdetachpending)",
+                Boolean.class, table));
+        jdbcTemplate.execute("ALTER TABLE audit_logs DETACH PARTITION " + table + (pending ? " FINALIZE" : " CONCURRENTLY"));
+    }
+
+    // Dictionary ids are resolved so an archive stays readable without the live tables.
+    public long export(String table, OutputStream out) {
+        return jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            try {
+                return connection.unwrap(PGConnection.class).getCopyAPI()
+                        .copyOut("COPY (SELECT l.id, a.name AS action, t.name AS entity_type, l.entity_id, " +
+                                 "l.details, l.user_id, l.ip_address, u.name AS user_agent, l.created_at, " +
+                                 "l.event_count FROM " + table + " l " +
+                                 "JOIN audit_actions a ON a.id = l.action_id " +
+                                 "LEFT JOIN audit_entity_types t ON t.id = l.entity_type_id " +
+                                 "LEFT JOIN audit_user_agents u ON u.id = l.user_agent_id ORDER BY l.id) " +
+                                 "TO STDOUT WITH (FORMAT csv, HEADER)", out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    public void drop(String table) {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + table);
+    }
+}
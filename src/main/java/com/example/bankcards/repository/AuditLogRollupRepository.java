@@ -0,0 +1,112 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.dto.response.AuditStatsResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class AuditLogRollupRepository {
+
+    private static final int WATERMARK_ID = 1;
+
+    private static final String HOUR = "DATE_TRUNC('HOUR', l.created_at)";
+
+    private static final String AGGREGATE_SQL =
+            "SELECT " + HOUR + ", a.name, COALESCE(t.name, ''), SUM(l.event_count) FROM audit_logs l " +
+            "JOIN audit_actions a ON a.id = l.action_id LEFT JOIN audit_entity_types t ON t.id = l.entity_type_id " +
+            "WHERE l.id > ? AND l.id <= ? GROUP BY " + HOUR + ", a.name, COALESCE(t.name, '')";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // The row lock also keeps two instances from folding the same id range in twice.
+    public Watermark lockWatermark() {
+        List<Watermark> found = selectWatermark();
+        if (found.isEmpty()) {
+            jdbcTemplate.update("INSERT INTO audit_rollup_watermarks (id, last_id, pending_max_id, updated_at) " +
+                                "VALUES (?, 0, 0, ?)", WATERMARK_ID, Timestamp.valueOf(LocalDateTime.now()));
+            found = selectWatermark();
+        }
+        return found.get(0);
+    }
+
+    public void saveWatermark(long lastId, long pendingMaxId) {
+        jdbcTemplate.update("UPDATE audit_rollup_watermarks SET last_id = ?, pending_max_id = ?, updated_at = ? " +
+                            "WHERE id = ?", lastId, pendingMaxId, Timestamp.valueOf(LocalDateTime.now()), WATERMARK_ID);
+    }
+
+    public long findMaxAuditId() {
+        Long max = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM audit_logs", Long.class);
+        return max != null ? max : 0L;
+    }
+
+    public List<Bucket> aggregate(long afterId, long upToId) {
+        return jdbcTemplate.query(AGGREGATE_SQL,
+                (rs, rowNum) -> new Bucket(rs.getTimestamp(1).toLocalDateTime(), rs.getString(2), rs.getString(3),
+                        rs.getLong(4)),
+                afterId, upToId);
+    }
+
+    public void addCounts(List<Bucket> buckets) {
+        List<Object[]> updates = new ArrayList<>(buckets.size());
+        for (Bucket bucket : buckets) {
+            updates.add(new Object[]{bucket.count(), Timestamp.valueOf(bucket.bucket()), bucket.action(),
+                    bucket.entityType()});
+        }
+        int[] updated = jdbcTemplate.batchUpdate("UPDATE audit_log_rollups SET event_count = event_count + ? " +
+                                                 "WHERE bucket = ? AND action = ? AND entity_type = ?", updates);
+
+        List<Object[]> inserts = new ArrayList<>();
+        for (int i = 0; i < buckets.size(); i++) {
+            if (updated[i] == 0) {
+                Bucket bucket = buckets.get(i);
+                inserts.add(new Object[]{Timestamp.valueOf(bucket.bucket()), bucket.action(), bucket.entityType(),
+                        bucket.count()});
+            }
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO audit_log_rollups (bucket, action, entity_type, event_count) " +
+                                     "VALUES (?, ?, ?, ?)", inserts);
+        }
+    }
+
+    public List<AuditStatsResponse> findBuckets(LocalDateTime from, LocalDateTime to, String action,
+                                                String entityType) {
+        List<Object> args = new ArrayList<>(List.of(Timestamp.valueOf(from), Timestamp.valueOf(to)));
+        StringBuilder sql = new StringBuilder(
+                "SELECT bucket, action, entity_type, event_count FROM audit_log_rollups WHERE bucket >= ? AND bucket < ?");
+        if (action != null) {
+            sql.append(" AND action = ?");
+            args.add(action);
+        }
+        if (entityType != null) {
+            sql.append(" AND entity_type = ?");
+            args.add(entityType);
+        }
+        sql.append(" ORDER BY bucket, action, entity_type");
+
+        return jdbcTemplate.query(sql.toString(), (rs, rowNum) -> AuditStatsResponse.builder()
+                .bucket(rs.getTimestamp(1).toLocalDateTime())
+                .action(rs.getString(2))
+                .entityType(rs.getString(3).isEmpty() ? null : rs.getString(3))
+                .count(rs.getLong(4))
+                .build(), args.toArray());
+    }
+
+    private List<Watermark> selectWatermark() {
+        return jdbcTemplate.query("SELECT last_id, pending_max_id FROM audit_rollup_watermarks WHERE id = ? FOR UPDATE",
+                (rs, rowNum) -> new Watermark(rs.getLong(1), rs.getLong(2)), WATERMARK_ID);
+    }
+
+    public record Watermark(long lastId, long pendingMaxId) {
+    }
+
+    public record Bucket(LocalDateTime bucket, String action, String entityType, long count) {
+    }
+}
@@ -5,11 +5,13 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -26,8 +28,51 @@ public interface BankCardRepository extends JpaRepository<Card, Long>,
     @Query("SELECT c FROM Card c WHERE c.user.id = :userId AND c.status = 'ACTIVE'")
     List<Card> findActiveCardsByUserId(@Param("userId") Long userId);
 
-    @Query("SELECT SUM(c.balance) FROM Card c WHERE c.user.id = :userId")
+    @Query("SELECT SUM(c.balance + c.slotBalance) FROM Card c WHERE c.user.id = :userId")
     BigDecimal getTotalBalanceByUserId(@Param("userId") Long userId);
 
     List<Card> findByExpiryDateBefore(java.time.LocalDate date);
+
+    @Query("SELECT c.id AS id, c.status AS status, c.balance AS balance, c.version AS version " +
+           "FROM Card c WHERE c.id = :cardId AND c.user.id = :userId")
+    Optional<BalanceView> findBalanceView(@Param("cardId") Long cardId, @Param("userId") Long userId);
+
+    @Query(value = "SELECT id, status, balance, version FROM bank_cards " +
+                   "WHERE id = :cardId AND user_id = :userId FOR UPDATE", nativeQuery = true)
+    Optional<BalanceView> lockBalanceView(@Param("cardId") Long cardId, @Param("userId") Long userId);
+
+    @Query(value = "SELECT id, status, balance, version FROM bank_cards " +
+                   "WHERE id IN (:cardIds) AND user_id = :userId ORDER BY id FOR UPDATE", nativeQuery = true)
+    List<BalanceView> lockBalanceViews(@Param("cardIds") Collection<Long> cardIds, @Param("userId") Long userId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Card c SET c.balance = :balance, c.version = c.version + 1, c.updatedAt = CURRENT_TIMESTAMP " +
+           "WHERE c.id = :cardId AND c.version = :version")
+    int compareAndSetBalance(@Param("cardId") Long cardId,
+                             @Param("version") Long version,
+                             @Param("balance") BigDecimal balance);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Card c SET c.balance = c.balance - :amount, c.version = c.version + 1, c.updatedAt = CURRENT_TIMESTAMP " +
+           "WHERE c.id = :cardId AND c.user.id = :userId AND c.status = 'ACTIVE' AND c.balance >= :amount")
+    int debitIfSufficient(@Param("cardId") Long cardId,
+                          @Param("userId") Long userId,
+                          @Param("amount") BigDecimal amount);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Card c SET c.balance = c.balance + :amount, c.version = c.version + 1, c.updatedAt = CURRENT_TIMESTAMP " +
+           "WHERE c.id = :cardId AND c.user.id = :userId AND c.status = 'ACTIVE'")
+    int creditIfActive(@Param("cardId") Long cardId,
+                       @Param("userId") Long userId,
+                       @Param("amount") BigDecimal amount);
+
+    interface BalanceView {
+        Long getId();
+
+        Card.CardStatus getStatus();
+
+        BigDecimal getBalance();
+
+        Long getVersion();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,75 @@
+package com.example.bankcards.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Repository
+@RequiredArgsConstructor
+public class CardBalanceSlotRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public Map<Long, Integer> findSlotCounts() {
+        return jdbcTemplate.query("SELECT id, balance_slots FROM bank_cards WHERE balance_slots > 0",
+                        (rs, rowNum) -> Map.entry(rs.getLong(1), rs.getInt(2)))
+                .stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+    }
+
+    public int findSlotCount(Long cardId) {
+        List<Integer> slots = jdbcTemplate.queryForList("SELECT balance_slots FROM bank_cards WHERE id = ?",
+                Integer.class, cardId);
+        return slots.isEmpty() ? 0 : slots.get(0);
+    }
+
+    public int credit(Long cardId, int slot, BigDecimal amount) {
+        return jdbcTemplate.update(
+                "UPDATE card_balance_slots SET balance = balance + ? WHERE card_id = ? AND slot = ?",
+                amount, cardId, slot);
+    }
+
+    public BigDecimal lockSlotTotal(Long cardId) {
+        return jdbcTemplate.queryForList(
+                        "SELECT balance FROM card_balance_slots WHERE card_id = ? ORDER BY slot FOR UPDATE",
+                        BigDecimal.class, cardId)
+                .stream()
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    public void clearSlots(Long cardId) {
+        jdbcTemplate.update("UPDATE card_balance_slots SET balance = 0 WHERE card_id = ? AND balance <> 0", cardId);
+    }
+
+    public void addToCardBalance(Long cardId, BigDecimal amount) {
+        jdbcTemplate.update(
+                "UPDATE bank_cards SET balance = balance + ?, version = version + 1, updated_at = ? WHERE id = ?",
+                amount, Timestamp.valueOf(LocalDateTime.now()), cardId);
+    }
+
+    public boolean lockCard(Long cardId) {
+        return !jdbcTemplate.queryForList("SELECT id FROM bank_cards WHERE id = ? FOR UPDATE", Long.class, cardId)
+                .isEmpty();
+    }
+
+    public void replaceSlots(Long cardId, int slots) {
+        jdbcTemplate.update("DELETE FROM card_balance_slots WHERE card_id = ?", cardId);
+        if (slots > 0) {
+            List<Object[]> args = new ArrayList<>(slots);
+            for (int slot = 0; slot < slots; slot++) {
+                args.add(new Object[]{cardId, slot});
+            }
+            jdbcTemplate.batchUpdate(
+                    "INSERT INTO card_balance_slots (card_id, slot, balance) VALUES (?, ?, 0)", args);
+        }
+        jdbcTemplate.update("UPDATE bank_cards SET balance_slots = ? WHERE id = ?", slots, cardId);
+    }
+}
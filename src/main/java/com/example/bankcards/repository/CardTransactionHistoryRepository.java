@@ -0,0 +1,69 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.dto.response.TransferStatusResponse;
+import com.example.bankcards.entity.CardTransaction;
+import com.example.bankcards.util.KeysetCursor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class CardTransactionHistoryRepository {
+
+    private static final String COLUMNS =
+            "id, from_card_id, to_card_id, amount, status, transaction_date, failure_reason";
+
+    private static final String ORDER = " ORDER BY transaction_date DESC, id DESC LIMIT ?";
+
+    private static final String AFTER_CURSOR = " AND (transaction_date, id) < (?, ?)";
+
+    // Each branch is a range scan over its own (card, transaction_date, id) index and stops after
+    // `limit` rows, so the cost of a page does not depend on how deep into the history it is.
+    // A card never pays itself, so the second branch cannot repeat a row of the first.
+    private static final String HISTORY_SQL =
+            "SELECT " + COLUMNS + " FROM (" +
+            "(SELECT " + COLUMNS + " FROM card_transactions WHERE from_card_id = ?%1$s" + ORDER + ") " +
+            "UNION ALL " +
+            "(SELECT " + COLUMNS + " FROM card_transactions WHERE to_card_id = ? AND from_card_id <> ?%1$s" +
+            ORDER + ")) t" + ORDER;
+
+    private static final RowMapper<TransferStatusResponse> ROW_MAPPER = (rs, rowNum) -> TransferStatusResponse.builder()
+            .id(rs.getLong("id"))
+            .fromCardId(rs.getLong("from_card_id"))
+            .toCardId(rs.getLong("to_card_id"))
+            .amount(rs.getBigDecimal("amount"))
+            .status(CardTransaction.TransactionStatus.valueOf(rs.getString("status")))
+            .transactionDate(rs.getTimestamp("transaction_date").toLocalDateTime())
+            .failureReason(rs.getString("failure_reason"))
+            .build();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public List<TransferStatusResponse> findCardHistory(Long cardId, KeysetCursor after, int limit) {
+        List<Object> args = new ArrayList<>(10);
+        args.add(cardId);
+        addCursor(args, after);
+        args.add(limit);
+        args.add(cardId);
+        args.add(cardId);
+        addCursor(args, after);
+        args.add(limit);
+        args.add(limit);
+
+        String sql = HISTORY_SQL.formatted(after == null ? "" : AFTER_CURSOR);
+        return jdbcTemplate.query(sql, ROW_MAPPER, args.toArray());
+    }
+
+    private static void addCursor(List<Object> args, KeysetCursor after) {
+        if (after != null) {
+            args.add(Timestamp.valueOf(after.timestamp()));
+            args.add(after.id());
+        }
+    }
+}
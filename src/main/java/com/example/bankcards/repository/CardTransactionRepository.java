@@ -4,10 +4,16 @@ import com.example.bankcards.entity.CardTransaction;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface CardTransactionRepository extends JpaRepository<CardTransaction, Long> {
 
@@ -17,4 +23,24 @@ public interface CardTransactionRepository extends JpaRepository<CardTransaction
            "t.fromCard.id = :cardId OR t.toCard.id = :cardId " +
            "ORDER BY t.transactionDate DESC")
     Page<CardTransaction> findByCardId(@Param("cardId") Long cardId, Pageable pageable);
-}
\ No newline at end of file
+
+    @Query("SELECT t FROM CardTransaction t WHERE t.id = :id AND " +
+           "(t.userId = :userId OR t.fromCard.user.id = :userId)")
+    Optional<CardTransaction> findByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
+
+    @Query("SELECT t FROM CardTransaction t WHERE t.id IN :ids AND " +
+           "t.status = 'PENDING' ORDER BY t.id")
+    List<CardTransaction> findPendingByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT t.id FROM CardTransaction t WHERE " +
+           "t.status = 'PENDING' " +
+           "AND t.transactionDate < :before ORDER BY t.id")
+    List<Long> findPendingIdsCreatedBefore(@Param("before") LocalDateTime before);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE CardTransaction t SET t.status = :status, t.failureReason = :failureReason " +
+           "WHERE t.id = :id AND t.status = 'PENDING'")
+    int completePending(@Param("id") Long id,
+                        @Param("status") CardTransaction.TransactionStatus status,
+                        @Param("failureReason") String failureReason);
+}
@@ -0,0 +1,46 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.dto.request.CardTransferRequest;
+import com.example.bankcards.entity.CardTransaction;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+@RequiredArgsConstructor
+public class CardTransferBatchRepository {
+
+    private static final String ADJUST_BALANCE_SQL =
+            "UPDATE bank_cards SET balance = balance + ?, version = version + 1, updated_at = ? WHERE id = ?";
+
+    private static final String INSERT_TRANSACTION_SQL =
+            "INSERT INTO card_transactions (from_card_id, to_card_id, amount, transaction_date, status, user_id) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public int[] adjustBalances(Map<Long, BigDecimal> deltas) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> args = new ArrayList<>(deltas.size());
+        deltas.forEach((cardId, delta) -> args.add(new Object[]{delta, now, cardId}));
+        return jdbcTemplate.batchUpdate(ADJUST_BALANCE_SQL, args);
+    }
+
+    public int[] insertTransactions(List<CardTransferRequest> transfers, CardTransaction.TransactionStatus status,
+                                    Long userId) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> args = new ArrayList<>(transfers.size());
+        for (CardTransferRequest transfer : transfers) {
+            args.add(new Object[]{
+                    transfer.getFromCardId(), transfer.getToCardId(), transfer.getAmount(), now, status.name(), userId});
+        }
+        return jdbcTemplate.batchUpdate(INSERT_TRANSACTION_SQL, args);
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.LedgerEntry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+@RequiredArgsConstructor
+public class LedgerRepository {
+
+    private static final String INSERT_ENTRY_SQL =
+            "INSERT INTO ledger_entries (card_id, transaction_id, entry_type, amount, created_at) " +
+            "VALUES (?, ?, ?, ?, ?)";
+
+    private static final String LATEST_SNAPSHOT_JOIN =
+            "LEFT JOIN card_balance_snapshots s ON s.card_id = %1$s AND s.id = " +
+            "(SELECT MAX(s2.id) FROM card_balance_snapshots s2 WHERE s2.card_id = %1$s) ";
+
+    // Entries not folded by the snapshot (or by any run yet) are the snapshot's tail.
+    private static final String TAIL_CONDITION =
+            "(e.snapshot_run IS NULL OR e.snapshot_run > COALESCE(%s, 0))";
+
+    private static final String TAKE_SNAPSHOTS_SQL =
+            "INSERT INTO card_balance_snapshots (card_id, last_entry_id, run, balance, taken_at) " +
+            "SELECT e.card_id, MAX(e.id), ?, COALESCE(s.balance, 0) + SUM(e.amount), ? " +
+            "FROM ledger_entries e " + LATEST_SNAPSHOT_JOIN.formatted("e.card_id") +
+            "WHERE e.snapshot_run = ? " +
+            "GROUP BY e.card_id, s.balance";
+
+    private static final String LEDGER_BALANCES_SQL =
+            "SELECT c.id, COALESCE(s.balance, 0) + COALESCE((SELECT SUM(e.amount) FROM ledger_entries e " +
+            "WHERE e.card_id = c.id AND " + TAIL_CONDITION.formatted("s.run") + "), 0) " +
+            "FROM bank_cards c " + LATEST_SNAPSHOT_JOIN.formatted("c.id") +
+            "WHERE c.id IN (%s)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public int[] appendEntries(List<LedgerEntry> entries) {
+        List<Object[]> args = new ArrayList<>(entries.size());
+        for (LedgerEntry entry : entries) {
+            args.add(new Object[]{entry.getCardId(), entry.getTransactionId(), entry.getEntryType().name(),
+                    entry.getAmount(), Timestamp.valueOf(entry.getCreatedAt())});
+        }
+        return jdbcTemplate.batchUpdate(INSERT_ENTRY_SQL, args);
+    }
+
+    // The row lock taken here is held until commit, so concurrent runs on other instances queue.
+    public long nextSnapshotRun() {
+        if (jdbcTemplate.update("UPDATE ledger_snapshot_state SET last_run = last_run + 1 WHERE id = 1") == 0) {
+            jdbcTemplate.update("INSERT INTO ledger_snapshot_state (id, last_run) " +
+                    "SELECT 1, COALESCE(MAX(run), 0) + 1 FROM card_balance_snapshots");
+        }
+        return jdbcTemplate.queryForObject("SELECT last_run FROM ledger_snapshot_state WHERE id = 1", Long.class);
+    }
+
+    // Only committed entries are visible to the update; one still in flight stays unfolded and is
+    // taken by a later run, whatever its id.
+    public int foldEntries(long run) {
+        return jdbcTemplate.update("UPDATE ledger_entries SET snapshot_run = ? WHERE snapshot_run IS NULL", run);
+    }
+
+    public int takeSnapshots(long run, LocalDateTime takenAt) {
+        return jdbcTemplate.update(TAKE_SNAPSHOTS_SQL, run, Timestamp.valueOf(takenAt), run);
+    }
+
+    public BigDecimal balanceAt(Long cardId, LocalDateTime at) {
+        Timestamp timestamp = Timestamp.valueOf(at);
+        List<Object[]> snapshots = jdbcTemplate.query(
+                "SELECT run, balance FROM card_balance_snapshots WHERE card_id = ? AND taken_at <= ? " +
+                "ORDER BY taken_at DESC, id DESC LIMIT 1",
+                (rs, rowNum) -> new Object[]{rs.getLong(1), rs.getBigDecimal(2)}, cardId, timestamp);
+
+        long run = snapshots.isEmpty() ? 0L : (Long) snapshots.get(0)[0];
+        BigDecimal base = snapshots.isEmpty() ? BigDecimal.ZERO : (BigDecimal) snapshots.get(0)[1];
+        BigDecimal tail = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(e.amount), 0) FROM ledger_entries e WHERE e.card_id = ? AND " +
+                TAIL_CONDITION.formatted("?") + " AND e.created_at <= ?",
+                BigDecimal.class, cardId, run, timestamp);
+        return base.add(tail);
+    }
+
+    public Map<Long, BigDecimal> ledgerBalances(Collection<Long> cardIds) {
+        Map<Long, BigDecimal> balances = new HashMap<>();
+        jdbcTemplate.query(LEDGER_BALANCES_SQL.formatted(placeholders(cardIds.size())),
+                rs -> {
+                    balances.put(rs.getLong(1), rs.getBigDecimal(2));
+                }, cardIds.toArray());
+        return balances;
+    }
+
+    public List<Long> findCardIds() {
+        return jdbcTemplate.queryForList("SELECT id FROM bank_cards ORDER BY id", Long.class);
+    }
+
+    // Card rows and then their slots are locked, so every movement touching these cards has
+    // either committed (and its ledger entries are visible) or has not started yet.
+    public Map<Long, LockedBalance> lockBalances(Collection<Long> cardIds) {
+        String in = placeholders(cardIds.size());
+        Map<Long, LockedBalance> balances = new HashMap<>();
+        jdbcTemplate.query("SELECT id, user_id, balance FROM bank_cards WHERE id IN (" + in + ") " +
+                           "ORDER BY id FOR UPDATE",
+                rs -> {
+                    balances.put(rs.getLong(1),
+                            new LockedBalance(rs.getLong(2), rs.getBigDecimal(3), BigDecimal.ZERO));
+                }, cardIds.toArray());
+        jdbcTemplate.query("SELECT card_id, balance FROM card_balance_slots WHERE card_id IN (" + in + ") " +
+                           "ORDER BY card_id, slot FOR UPDATE",
+                rs -> {
+                    BigDecimal slot = rs.getBigDecimal(2);
+                    balances.computeIfPresent(rs.getLong(1), (id, locked) ->
+                            new LockedBalance(locked.userId(), locked.cardBalance(), locked.slotBalance().add(slot)));
+                }, cardIds.toArray());
+        return balances;
+    }
+
+    public void setCardBalance(Long cardId, BigDecimal balance) {
+        jdbcTemplate.update(
+                "UPDATE bank_cards SET balance = ?, version = version + 1, updated_at = ? WHERE id = ?",
+                balance, Timestamp.valueOf(LocalDateTime.now()), cardId);
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    public record LockedBalance(Long userId, BigDecimal cardBalance, BigDecimal slotBalance) {
+
+        public BigDecimal total() {
+            return cardBalance.add(slotBalance);
+        }
+    }
+}
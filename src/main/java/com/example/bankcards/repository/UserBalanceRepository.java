@@ -0,0 +1,27 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.UserBalance;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Repository
+public interface UserBalanceRepository extends JpaRepository<UserBalance, Long> {
+
+    @Query(value = "SELECT id FROM users WHERE id = :userId FOR UPDATE", nativeQuery = true)
+    List<Long> lockUser(@Param("userId") Long userId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE UserBalance b SET b.balance = b.balance + :delta, b.updatedAt = CURRENT_TIMESTAMP " +
+           "WHERE b.userId = :userId")
+    int addToBalance(@Param("userId") Long userId, @Param("delta") BigDecimal delta);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE UserBalance b SET b.balance = :balance, b.updatedAt = CURRENT_TIMESTAMP WHERE b.userId = :userId")
+    int setBalance(@Param("userId") Long userId, @Param("balance") BigDecimal balance);
+}
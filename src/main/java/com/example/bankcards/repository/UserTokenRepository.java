@@ -0,0 +1,39 @@
+package com.example.bankcards.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Repository
+@RequiredArgsConstructor
+public class UserTokenRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Disabled users map to Integer.MAX_VALUE: no token version they hold is current.
+    public Map<Long, Integer> findRevokedVersions() {
+        return jdbcTemplate.query(
+                        "SELECT id, token_version, enabled FROM users WHERE token_version > 0 OR enabled = FALSE",
+                        (rs, rowNum) -> Map.entry(rs.getLong(1), rs.getBoolean(3) ? rs.getInt(2) : Integer.MAX_VALUE))
+                .stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+    }
+
+    public boolean exists(Long userId) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM users WHERE id = ?)", Boolean.class, userId));
+    }
+
+    public Integer incrementTokenVersion(Long userId) {
+        if (jdbcTemplate.update("UPDATE users SET token_version = token_version + 1 WHERE id = ?", userId) == 0) {
+            return null;
+        }
+        List<Integer> versions = jdbcTemplate.queryForList(
+                "SELECT token_version FROM users WHERE id = ?", Integer.class, userId);
+        return versions.isEmpty() ? null : versions.get(0);
+    }
+}
@@ -1,88 +1,90 @@
 package com.example.bankcards.service;
 
-import com.example.bankcards.entity.AuditLog;
+import com.example.bankcards.dto.response.AuditLogResponse;
+import com.example.bankcards.dto.response.CursorPageResponse;
 import com.example.bankcards.entity.CustomUserDetails;
-import com.example.bankcards.entity.User;
-import com.example.bankcards.repository.AuditLogRepository;
-import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.repository.AuditLogFeedRepository;
+import com.example.bankcards.service.audit.AuditDictionary;
+import com.example.bankcards.service.audit.AuditEvent;
+import com.example.bankcards.service.audit.AuditLogExporter;
+import com.example.bankcards.service.audit.AuditPolicy;
+import com.example.bankcards.util.KeysetCursor;
+import com.example.bankcards.util.RangedKeysetCursor;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class AuditService {
 
-    private final AuditLogRepository auditLogRepository;
-    private final UserRepository userRepository;
+    private static final int MAX_FEED_PAGE_SIZE = 200;
 
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
-    public void logAction(String action, String entityType, Long entityId, String details) {
+    private final AuditLogFeedRepository auditLogFeedRepository;
+    private final AuditDictionary auditDictionary;
+    private final AuditPolicy auditPolicy;
+    private final AuditLogExporter auditLogExporter;
+
+    public void logAction(String action, String entityType, Long entityId, Map<String, Object> details) {
         try {
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            User user = null;
+            Long userId = null;
 
             if (authentication != null && authentication.getPrincipal() instanceof CustomUserDetails) {
-                var userDetails = (CustomUserDetails) authentication.getPrincipal();
-                user = userRepository.findById(userDetails.getId()).orElse(null);
+                userId = ((CustomUserDetails) authentication.getPrincipal()).getId();
             }
 
-            String ipAddress = getClientIp();
-            String userAgent = getUserAgent();
-
-            AuditLog auditLog = AuditLog.builder()
-                    .action(action)
-                    .entityType(entityType)
-                    .entityId(entityId)
-                    .details(details)
-                    .user(user)
-                    .ipAddress(ipAddress)
-                    .userAgent(userAgent)
-                    .createdAt(LocalDateTime.now())
-                    .build();
-
-            auditLogRepository.save(auditLog);
-            log.debug("Audit log saved: {} - {} - {}", action, entityType, entityId);
+            auditPolicy.apply(new AuditEvent(action, entityType, entityId, details, userId,
+                    getClientIp(), getUserAgent(), LocalDateTime.now()));
+            log.debug("Audit event submitted: {} - {} - {}", action, entityType, entityId);
 
         } catch (Exception e) {
             log.error("Failed to save audit log: {} - {}", action, entityType, e);
         }
     }
 
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
     public void logAction(String action, String entityType, Long entityId) {
         logAction(action, entityType, entityId, null);
     }
 
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
-    public void logAction(String action, String details) {
+    public void logAction(String action, Map<String, Object> details) {
         logAction(action, null, null, details);
     }
 
-    @Transactional(readOnly = true)
-    public Page<AuditLog> getAuditLogs(Pageable pageable) {
-        return auditLogRepository.findAll(pageable);
+    /**
+     * Audit parameters from alternating names and values, kept in order; null values are allowed.
+     */
+    public static Map<String, Object> details(Object... namesAndValues) {
+        Map<String, Object> details = new LinkedHashMap<>(namesAndValues.length);
+        for (int i = 0; i + 1 < namesAndValues.length; i += 2) {
+            details.put(String.valueOf(namesAndValues[i]), namesAndValues[i + 1]);
+        }
+        return details;
     }
 
     @Transactional(readOnly = true)
-    public Page<AuditLog> getUserAuditLogs(Long userId, Pageable pageable) {
-        return auditLogRepository.findByUserId(userId, pageable);
+    public Page<AuditLogResponse> getUserAuditLogs(Long userId, Pageable pageable) {
+        return search(new AuditLogFeedRepository.Filter(userId, null, null, null, null), pageable);
     }
 
     @Transactional(readOnly = true)
-    public Page<AuditLog> searchAuditLogs(
+    public Page<AuditLogResponse> searchAuditLogs(
             Long userId,
             String action,
             String entityType,
@@ -90,15 +92,85 @@ public class AuditService {
             LocalDateTime endDate,
             Pageable pageable) {
 
+        return search(feedFilter(userId, action, entityType, startDate, endDate), pageable);
+    }
+
+    // The total is counted only when the page does not already reveal it.
+    private Page<AuditLogResponse> search(AuditLogFeedRepository.Filter filter, Pageable pageable) {
+        // Filtering on a value never logged must not add it to the dictionary.
+        if ((filter.action() != null && auditDictionary.find(AuditDictionary.Kind.ACTION, filter.action()) == null)
+                || (filter.entityType() != null
+                && auditDictionary.find(AuditDictionary.Kind.ENTITY_TYPE, filter.entityType()) == null)) {
+            return Page.empty(pageable);
+        }
+        return PageableExecutionUtils.getPage(auditLogFeedRepository.findPage(filter, pageable), pageable,
+                () -> auditLogFeedRepository.count(filter));
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPageResponse<AuditLogResponse> getAuditLogFeed(
+            Long userId,
+            String action,
+            String entityType,
+            LocalDateTime startDate,
+            LocalDateTime endDate,
+            String cursor,
+            int size,
+            boolean includeTotal) {
+
+        // Later pages keep the range of the first one rather than defaulting it again.
+        RangedKeysetCursor after = cursor == null || cursor.isBlank() ? null : RangedKeysetCursor.decode(cursor);
+        var filter = after == null
+                ? feedFilter(userId, action, entityType, startDate, endDate)
+                : new AuditLogFeedRepository.Filter(userId, action, entityType, after.startDate(), after.endDate());
+        int limit = Math.max(1, Math.min(size, MAX_FEED_PAGE_SIZE));
+
+        List<AuditLogResponse> items = auditLogFeedRepository.findPage(filter,
+                after != null ? after.position() : null, limit + 1);
+        boolean hasMore = items.size() > limit;
+        if (hasMore) {
+            items = items.subList(0, limit);
+        }
+        AuditLogResponse last = items.isEmpty() ? null : items.get(items.size() - 1);
+
+        return CursorPageResponse.<AuditLogResponse>builder()
+                .items(items)
+                .hasMore(hasMore)
+                .nextCursor(hasMore ? new RangedKeysetCursor(filter.startDate(), filter.endDate(),
+                        new KeysetCursor(last.getCreatedAt(), last.getId())).encode() : null)
+                .approximateTotal(includeTotal && after == null ? auditLogFeedRepository.estimateCount(filter) : null)
+                .build();
+    }
+
+    // Logged on the request thread, before the body is streamed on an async one.
+    public StreamingResponseBody exportAuditLogs(
+            Long userId,
+            String action,
+            String entityType,
+            LocalDateTime startDate,
+            LocalDateTime endDate,
+            AuditLogExporter.Format format,
+            boolean gzip) {
+
+        var filter = feedFilter(userId, action, entityType, startDate, endDate);
+        logAction(Actions.ADMIN_ACTION, EntityTypes.AUDIT_LOG, null, details("operation", "AUDIT_EXPORT",
+                "format", format.name(), "from", filter.startDate().toString(), "to", filter.endDate().toString()));
+
+        return out -> {
+            long rows = auditLogExporter.export(filter, format, gzip, out);
+            log.info("Exported {} audit rows as {}", rows, format);
+        };
+    }
+
+    private static AuditLogFeedRepository.Filter feedFilter(Long userId, String action, String entityType,
+                                                            LocalDateTime startDate, LocalDateTime endDate) {
         if (endDate == null) {
             endDate = LocalDateTime.now();
         }
         if (startDate == null) {
             startDate = endDate.minusMonths(1);
         }
-
-        return auditLogRepository.searchLogs(
-                userId, action, entityType, startDate, endDate, pageable);
+        return new AuditLogFeedRepository.Filter(userId, action, entityType, startDate, endDate);
     }
 
     private String getClientIp() {
@@ -145,6 +217,8 @@ public class AuditService {
         public static final String CARD_DELETED = "CARD_DELETED";
         public static final String TRANSFER_COMPLETED = "TRANSFER_COMPLETED";
         public static final String TRANSFER_FAILED = "TRANSFER_FAILED";
+        public static final String TRANSFER_QUEUED = "TRANSFER_QUEUED";
+        public static final String TRANSFER_BATCH_COMPLETED = "TRANSFER_BATCH_COMPLETED";
         public static final String BALANCE_CHECKED = "BALANCE_CHECKED";
         public static final String PROFILE_UPDATED = "PROFILE_UPDATED";
         public static final String PASSWORD_CHANGED = "PASSWORD_CHANGED";
@@ -60,8 +60,7 @@ public class AuthenticationService {
                 AuditService.Actions.USER_REGISTERED,
                 AuditService.EntityTypes.USER,
                 user.getId(),
-                String.format("New user registered: %s, role: %s",
-                        request.getUsername(), request.getRole())
+                AuditService.details("username", request.getUsername(), "role", request.getRole())
         );
 
         return AuthResponse.builder()
@@ -92,7 +91,7 @@ public class AuthenticationService {
                 AuditService.Actions.USER_LOGIN,
                 AuditService.EntityTypes.USER,
                 userDetails.getId(),
-                String.format("User logged in: %s", request.getUsername())
+                AuditService.details("username", request.getUsername())
         );
 
         return AuthResponse.builder()
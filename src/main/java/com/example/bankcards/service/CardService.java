@@ -3,19 +3,28 @@ package com.example.bankcards.service;
 import com.example.bankcards.dto.request.CreateCardRequest;
 import com.example.bankcards.dto.request.CardTransferRequest;
 import com.example.bankcards.dto.response.BankCardResponse;
+import com.example.bankcards.dto.response.CursorPageResponse;
+import com.example.bankcards.dto.response.TransferStatusResponse;
 import com.example.bankcards.dto.filter.CardFilter;
 import com.example.bankcards.exception.CardNotFoundException;
 import com.example.bankcards.exception.CardOperationException;
-import com.example.bankcards.exception.InsufficientFundsException;
+import com.example.bankcards.exception.TransactionNotFoundException;
 import com.example.bankcards.exception.UserNotFoundException;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.CardTransaction;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.repository.BankCardRepository;
+import com.example.bankcards.repository.BankCardRepository.BalanceView;
+import com.example.bankcards.repository.CardTransactionHistoryRepository;
 import com.example.bankcards.repository.CardTransactionRepository;
 import com.example.bankcards.repository.UserRepository;
 import com.example.bankcards.specification.BankCardSpecification;
 import com.example.bankcards.service.encryption.EncryptionService;
+import com.example.bankcards.service.transfer.CardBalanceShards;
+import com.example.bankcards.service.transfer.CardLockManager;
+import com.example.bankcards.service.transfer.TransferGroupCommitter;
+import com.example.bankcards.service.transfer.TransferSettlementProcessor;
+import com.example.bankcards.util.KeysetCursor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -24,6 +33,7 @@ import org.springframework.data.jpa.domain.Specification;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -39,9 +49,16 @@ public class CardService {
     private final BankCardRepository cardRepository;
     private final UserRepository userRepository;
     private final CardTransactionRepository transactionRepository;
+    private final CardTransactionHistoryRepository historyRepository;
     private final EncryptionService encryptionService;
     private final AuditService auditService;
+    private final TransferSettlementProcessor transferProcessor;
+    private final TransferGroupCommitter groupCommitter;
+    private final CardLockManager cardLockManager;
+    private final CardBalanceShards cardBalanceShards;
+    private final UserBalanceService userBalanceService;
     private static final Random random = new Random();
+    private static final int MAX_HISTORY_PAGE_SIZE = 100;
 
     @Transactional(readOnly = true)
     public Page<BankCardResponse> getUserCards(Long userId, CardFilter filter, Pageable pageable) {
@@ -117,58 +134,60 @@ public class CardService {
                 .build();
 
         Card savedCard = cardRepository.save(card);
+        userBalanceService.adjust(userId, savedCard.getBalance());
 
         auditService.logAction(
                 AuditService.Actions.CARD_CREATED,
                 AuditService.EntityTypes.BANK_CARD,
                 savedCard.getId(),
-                String.format("Card created for user %s (ID: %d). Holder: %s",
-                        user.getUsername(), userId, request.getCardHolder())
+                AuditService.details("username", user.getUsername(), "userId", userId,
+                        "cardHolder", request.getCardHolder())
         );
 
         return savedCard;
     }
 
-    @Transactional
-    public void transferBetweenCards(CardTransferRequest request, Long userId) {
+    public CardTransaction transferBetweenCards(CardTransferRequest request, Long userId) {
         try {
-            Card fromCard = cardRepository.findByIdAndUserId(request.getFromCardId(), userId)
-                    .orElseThrow(() -> new CardNotFoundException(
-                            "Source card not found or doesn't belong to user"));
-
-            Card toCard = cardRepository.findByIdAndUserId(request.getToCardId(), userId)
-                    .orElseThrow(() -> new CardNotFoundException(
-                            "Destination card not found or doesn't belong to user"));
-
-            validateTransfer(fromCard, toCard, request.getAmount());
-
-            fromCard.setBalance(fromCard.getBalance().subtract(request.getAmount()));
-            toCard.setBalance(toCard.getBalance().add(request.getAmount()));
-
-            cardRepository.save(fromCard);
-            cardRepository.save(toCard);
+            if (request.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+                throw new CardOperationException("Transfer amount must be positive");
+            }
 
-            CardTransaction transaction = saveTransaction(fromCard, toCard, request.getAmount(),
-                    CardTransaction.TransactionStatus.SUCCESS);
+            // Inside a caller's transaction (e.g. idempotency key claim) the transfer has to
+            // share it, so only standalone calls are handed to the group committer.
+            CardTransaction transaction;
+            if (groupCommitter.isEnabled() && !TransactionSynchronizationManager.isActualTransactionActive()) {
+                transaction = groupCommitter.submit(request, userId);
+            } else {
+                // Credits to a sharded card land on a slot, so only its debits need the stripe.
+                Long toCardId = request.getToCardId();
+                CardLockManager.Lease lease = cardLockManager.lock(request.getFromCardId(),
+                        cardBalanceShards.isSharded(toCardId) ? request.getFromCardId() : toCardId);
+                try {
+                    transaction = transferProcessor.transferWithRetry(request, userId);
+                } finally {
+                    lease.closeAfterTransaction();
+                }
+            }
 
             auditService.logAction(
                     AuditService.Actions.TRANSFER_COMPLETED,
                     AuditService.EntityTypes.CARD_TRANSACTION,
                     transaction.getId(),
-                    String.format("Transfer from card %d to card %d, amount: %s, user: %d",
-                            fromCard.getId(), toCard.getId(), request.getAmount(), userId)
+                    AuditService.details("fromCardId", request.getFromCardId(), "toCardId", request.getToCardId(),
+                            "amount", request.getAmount(), "userId", userId)
             );
 
             log.info("Transfer completed: from card {} to card {}, amount: {}, user: {}",
-                    fromCard.getId(), toCard.getId(), request.getAmount(), userId);
+                    request.getFromCardId(), request.getToCardId(), request.getAmount(), userId);
 
+            return transaction;
         } catch (Exception e) {
 
             auditService.logAction(
                     AuditService.Actions.TRANSFER_FAILED,
-                    String.format("Transfer failed: from %d to %d, amount: %s, user: %d, error: %s",
-                            request.getFromCardId(), request.getToCardId(),
-                            request.getAmount(), userId, e.getMessage())
+                    AuditService.details("fromCardId", request.getFromCardId(), "toCardId", request.getToCardId(),
+                            "amount", request.getAmount(), "userId", userId, "error", e.getMessage())
             );
             throw e;
         }
@@ -189,7 +208,7 @@ public class CardService {
                     AuditService.Actions.CARD_BLOCKED,
                     AuditService.EntityTypes.BANK_CARD,
                     cardId,
-                    String.format("Card blocked by user %d", userId)
+                    AuditService.details("userId", userId)
             );
 
             log.info("Card {} blocked by user {}", cardId, userId);
@@ -212,21 +231,20 @@ public class CardService {
                     AuditService.Actions.CARD_ACTIVATED,
                     AuditService.EntityTypes.BANK_CARD,
                     cardId,
-                    String.format("Card activated by user %d", userId)
+                    AuditService.details("userId", userId)
             );
         }
     }
 
-    @Transactional(readOnly = true)
     public BigDecimal getTotalBalance(Long userId) {
-        BigDecimal total = cardRepository.getTotalBalanceByUserId(userId);
+        BigDecimal total = userBalanceService.getTotal(userId);
 
         auditService.logAction(
                 AuditService.Actions.BALANCE_CHECKED,
-                String.format("Total balance checked by user %d: %s", userId, total)
+                AuditService.details("userId", userId, "total", total)
         );
 
-        return total != null ? total : BigDecimal.ZERO;
+        return total;
     }
 
     @Scheduled(cron = "0 0 0 * * ?")
@@ -244,8 +262,7 @@ public class CardService {
                         "CARD_EXPIRED",
                         AuditService.EntityTypes.BANK_CARD,
                         card.getId(),
-                        String.format("Card expired automatically, user: %d",
-                                card.getUser().getId())
+                        AuditService.details("userId", card.getUser().getId())
                 );
 
                 log.info("Card {} marked as expired", card.getId());
@@ -267,7 +284,7 @@ public class CardService {
                     AuditService.Actions.ADMIN_ACTION,
                     AuditService.EntityTypes.BANK_CARD,
                     cardId,
-                    "Card blocked by administrator"
+                    AuditService.details("operation", "CARD_BLOCKED")
             );
         }
     }
@@ -287,7 +304,7 @@ public class CardService {
                     AuditService.Actions.ADMIN_ACTION,
                     AuditService.EntityTypes.BANK_CARD,
                     cardId,
-                    "Card activated by administrator"
+                    AuditService.details("operation", "CARD_ACTIVATED")
             );
         }
     }
@@ -299,13 +316,21 @@ public class CardService {
 
         Long userId = card.getUser().getId();
 
+        // Slots are folded in and the row locked, so the balance removed from the user's
+        // total is exactly what the card held when it was deleted.
+        cardBalanceShards.sweep(cardId);
+        BigDecimal balance = cardRepository.lockBalanceView(cardId, userId)
+                .map(BalanceView::getBalance)
+                .orElse(BigDecimal.ZERO);
+
         cardRepository.deleteById(cardId);
+        userBalanceService.adjust(userId, balance.negate());
 
         auditService.logAction(
                 AuditService.Actions.CARD_DELETED,
                 AuditService.EntityTypes.BANK_CARD,
                 cardId,
-                String.format("Card deleted, user: %d", userId)
+                AuditService.details("userId", userId)
         );
     }
 
@@ -316,34 +341,44 @@ public class CardService {
                         "Card not found or doesn't belong to user"));
     }
 
-    private void validateTransfer(Card fromCard, Card toCard, BigDecimal amount) {
-        if (fromCard.getStatus() != Card.CardStatus.ACTIVE) {
-            throw new CardOperationException("Source card is not active");
-        }
-
-        if (toCard.getStatus() != Card.CardStatus.ACTIVE) {
-            throw new CardOperationException("Destination card is not active");
-        }
+    @Transactional(readOnly = true)
+    public TransferStatusResponse getUserTransfer(Long transactionId, Long userId) {
+        CardTransaction transaction = transactionRepository.findByIdAndUserId(transactionId, userId)
+                .orElseThrow(() -> new TransactionNotFoundException(
+                        "Transaction not found or doesn't belong to user"));
+
+        return TransferStatusResponse.builder()
+                .id(transaction.getId())
+                .fromCardId(transaction.getFromCard().getId())
+                .toCardId(transaction.getToCard().getId())
+                .amount(transaction.getAmount())
+                .status(transaction.getStatus())
+                .failureReason(transaction.getFailureReason())
+                .transactionDate(transaction.getTransactionDate())
+                .build();
+    }
 
-        if (fromCard.getBalance().compareTo(amount) < 0) {
-            throw new InsufficientFundsException("Insufficient funds");
+    @Transactional(readOnly = true)
+    public CursorPageResponse<TransferStatusResponse> getCardTransactions(Long cardId, Long userId,
+                                                                          String cursor, int size) {
+        if (cardRepository.findBalanceView(cardId, userId).isEmpty()) {
+            throw new CardNotFoundException("Card not found or doesn't belong to user");
         }
+        KeysetCursor after = cursor == null || cursor.isBlank() ? null : KeysetCursor.decode(cursor);
+        int limit = Math.max(1, Math.min(size, MAX_HISTORY_PAGE_SIZE));
 
-        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
-            throw new CardOperationException("Transfer amount must be positive");
+        List<TransferStatusResponse> items = historyRepository.findCardHistory(cardId, after, limit + 1);
+        boolean hasMore = items.size() > limit;
+        if (hasMore) {
+            items = items.subList(0, limit);
         }
-    }
+        TransferStatusResponse last = items.isEmpty() ? null : items.get(items.size() - 1);
 
-    private CardTransaction saveTransaction(Card fromCard, Card toCard,
-                                            BigDecimal amount, CardTransaction.TransactionStatus status) {
-        CardTransaction transaction = CardTransaction.builder()
-                .fromCard(fromCard)
-                .toCard(toCard)
-                .amount(amount)
-                .status(status)
+        return CursorPageResponse.<TransferStatusResponse>builder()
+                .items(items)
+                .hasMore(hasMore)
+                .nextCursor(hasMore ? new KeysetCursor(last.getTransactionDate(), last.getId()).encode() : null)
                 .build();
-
-        return transactionRepository.save(transaction);
     }
 
     String generateCardNumber() {
@@ -365,7 +400,7 @@ public class CardService {
                 .cardHolder(card.getCardHolder())
                 .expiryDate(card.getExpiryDate())
                 .status(card.getStatus())
-                .balance(card.getBalance())
+                .balance(card.getTotalBalance())
                 .createdAt(card.getCreatedAt())
                 .updatedAt(card.getUpdatedAt())
                 .build();
@@ -3,46 +3,101 @@ package com.example.bankcards.service;
 import com.example.bankcards.entity.CustomUserDetails;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.repository.UserRepository;
-import lombok.RequiredArgsConstructor;
+import com.example.bankcards.util.BoundedTtlCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Loads users for login and, where tokens are not trusted on their own, for every request.
+ * Loaded users are cached by username and by id; entries are dropped when the user row changes
+ * through JPA, when the user's tokens are revoked, or when the revocation refresh sees the user
+ * disabled, and otherwise live for the configured ttl. Callers get a copy, since authentication
+ * erases the password on the principal it is handed.
+ */
 @Service
-@RequiredArgsConstructor
 public class CustomUserDetailsService implements UserDetailsService {
 
     private final UserRepository userRepository;
+    private final BoundedTtlCache<String, CustomUserDetails> byUsername;
+    private final BoundedTtlCache<Long, CustomUserDetails> byId;
+    private final Timer loadTimer;
+
+    public CustomUserDetailsService(UserRepository userRepository,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${security.user-cache.size:10000}") int cacheSize,
+                                    @Value("${security.user-cache.ttl:5m}") Duration cacheTtl) {
+        this.userRepository = userRepository;
+        this.byUsername = new BoundedTtlCache<String, CustomUserDetails>(cacheSize, cacheTtl)
+                .bindTo(meterRegistry, "users.by-username");
+        this.byId = new BoundedTtlCache<Long, CustomUserDetails>(cacheSize, cacheTtl)
+                .bindTo(meterRegistry, "users.by-id");
+        this.loadTimer = Timer.builder("users.load.latency").register(meterRegistry);
+    }
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + username));
+        CustomUserDetails user = byUsername.get(username);
+        if (user == null) {
+            user = load(() -> userRepository.findByUsername(username))
+                    .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + username));
+        }
 
         if (!user.isEnabled()) {
             throw new UsernameNotFoundException("User is disabled");
         }
 
-        return new CustomUserDetails(
+        return copy(user);
+    }
+
+    public UserDetails loadUserById(Long userId) {
+        CustomUserDetails user = byId.get(userId);
+        if (user == null) {
+            user = load(() -> userRepository.findById(userId))
+                    .orElseThrow(() -> new UsernameNotFoundException("User not found with id: " + userId));
+        }
+        return copy(user);
+    }
+
+    public void evict(Long userId) {
+        byId.invalidate(userId);
+        byUsername.invalidateIf(user -> user.getId().equals(userId));
+    }
+
+    private Optional<CustomUserDetails> load(Supplier<Optional<User>> query) {
+        Optional<CustomUserDetails> loaded = loadTimer.record(query).map(user -> new CustomUserDetails(
                 user.getId(),
                 user.getUsername(),
                 user.getPassword(),
                 user.getEmail(),
+                user.isEnabled(),
+                user.getTokenVersion(),
                 user.getAuthorities()
-        );
+        ));
+        loaded.ifPresent(user -> {
+            byUsername.put(user.getUsername(), user);
+            byId.put(user.getId(), user);
+        });
+        return loaded;
     }
 
-    public UserDetails loadUserById(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found with id: " + userId));
-
+    private static CustomUserDetails copy(CustomUserDetails user) {
         return new CustomUserDetails(
                 user.getId(),
                 user.getUsername(),
                 user.getPassword(),
                 user.getEmail(),
+                user.isEnabled(),
+                user.getTokenVersion(),
                 user.getAuthorities()
         );
     }
-}
\ No newline at end of file
+}
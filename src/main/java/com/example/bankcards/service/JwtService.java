@@ -1,40 +1,97 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.entity.CustomUserDetails;
+import com.example.bankcards.util.BoundedTtlCache;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 
+/**
+ * Issues and verifies JWTs. The signing key and parser are built once; verified claims are
+ * cached under the token's SHA-256 until the token expires, so a client reusing its token pays
+ * for signature verification once rather than on every request.
+ * <p>
+ * Tokens issued for a {@link CustomUserDetails} also carry the user id, authorities and token
+ * version, enough to rebuild the principal without loading the user.
+ */
 @Service
 public class JwtService {
 
-    @Value("${jwt.secret}")
-    private String secretKey;
+    static final String USER_ID_CLAIM = "uid";
+    static final String AUTHORITIES_CLAIM = "roles";
+    static final String TOKEN_VERSION_CLAIM = "ver";
 
-    @Value("${jwt.expiration}")
-    private long jwtExpiration;
+    private final long jwtExpiration;
+    private final Key signingKey;
+    private final JwtParser parser;
+    private final BoundedTtlCache<String, Claims> verifiedClaims;
+
+    public JwtService(MeterRegistry meterRegistry,
+                      @Value("${jwt.secret}") String secretKey,
+                      @Value("${jwt.expiration}") long jwtExpiration,
+                      @Value("${jwt.claims-cache.size:10000}") int claimsCacheSize,
+                      @Value("${jwt.claims-cache.ttl:10m}") Duration claimsCacheTtl) {
+        this.jwtExpiration = jwtExpiration;
+        this.signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey));
+        this.parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+        this.verifiedClaims = new BoundedTtlCache<String, Claims>(claimsCacheSize, claimsCacheTtl)
+                .bindTo(meterRegistry, "jwt.claims");
+    }
+
+    /**
+     * Claims of a token whose signature and expiry have been checked. Throws
+     * {@link io.jsonwebtoken.JwtException} for a token that does not verify.
+     */
+    public Claims verify(String token) {
+        String key = hash(token);
+        Claims claims = verifiedClaims.get(key);
+        if (claims != null) {
+            return claims;
+        }
+        claims = parser.parseClaimsJws(token).getBody();
+        if (claims.getExpiration() != null) {
+            verifiedClaims.put(key, claims, claims.getExpiration().toInstant());
+        }
+        return claims;
+    }
 
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+        return claimsResolver.apply(verify(token));
     }
 
     public String generateToken(UserDetails userDetails) {
-        return generateToken(new HashMap<>(), userDetails);
+        Map<String, Object> claims = new HashMap<>();
+        if (userDetails instanceof CustomUserDetails user) {
+            claims.put(USER_ID_CLAIM, user.getId());
+            claims.put(AUTHORITIES_CLAIM, user.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList());
+            claims.put(TOKEN_VERSION_CLAIM, user.getTokenVersion());
+        }
+        return generateToken(claims, userDetails);
     }
 
     public String generateToken(Map<String, Object> extraClaims, UserDetails userDetails) {
@@ -44,38 +101,55 @@ public class JwtService {
                 .setSubject(userDetails.getUsername())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + jwtExpiration))
-                .signWith(getSignInKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
+        return isTokenValid(verify(token), userDetails);
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    public boolean isTokenValid(Claims claims, UserDetails userDetails) {
+        return userDetails.getUsername().equals(claims.getSubject()) && !isTokenExpired(claims);
     }
 
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    /**
+     * The principal a token was issued for, or {@code null} for a token issued before tokens
+     * carried the user id, which has to be resolved by username instead. The password is left
+     * empty and the email unset; neither is in the token.
+     */
+    public CustomUserDetails principalOf(Claims claims) {
+        Number userId = claims.get(USER_ID_CLAIM, Number.class);
+        List<?> authorities = claims.get(AUTHORITIES_CLAIM, List.class);
+        if (userId == null || authorities == null || claims.getSubject() == null) {
+            return null;
+        }
+        Number tokenVersion = claims.get(TOKEN_VERSION_CLAIM, Number.class);
+        return new CustomUserDetails(
+                userId.longValue(),
+                claims.getSubject(),
+                "",
+                null,
+                true,
+                tokenVersion != null ? tokenVersion.intValue() : 0,
+                authorities.stream().map(authority -> new SimpleGrantedAuthority(authority.toString())).toList()
+        );
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(getSignInKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    private boolean isTokenExpired(Claims claims) {
+        return claims.getExpiration() == null || claims.getExpiration().before(new Date());
     }
 
-    private Key getSignInKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
     }
 
     public long getExpirationTime() {
         return jwtExpiration;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,114 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.exception.UserNotFoundException;
+import com.example.bankcards.repository.UserTokenRepository;
+import com.example.bankcards.util.BoundedTtlCache;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory view of which tokens are no longer honoured, so authenticating a request needs no
+ * user lookup. A token is revoked once its version is below the user's current
+ * {@code token_version}; disabled users have every token revoked. Only users with a revocation
+ * are held, and the set is reloaded periodically, so a revocation made on another instance, or a
+ * user disabled directly in the database, takes effect within one refresh interval. Anything
+ * that changes a user's role must call {@link #revokeAll}, since the role travels in the token.
+ * <p>
+ * A deleted user leaves no row to revoke, so whether a user still exists is checked on a cache
+ * miss and cached for one refresh interval.
+ */
+@Component
+@Slf4j
+public class TokenRevocationRegistry {
+
+    private final UserTokenRepository userTokenRepository;
+    private final AuditService auditService;
+    private final CustomUserDetailsService userDetailsService;
+    private final Map<Long, Revocation> currentVersions = new ConcurrentHashMap<>();
+    private final BoundedTtlCache<Long, Boolean> existingUsers;
+
+    public TokenRevocationRegistry(UserTokenRepository userTokenRepository,
+                                   AuditService auditService,
+                                   CustomUserDetailsService userDetailsService,
+                                   @Value("${jwt.revocation.existence-cache-size:10000}") int existenceCacheSize,
+                                   @Value("${jwt.revocation.refresh-interval:PT30S}") Duration refreshInterval) {
+        this.userTokenRepository = userTokenRepository;
+        this.auditService = auditService;
+        this.userDetailsService = userDetailsService;
+        this.existingUsers = new BoundedTtlCache<>(existenceCacheSize, refreshInterval);
+    }
+
+    public boolean isRevoked(Long userId, int tokenVersion) {
+        Revocation revocation = currentVersions.get(userId);
+        if (revocation != null && tokenVersion < revocation.version()) {
+            return true;
+        }
+        return !exists(userId);
+    }
+
+    @Transactional
+    public int revokeAll(Long userId) {
+        Integer version = userTokenRepository.incrementTokenVersion(userId);
+        if (version == null) {
+            throw new UserNotFoundException("User not found with id: " + userId);
+        }
+        currentVersions.merge(userId, new Revocation(version, System.nanoTime()),
+                (previous, revoked) -> new Revocation(Math.max(previous.version(), revoked.version()),
+                        revoked.recordedAt()));
+        userDetailsService.evict(userId);
+
+        auditService.logAction(
+                AuditService.Actions.ADMIN_ACTION,
+                AuditService.EntityTypes.USER,
+                userId,
+                AuditService.details("operation", "TOKENS_REVOKED", "tokenVersion", version)
+        );
+        log.info("Revoked tokens of user {} below version {}", userId, version);
+        return version;
+    }
+
+    public void userDeleted(Long userId) {
+        existingUsers.put(userId, false);
+    }
+
+    // A revocation recorded after the snapshot was read may be newer than it, so such entries
+    // keep the higher version and are not dropped for being missing from the snapshot.
+    @PostConstruct
+    @Scheduled(fixedDelayString = "${jwt.revocation.refresh-interval:PT30S}")
+    public void refresh() {
+        long started = System.nanoTime();
+        Map<Long, Integer> current = userTokenRepository.findRevokedVersions();
+        current.forEach((userId, version) -> {
+            Revocation previous = currentVersions.get(userId);
+            if (previous == null || previous.version() != version) {
+                userDetailsService.evict(userId);
+            }
+            currentVersions.compute(userId, (id, existing) ->
+                    existing != null && existing.recordedAt() - started >= 0 && existing.version() >= version
+                            ? existing
+                            : new Revocation(version, started));
+        });
+        currentVersions.entrySet().removeIf(entry ->
+                !current.containsKey(entry.getKey()) && entry.getValue().recordedAt() - started < 0);
+    }
+
+    private boolean exists(Long userId) {
+        Boolean exists = existingUsers.get(userId);
+        if (exists == null) {
+            exists = userTokenRepository.exists(userId);
+            existingUsers.put(userId, exists);
+        }
+        return exists;
+    }
+
+    private record Revocation(int version, long recordedAt) {
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.UserBalance;
+import com.example.bankcards.repository.BankCardRepository;
+import com.example.bankcards.repository.UserBalanceRepository;
+import com.example.bankcards.util.BoundedTtlCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Materialised per-user total of card balances, kept in {@code user_balances}. Transfers only
+ * move money between cards of the same user, so they leave the total untouched; every other
+ * change is applied with {@link #adjust} in the transaction that changes the cards. A user's
+ * row is created on first read from the cards themselves.
+ */
+@Service
+public class UserBalanceService {
+
+    private final UserBalanceRepository balanceRepository;
+    private final BankCardRepository cardRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final BoundedTtlCache<Long, BigDecimal> cache;
+
+    public UserBalanceService(UserBalanceRepository balanceRepository,
+                              BankCardRepository cardRepository,
+                              TransactionTemplate transactionTemplate,
+                              MeterRegistry meterRegistry,
+                              @Value("${balance.cache.size:10000}") int cacheSize,
+                              @Value("${balance.cache.ttl:5s}") Duration cacheTtl) {
+        this.balanceRepository = balanceRepository;
+        this.cardRepository = cardRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.cache = new BoundedTtlCache<Long, BigDecimal>(cacheSize, cacheTtl)
+                .bindTo(meterRegistry, "balance.user.total");
+    }
+
+    public BigDecimal getTotal(Long userId) {
+        BigDecimal cached = cache.get(userId);
+        if (cached != null) {
+            return cached;
+        }
+
+        BigDecimal total = balanceRepository.findById(userId)
+                .map(UserBalance::getBalance)
+                .orElseGet(() -> transactionTemplate.execute(status -> materialize(userId)));
+        cache.put(userId, total);
+        return total;
+    }
+
+    // The delta must already be applied to the cards: a row created here is computed from
+    // them and so already reflects the change.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void adjust(Long userId, BigDecimal delta) {
+        if (delta.signum() == 0) {
+            return;
+        }
+        if (balanceRepository.addToBalance(userId, delta) == 0
+                && !balanceRepository.lockUser(userId).isEmpty()
+                && balanceRepository.addToBalance(userId, delta) == 0) {
+            insertComputed(userId);
+        }
+        invalidateAfterCommit(userId);
+    }
+
+    // Used after card balances were rewritten wholesale, when no delta is known.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recompute(Long userId) {
+        if (balanceRepository.lockUser(userId).isEmpty()) {
+            return;
+        }
+        BigDecimal total = cardRepository.getTotalBalanceByUserId(userId);
+        if (balanceRepository.setBalance(userId, total != null ? total : BigDecimal.ZERO) == 0) {
+            insertComputed(userId);
+        }
+        invalidateAfterCommit(userId);
+    }
+
+    // The user row lock serialises creating the aggregate with adjustments that find it
+    // missing, so a total computed here can never miss a change that was added to the row.
+    private BigDecimal materialize(Long userId) {
+        if (balanceRepository.lockUser(userId).isEmpty()) {
+            return BigDecimal.ZERO;
+        }
+        return balanceRepository.findById(userId)
+                .map(UserBalance::getBalance)
+                .orElseGet(() -> insertComputed(userId));
+    }
+
+    private BigDecimal insertComputed(Long userId) {
+        BigDecimal total = cardRepository.getTotalBalanceByUserId(userId);
+        return balanceRepository.save(UserBalance.builder()
+                .userId(userId)
+                .balance(total != null ? total : BigDecimal.ZERO)
+                .updatedAt(LocalDateTime.now())
+                .build()).getBalance();
+    }
+
+    private void invalidateAfterCommit(Long userId) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cache.invalidate(userId);
+            }
+        });
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.User;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Drops a user from the {@link CustomUserDetailsService} cache once a change to the user row
+ * commits, so disabling, deleting, re-roling or re-passwording a user is seen by the next load
+ * rather than after the cache ttl. Evicting at flush as well keeps other threads from caching
+ * the old row until then.
+ */
+public class UserDetailsCacheListener {
+
+    private final ObjectProvider<CustomUserDetailsService> userDetailsService;
+    private final ObjectProvider<TokenRevocationRegistry> revocationRegistry;
+
+    public UserDetailsCacheListener(ObjectProvider<CustomUserDetailsService> userDetailsService,
+                                    ObjectProvider<TokenRevocationRegistry> revocationRegistry) {
+        this.userDetailsService = userDetailsService;
+        this.revocationRegistry = revocationRegistry;
+    }
+
+    @PostUpdate
+    public void userChanged(User user) {
+        invalidate(user.getId(), false);
+    }
+
+    // Tokens carry their principal, so a deleted user is also marked gone for the revocation check.
+    @PostRemove
+    public void userRemoved(User user) {
+        invalidate(user.getId(), true);
+    }
+
+    private void invalidate(Long userId, boolean removed) {
+        evict(userId);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            if (removed) {
+                markDeleted(userId);
+            }
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                evict(userId);
+                if (removed && status == STATUS_COMMITTED) {
+                    markDeleted(userId);
+                }
+            }
+        });
+    }
+
+    private void evict(Long userId) {
+        CustomUserDetailsService service = userDetailsService.getIfAvailable();
+        if (service != null) {
+            service.evict(userId);
+        }
+    }
+
+    private void markDeleted(Long userId) {
+        TokenRevocationRegistry registry = revocationRegistry.getIfAvailable();
+        if (registry != null) {
+            registry.userDeleted(userId);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.bankcards.service.audit;
+
+import com.example.bankcards.repository.AuditDictionaryRepository;
+import com.example.bankcards.util.BoundedTtlCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Maps the strings repeated on every audit row (actions, entity types, user agents) to small
+ * integer ids. Both directions sit in bounded LRU caches, so once warm, writing or reading a row
+ * costs no dictionary query. New values are inserted in their own transaction so the id is
+ * visible to the batch that references it whatever transaction the caller is in.
+ * <p>
+ * User agents come from clients, so their table stops growing at a configured limit: past it,
+ * an unseen user agent is stored as null. Each instance counts towards the limit on its own, so
+ * several instances can overshoot it by the values they insert at the same time.
+ */
+@Component
+public class AuditDictionary {
+
+    public enum Kind {
+        ACTION("audit_actions", 100),
+        ENTITY_TYPE("audit_entity_types", 50),
+        USER_AGENT("audit_user_agents", 512);
+
+        private final String table;
+        private final int maxLength;
+
+        Kind(String table, int maxLength) {
+            this.table = table;
+            this.maxLength = maxLength;
+        }
+    }
+
+    private final AuditDictionaryRepository repository;
+    private final TransactionTemplate newTransaction;
+    private final int userAgentLimit;
+
+    private final Map<Kind, BoundedTtlCache<String, Integer>> ids = new EnumMap<>(Kind.class);
+    private final Map<Kind, BoundedTtlCache<Integer, String>> names = new EnumMap<>(Kind.class);
+    private final BoundedTtlCache<String, Boolean> droppedUserAgents;
+    private final AtomicInteger userAgentCount = new AtomicInteger(-1);
+
+    public AuditDictionary(AuditDictionaryRepository repository,
+                           PlatformTransactionManager transactionManager,
+                           MeterRegistry meterRegistry,
+                           @Value("${audit.dictionary.cache-size:10000}") int cacheSize,
+                           @Value("${audit.dictionary.cache-ttl:PT1H}") Duration cacheTtl,
+                           @Value("${audit.dictionary.user-agent-limit:5000}") int userAgentLimit) {
+        this.repository = repository;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.userAgentLimit = userAgentLimit;
+        for (Kind kind : Kind.values()) {
+            String cacheName = "audit.dictionary." + kind.name().toLowerCase(Locale.ROOT);
+            ids.put(kind, new BoundedTtlCache<String, Integer>(cacheSize, cacheTtl)
+                    .bindTo(meterRegistry, cacheName));
+            names.put(kind, new BoundedTtlCache<>(cacheSize, cacheTtl));
+        }
+        this.droppedUserAgents = new BoundedTtlCache<>(cacheSize, cacheTtl);
+    }
+
+    public Integer idOf(Kind kind, String value) {
+        if (value == null) {
+            return null;
+        }
+        String name = normalize(kind, value);
+        Integer id = find(kind, name);
+        if (id != null) {
+            return id;
+        }
+        if (kind == Kind.USER_AGENT && !reserveUserAgent(name)) {
+            return null;
+        }
+        try {
+            id = newTransaction.execute(status -> repository.insert(kind.table, name));
+        } catch (DuplicateKeyException e) {
+            id = repository.findId(kind.table, name);
+        }
+        remember(kind, name, id);
+        return id;
+    }
+
+    // Lookup only: an unknown value stays unknown, so filters on it simply match nothing.
+    public Integer find(Kind kind, String value) {
+        if (value == null) {
+            return null;
+        }
+        String name = normalize(kind, value);
+        Integer id = ids.get(kind).get(name);
+        if (id == null && !(kind == Kind.USER_AGENT && droppedUserAgents.get(name) != null)) {
+            id = repository.findId(kind.table, name);
+            if (id != null) {
+                remember(kind, name, id);
+            }
+        }
+        return id;
+    }
+
+    public String nameOf(Kind kind, Integer id) {
+        if (id == null) {
+            return null;
+        }
+        String name = names.get(kind).get(id);
+        if (name == null) {
+            name = repository.findName(kind.table, id);
+            if (name != null) {
+                remember(kind, name, id);
+            }
+        }
+        return name;
+    }
+
+    // Remembers values turned away at the limit, so a repeated one costs no further lookup.
+    private boolean reserveUserAgent(String name) {
+        if (userAgentCount.get() < 0) {
+            userAgentCount.compareAndSet(-1, repository.count(Kind.USER_AGENT.table));
+        }
+        if (userAgentCount.getAndIncrement() >= userAgentLimit) {
+            userAgentCount.decrementAndGet();
+            droppedUserAgents.put(name, Boolean.TRUE);
+            return false;
+        }
+        return true;
+    }
+
+    private void remember(Kind kind, String name, Integer id) {
+        if (id != null) {
+            ids.get(kind).put(name, id);
+            names.get(kind).put(id, name);
+        }
+    }
+
+    private static String normalize(Kind kind, String value) {
+        return value.length() > kind.maxLength ? value.substring(0, kind.maxLength) : value;
+    }
+}
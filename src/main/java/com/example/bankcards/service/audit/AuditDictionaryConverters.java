@@ -0,0 +1,88 @@
+package com.example.bankcards.service.audit;
+
+import jakarta.persistence.AttributeConverter;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * JPA converters that keep {@code AuditLog} string-typed while the table stores dictionary ids.
+ * Hibernate builds them through Spring; the dictionary is resolved lazily because it needs the
+ * transaction manager, which in turn needs the entity manager factory being built.
+ * <p>
+ * Names are only looked up, never inserted: rows are written by {@link AuditEventWriter}, and a
+ * query parameter naming an unknown value binds {@link #UNKNOWN_ID}, which matches no row.
+ */
+public final class AuditDictionaryConverters {
+
+    static final int UNKNOWN_ID = 0;
+
+    private AuditDictionaryConverters() {
+    }
+
+    private static Integer lookup(AuditDictionary dictionary, AuditDictionary.Kind kind, String attribute) {
+        if (attribute == null) {
+            return null;
+        }
+        Integer id = dictionary.find(kind, attribute);
+        return id != null ? id : UNKNOWN_ID;
+    }
+
+    public static class Action implements AttributeConverter<String, Short> {
+
+        private final ObjectProvider<AuditDictionary> dictionary;
+
+        public Action(ObjectProvider<AuditDictionary> dictionary) {
+            this.dictionary = dictionary;
+        }
+
+        @Override
+        public Short convertToDatabaseColumn(String attribute) {
+            Integer id = lookup(dictionary.getObject(), AuditDictionary.Kind.ACTION, attribute);
+            return id != null ? id.shortValue() : null;
+        }
+
+        @Override
+        public String convertToEntityAttribute(Short dbData) {
+            return dictionary.getObject().nameOf(AuditDictionary.Kind.ACTION, dbData != null ? dbData.intValue() : null);
+        }
+    }
+
+    public static class EntityType implements AttributeConverter<String, Short> {
+
+        private final ObjectProvider<AuditDictionary> dictionary;
+
+        public EntityType(ObjectProvider<AuditDictionary> dictionary) {
+            this.dictionary = dictionary;
+        }
+
+        @Override
+        public Short convertToDatabaseColumn(String attribute) {
+            Integer id = lookup(dictionary.getObject(), AuditDictionary.Kind.ENTITY_TYPE, attribute);
+            return id != null ? id.shortValue() : null;
+        }
+
+        @Override
+        public String convertToEntityAttribute(Short dbData) {
+            return dictionary.getObject().nameOf(AuditDictionary.Kind.ENTITY_TYPE,
+                    dbData != null ? dbData.intValue() : null);
+        }
+    }
+
+    public static class UserAgent implements AttributeConverter<String, Integer> {
+
+        private final ObjectProvider<AuditDictionary> dictionary;
+
+        public UserAgent(ObjectProvider<AuditDictionary> dictionary) {
+            this.dictionary = dictionary;
+        }
+
+        @Override
+        public Integer convertToDatabaseColumn(String attribute) {
+            return lookup(dictionary.getObject(), AuditDictionary.Kind.USER_AGENT, attribute);
+        }
+
+        @Override
+        public String convertToEntityAttribute(Integer dbData) {
+            return dictionary.getObject().nameOf(AuditDictionary.Kind.USER_AGENT, dbData);
+        }
+    }
+}
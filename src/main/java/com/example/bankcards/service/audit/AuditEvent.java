@@ -0,0 +1,70 @@
+package com.example.bankcards.service.audit;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * One audit record on its way to {@code audit_logs}. {@code details} are structured parameters,
+ * serialized to JSON only when the row is written. {@code eventCount} is how many occurrences
+ * the record stands for: more than one when the audit policy coalesced or sampled them.
+ */
+public record AuditEvent(String action,
+                         String entityType,
+                         Long entityId,
+                         Map<String, Object> details,
+                         Long userId,
+                         String ipAddress,
+                         String userAgent,
+                         LocalDateTime createdAt,
+                         int eventCount) {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    public AuditEvent(String action, String entityType, Long entityId, Map<String, Object> details, Long userId,
+                      String ipAddress, String userAgent, LocalDateTime createdAt) {
+        this(action, entityType, entityId, details, userId, ipAddress, userAgent, createdAt, 1);
+    }
+
+    public AuditEvent withoutUser() {
+        return new AuditEvent(action, entityType, entityId, details, null, ipAddress, userAgent, createdAt, eventCount);
+    }
+
+    public AuditEvent withEventCount(int count) {
+        return new AuditEvent(action, entityType, entityId, details, userId, ipAddress, userAgent, createdAt, count);
+    }
+
+    public String detailsJson() {
+        if (details == null) {
+            return null;
+        }
+        try {
+            return JSON.writeValueAsString(details);
+        } catch (JsonProcessingException e) {
+            return "{\"message\":" + quote(details.toString()) + "}";
+        }
+    }
+
+    static Map<String, Object> parseDetails(String json) {
+        if (json == null) {
+            return null;
+        }
+        try {
+            return JSON.readValue(json, new TypeReference<Map<String, Object>>() {
+            });
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Audit details are not a JSON object", e);
+        }
+    }
+
+    private static String quote(String value) {
+        try {
+            return JSON.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
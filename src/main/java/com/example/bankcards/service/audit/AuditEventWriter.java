@@ -0,0 +1,300 @@
+package com.example.bankcards.service.audit;
+
+import com.example.bankcards.repository.AuditLogBatchRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Writes audit events off the caller's thread. Callers put an event into a bounded ring buffer
+ * and a single writer drains it into multi-row inserts. In {@code SYNC} durability the caller
+ * returns only once its batch is committed; in {@code ASYNC} it returns after enqueueing. A
+ * {@code SYNC} caller inside a transaction waits only after that transaction completes, so its
+ * row locks are never held across the audit flush. When
+ * the buffer stays full for the offer timeout the caller writes its event itself, so pressure
+ * slows callers down instead of dropping records. Such a caller write runs in its own
+ * transaction, so it neither joins the caller's rollback nor aborts the caller's transaction.
+ *
+ * <p>With the {@link AuditSpool} enabled, a full buffer or a failed flush goes to the spool
+ * instead, and {@link AuditSpoolReplayer} moves it into the database once it recovers.
+ */
+@Component
+@Slf4j
+public class AuditEventWriter {
+
+    public enum Durability {
+        SYNC, ASYNC
+    }
+
+    private final AuditLogBatchRepository batchRepository;
+    private final AuditSpool spool;
+    private final TransactionTemplate newTransaction;
+
+    private final boolean enabled;
+    private final Durability durability;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final Duration offerTimeout;
+    private final Duration ackTimeout;
+    private final Duration retryBackoff;
+    private final BlockingQueue<PendingEvent> buffer;
+
+    private final DistributionSummary batchSizes;
+    private final Timer flushLatency;
+    private final Counter callerWrites;
+    private final Counter failedFlushes;
+
+    private Thread writer;
+    private volatile boolean running;
+
+    public AuditEventWriter(AuditLogBatchRepository batchRepository,
+                            AuditSpool spool,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry,
+                            @Value("${audit.writer.enabled:true}") boolean enabled,
+                            @Value("${audit.writer.durability:ASYNC}") Durability durability,
+                            @Value("${audit.writer.capacity:8192}") int capacity,
+                            @Value("${audit.writer.batch-size:256}") int batchSize,
+                            @Value("${audit.writer.flush-interval:20ms}") Duration flushInterval,
+                            @Value("${audit.writer.offer-timeout:50ms}") Duration offerTimeout,
+                            @Value("${audit.writer.ack-timeout:5s}") Duration ackTimeout,
+                            @Value("${audit.writer.retry-backoff:500ms}") Duration retryBackoff) {
+        this.batchRepository = batchRepository;
+        this.spool = spool;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.enabled = enabled;
+        this.durability = durability;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.offerTimeout = offerTimeout;
+        this.ackTimeout = ackTimeout;
+        this.retryBackoff = retryBackoff;
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+
+        Gauge.builder("audit.writer.queue.depth", buffer, BlockingQueue::size).register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("audit.writer.batch.size").register(meterRegistry);
+        this.flushLatency = Timer.builder("audit.writer.flush.latency").register(meterRegistry);
+        this.callerWrites = Counter.builder("audit.writer.caller.writes")
+                .description("Events written on the caller thread because the buffer was full")
+                .register(meterRegistry);
+        this.failedFlushes = Counter.builder("audit.writer.flush.failures").register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        writer = new Thread(this::run, "audit-writer");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("Audit writer started, durability {}, batch size {}", durability, batchSize);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        if (writer != null) {
+            writer.interrupt();
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        List<PendingEvent> leftovers = new ArrayList<>();
+        buffer.drainTo(leftovers);
+        if (!leftovers.isEmpty()) {
+            flush(leftovers);
+        }
+    }
+
+    public void submit(AuditEvent event) {
+        if (!running) {
+            writeNow(event);
+            return;
+        }
+
+        PendingEvent pending = new PendingEvent(event,
+                durability == Durability.SYNC ? new CompletableFuture<>() : null);
+        try {
+            if (!buffer.offer(pending, offerTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                if (!spool(List.of(event))) {
+                    callerWrites.increment();
+                    writeNow(event);
+                }
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            writeNow(event);
+            return;
+        }
+
+        if (pending.acknowledged() == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    awaitAck(pending);
+                }
+            });
+        } else {
+            awaitAck(pending);
+        }
+    }
+
+    private void awaitAck(PendingEvent pending) {
+        try {
+            pending.acknowledged().get(ackTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (TimeoutException e) {
+            log.warn("Audit event {} not acknowledged within {}, it stays queued",
+                    pending.event().action(), ackTimeout);
+        } catch (ExecutionException e) {
+            log.error("Audit event {} could not be written", pending.event().action(), e.getCause());
+        }
+    }
+
+    private void run() {
+        List<PendingEvent> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                PendingEvent first = buffer.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < batchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingEvent next = remaining > 0
+                            ? buffer.poll(remaining, TimeUnit.NANOSECONDS)
+                            : buffer.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                flushWithRetry(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                requeue(batch);
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    // Back into the buffer for stop() to drain; whatever no longer fits is flushed right away.
+    private void requeue(List<PendingEvent> batch) {
+        List<PendingEvent> overflow = new ArrayList<>();
+        batch.forEach(pending -> {
+            if (!buffer.offer(pending)) {
+                overflow.add(pending);
+            }
+        });
+        if (!overflow.isEmpty() && !flush(overflow)) {
+            log.error("Lost {} audit events while stopping the writer", overflow.size());
+        }
+    }
+
+    // A batch is only released once it is written or spooled, so an outage delays audit
+    // records (and back-pressures callers through the buffer) rather than losing them.
+    private void flushWithRetry(List<PendingEvent> batch) throws InterruptedException {
+        while (!flush(batch)) {
+            if (!running) {
+                return;
+            }
+            TimeUnit.NANOSECONDS.sleep(retryBackoff.toNanos());
+        }
+    }
+
+    private boolean flush(List<PendingEvent> batch) {
+        List<AuditEvent> events = new ArrayList<>(batch.size());
+        batch.forEach(pending -> events.add(pending.event()));
+
+        if (!persist(events) && !spool(events)) {
+            return false;
+        }
+        batch.forEach(pending -> {
+            if (pending.acknowledged() != null) {
+                pending.acknowledged().complete(null);
+            }
+        });
+        return true;
+    }
+
+    boolean persist(List<AuditEvent> events) {
+        long started = System.nanoTime();
+        try {
+            batchRepository.insert(events);
+        } catch (DataIntegrityViolationException e) {
+            // One bad row (typically a user deleted meanwhile) must not hold back the others.
+            events.forEach(this::writeNow);
+        } catch (RuntimeException e) {
+            failedFlushes.increment();
+            log.error("Failed to write {} audit events", events.size(), e);
+            return false;
+        }
+        flushLatency.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        batchSizes.record(events.size());
+        return true;
+    }
+
+    private boolean spool(List<AuditEvent> events) {
+        if (!spool.isEnabled()) {
+            return false;
+        }
+        try {
+            spool.append(events);
+            return true;
+        } catch (RuntimeException e) {
+            log.error("Failed to spool {} audit events", events.size(), e);
+            return false;
+        }
+    }
+
+    private void writeNow(AuditEvent event) {
+        try {
+            newTransaction.executeWithoutResult(status -> batchRepository.insert(List.of(event)));
+        } catch (DataIntegrityViolationException e) {
+            if (event.userId() == null) {
+                log.error("Failed to save audit log: {} - {}", event.action(), event.entityType(), e);
+                return;
+            }
+            writeNow(event.withoutUser());
+        } catch (RuntimeException e) {
+            log.error("Failed to save audit log: {} - {}", event.action(), event.entityType(), e);
+        }
+    }
+
+    private record PendingEvent(AuditEvent event, CompletableFuture<Void> acknowledged) {
+    }
+}
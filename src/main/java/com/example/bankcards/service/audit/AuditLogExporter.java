@@ -0,0 +1,145 @@
+package com.example.bankcards.service.audit;
+
+import com.example.bankcards.dto.response.AuditLogResponse;
+import com.example.bankcards.exception.UnsupportedExportFormatException;
+import com.example.bankcards.repository.AuditLogFeedRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams audit rows straight from a database cursor into the response, one line per row, so
+ * memory use does not depend on how many rows the range holds.
+ */
+@Component
+@Slf4j
+public class AuditLogExporter {
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format parse(String value) {
+            try {
+                return valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new UnsupportedExportFormatException("Unsupported export format: " + value +
+                        ", expected one of " + Arrays.toString(values()));
+            }
+        }
+    }
+
+    private static final String CSV_HEADER =
+            "id,action,entity_type,entity_id,details,user_id,ip_address,user_agent,created_at,event_count";
+
+    private final AuditLogFeedRepository feedRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+    private final int fetchSize;
+
+    public AuditLogExporter(AuditLogFeedRepository feedRepository,
+                            TransactionTemplate transactionTemplate,
+                            ObjectMapper objectMapper,
+                            @Value("${audit.export.fetch-size:1000}") int fetchSize) {
+        this.feedRepository = feedRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.fetchSize = fetchSize;
+    }
+
+    public long export(AuditLogFeedRepository.Filter filter, Format format, boolean gzip, OutputStream out)
+            throws IOException {
+        OutputStream target = gzip ? new GZIPOutputStream(out, 8192) : out;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8));
+        long[] rows = {0};
+
+        if (format == Format.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+        try {
+            readOnlyTransaction.executeWithoutResult(status ->
+                    feedRepository.streamRange(filter, fetchSize, row -> {
+                        try {
+                            writer.write(format == Format.CSV ? csvLine(row) : jsonLine(row));
+                            writer.write('\n');
+                            rows[0]++;
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }));
+        } catch (UncheckedIOException e) {
+            log.warn("Audit export aborted after {} rows: {}", rows[0], e.getCause().getMessage());
+            throw e.getCause();
+        }
+
+        writer.flush();
+        if (target instanceof GZIPOutputStream gzipOut) {
+            gzipOut.finish();
+        }
+        return rows[0];
+    }
+
+    private String jsonLine(AuditLogResponse row) {
+        try {
+            return objectMapper.writeValueAsString(row);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize audit log " + row.getId(), e);
+        }
+    }
+
+    private static String csvLine(AuditLogResponse row) {
+        return String.join(",",
+                String.valueOf(row.getId()),
+                csv(row.getAction()),
+                csv(row.getEntityType()),
+                row.getEntityId() != null ? row.getEntityId().toString() : "",
+                csv(row.getDetails()),
+                row.getUserId() != null ? row.getUserId().toString() : "",
+                csv(row.getIpAddress()),
+                csv(row.getUserAgent()),
+                row.getCreatedAt().toString(),
+                String.valueOf(row.getEventCount()));
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.bankcards.service.audit;
+
+import com.example.bankcards.repository.AuditLogPartitionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps the monthly partitions of {@code audit_logs} ahead of the clock and retires the ones
+ * past retention. A retired month is detached (a catalog change, not a {@code DELETE}),
+ * exported to a gzipped CSV and dropped; a partition left detached by a failed run is still
+ * picked up by the next one.
+ * <p>
+ * Every instance schedules the job, but an advisory lock lets only one run it at a time. A
+ * month that cannot be created is logged as an error and retried on the next run, and does not
+ * hold up retention. {@code audit_logs} has no DEFAULT partition, so inserts into such a month
+ * fail and the audit writer spools them until the partition exists.
+ */
+@Component
+@Slf4j
+public class AuditLogPartitionManager {
+
+    static final String PARTITION_PREFIX = "audit_logs_p";
+    private static final String PARTITION_PATTERN = "^" + PARTITION_PREFIX + "[0-9]{6}$";
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final AuditLogPartitionRepository partitionRepository;
+    private final boolean enabled;
+    private final int premakeMonths;
+    private final int retentionMonths;
+    private final Path exportDirectory;
+    private final Duration lockTimeout;
+    private final int lockAttempts;
+
+    public AuditLogPartitionManager(AuditLogPartitionRepository partitionRepository,
+                                    @Value("${audit.partitions.enabled:false}") boolean enabled,
+                                    @Value("${audit.partitions.premake-months:3}") int premakeMonths,
+                                    @Value("${audit.partitions.retention-months:12}") int retentionMonths,
+                                    @Value("${audit.partitions.export-directory:audit-archive}") Path exportDirectory,
+                                    @Value("${audit.partitions.lock-timeout:2s}") Duration lockTimeout,
+                                    @Value("${audit.partitions.lock-attempts:5}") int lockAttempts) {
+        this.partitionRepository = partitionRepository;
+        this.enabled = enabled;
+        this.premakeMonths = premakeMonths;
+        this.retentionMonths = retentionMonths;
+        this.exportDirectory = exportDirectory;
+        this.lockTimeout = lockTimeout;
+        this.lockAttempts = lockAttempts;
+    }
+
+    @Scheduled(fixedDelayString = "${audit.partitions.maintenance-interval:PT6H}")
+    public void maintain() {
+        if (enabled && !partitionRepository.runExclusively(() -> maintain(YearMonth.now()))) {
+            log.debug("Audit partition maintenance is running on another instance");
+        }
+    }
+
+    void maintain(YearMonth current) {
+        for (int i = 0; i <= premakeMonths; i++) {
+            YearMonth month = current.plusMonths(i);
+            try {
+                createPartition(month);
+            } catch (DataAccessException e) {
+                log.error("Could not create audit partition {}; its rows are spooled until it exists",
+                        partitionName(month), e);
+            }
+        }
+
+        YearMonth oldestKept = current.minusMonths(retentionMonths);
+        for (String table : partitionRepository.findPartitionTables(PARTITION_PATTERN)) {
+            Optional<YearMonth> month = monthOf(table);
+            if (month.isPresent() && month.get().isBefore(oldestKept)) {
+                try {
+                    retire(table);
+                } catch (DataAccessException | UncheckedIOException e) {
+                    log.error("Could not retire audit partition {}; retried on the next run", table, e);
+                }
+            }
+        }
+    }
+
+    private void createPartition(YearMonth month) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                partitionRepository.createPartition(partitionName(month),
+                        month.atDay(1), month.plusMonths(1).atDay(1), lockTimeout);
+                return;
+            } catch (PessimisticLockingFailureException e) {
+                if (attempt >= lockAttempts) {
+                    throw e;
+                }
+                log.warn("Audit partition {} not created: lock timeout, attempt {} of {}",
+                        partitionName(month), attempt, lockAttempts);
+            }
+        }
+    }
+
+    private void retire(String table) {
+        if (partitionRepository.isAttached(table)) {
+            partitionRepository.detach(table);
+        }
+
+        Path target = exportDirectory.resolve(table + ".csv.gz");
+        long rows;
+        try {
+            Files.createDirectories(exportDirectory);
+            Path partial = exportDirectory.resolve(table + ".csv.gz.part");
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(partial))) {
+                rows = partitionRepository.export(table, out);
+            }
+            Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        partitionRepository.drop(table);
+        log.info("Retired audit partition {}: {} rows exported to {}", table, rows, target);
+    }
+
+    static String partitionName(YearMonth month) {
+        return PARTITION_PREFIX + month.format(SUFFIX);
+    }
+
+    static Optional<YearMonth> monthOf(String table) {
+        if (!table.matches(PARTITION_PATTERN)) {
+            return Optional.empty();
+        }
+        return Optional.of(YearMonth.parse(table.substring(PARTITION_PREFIX.length()), SUFFIX));
+    }
+}
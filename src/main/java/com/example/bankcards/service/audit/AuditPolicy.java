@@ -0,0 +1,185 @@
+package com.example.bankcards.service.audit;
+
+import com.example.bankcards.service.AuditService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides per action whether an audit event is written as is, sampled, coalesced with the same
+ * user's other occurrences of it over a window, or dropped. Actions that matter for security
+ * investigations are always written one row per event, whatever the configuration says.
+ */
+@Component
+@Slf4j
+public class AuditPolicy {
+
+    public enum Mode {
+        ALWAYS, SAMPLED, COALESCED, OFF
+    }
+
+    static final Set<String> SECURITY_RELEVANT = Set.of(
+            AuditService.Actions.USER_REGISTERED,
+            AuditService.Actions.USER_LOGIN,
+            AuditService.Actions.USER_LOGOUT,
+            AuditService.Actions.PASSWORD_CHANGED,
+            AuditService.Actions.PROFILE_UPDATED,
+            AuditService.Actions.ADMIN_ACTION,
+            AuditService.Actions.CARD_CREATED,
+            AuditService.Actions.CARD_BLOCKED,
+            AuditService.Actions.CARD_ACTIVATED,
+            AuditService.Actions.CARD_DELETED,
+            AuditService.Actions.TRANSFER_COMPLETED,
+            AuditService.Actions.TRANSFER_FAILED,
+            AuditService.Actions.TRANSFER_QUEUED,
+            AuditService.Actions.TRANSFER_BATCH_COMPLETED);
+
+    private final AuditEventWriter writer;
+    private final Mode defaultMode;
+    private final Map<String, Mode> modes;
+    private final double sampleRate;
+    private final Duration coalesceWindow;
+    private final int maxCoalescedKeys;
+
+    private final ConcurrentHashMap<CoalesceKey, Pending> pending = new ConcurrentHashMap<>();
+    private final Map<Mode, Counter> decisions = new EnumMap<>(Mode.class);
+
+    public AuditPolicy(AuditEventWriter writer,
+                       MeterRegistry meterRegistry,
+                       Environment environment,
+                       @Value("${audit.policy.default:ALWAYS}") Mode defaultMode,
+                       @Value("${audit.policy.sample-rate:0.1}") double sampleRate,
+                       @Value("${audit.policy.coalesce-window:1m}") Duration coalesceWindow,
+                       @Value("${audit.policy.max-coalesced-keys:100000}") int maxCoalescedKeys) {
+        if (sampleRate <= 0 || sampleRate > 1) {
+            throw new IllegalStateException("audit.policy.sample-rate must be in (0, 1], got " + sampleRate);
+        }
+        this.writer = writer;
+        this.defaultMode = defaultMode;
+        this.sampleRate = sampleRate;
+        this.coalesceWindow = coalesceWindow;
+        this.maxCoalescedKeys = maxCoalescedKeys;
+        this.modes = Binder.get(environment)
+                .bind("audit.policy.actions", Bindable.mapOf(String.class, Mode.class))
+                .orElseGet(HashMap::new);
+
+        modes.forEach((action, mode) -> {
+            if (mode != Mode.ALWAYS && SECURITY_RELEVANT.contains(action)) {
+                throw new IllegalStateException("Audit action " + action + " is security relevant and must be ALWAYS, " +
+                        "not " + mode);
+            }
+        });
+
+        for (Mode mode : Mode.values()) {
+            decisions.put(mode, Counter.builder("audit.policy.events")
+                    .tag("mode", mode.name().toLowerCase())
+                    .description("Audit events by the policy mode applied to them")
+                    .register(meterRegistry));
+        }
+        Gauge.builder("audit.policy.coalesced.pending", pending, Map::size)
+                .description("Coalesced audit keys waiting for their window to close")
+                .register(meterRegistry);
+    }
+
+    public Mode modeOf(String action) {
+        if (SECURITY_RELEVANT.contains(action)) {
+            return Mode.ALWAYS;
+        }
+        return modes.getOrDefault(action, defaultMode);
+    }
+
+    public void apply(AuditEvent event) {
+        Mode mode = modeOf(event.action());
+        decisions.get(mode).increment();
+
+        switch (mode) {
+            case ALWAYS -> writer.submit(event);
+            case SAMPLED -> {
+                // A kept event stands for the ones skipped around it, so rollups stay roughly right.
+                if (ThreadLocalRandom.current().nextDouble() < sampleRate) {
+                    writer.submit(event.withEventCount((int) Math.round(1 / sampleRate)));
+                }
+            }
+            case COALESCED -> coalesce(event);
+            case OFF -> {
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${audit.policy.flush-interval:PT10S}")
+    public void flushExpired() {
+        flush(LocalDateTime.now().minus(coalesceWindow));
+    }
+
+    @PreDestroy
+    public void flushAll() {
+        flush(LocalDateTime.MAX);
+    }
+
+    // Removal goes through compute so an occurrence counted concurrently is never lost: it either
+    // lands in the entry being flushed or starts the next one.
+    void flush(LocalDateTime openedBefore) {
+        for (CoalesceKey key : pending.keySet()) {
+            AuditEvent[] closed = new AuditEvent[1];
+            pending.computeIfPresent(key, (k, entry) -> {
+                if (entry.first.createdAt().isBefore(openedBefore)) {
+                    closed[0] = entry.first.withEventCount(entry.count);
+                    return null;
+                }
+                return entry;
+            });
+            if (closed[0] != null) {
+                writer.submit(closed[0]);
+            }
+        }
+    }
+
+    private void coalesce(AuditEvent event) {
+        CoalesceKey key = new CoalesceKey(event.action(), event.userId(), event.entityType(), event.entityId());
+        if (pending.size() >= maxCoalescedKeys && !pending.containsKey(key)) {
+            log.warn("Coalesced audit keys at limit {}, writing {} directly", maxCoalescedKeys, event.action());
+            writer.submit(event);
+            return;
+        }
+        pending.compute(key, (k, entry) -> {
+            if (entry == null) {
+                return new Pending(event);
+            }
+            entry.count++;
+            return entry;
+        });
+    }
+
+    private record CoalesceKey(String action, Long userId, String entityType, Long entityId) {
+        CoalesceKey {
+            Objects.requireNonNull(action);
+        }
+    }
+
+    private static final class Pending {
+        private final AuditEvent first;
+        private int count = 1;
+
+        private Pending(AuditEvent first) {
+            this.first = first;
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package com.example.bankcards.service.audit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Write-ahead spool for audit events the database cannot take right now. Events are appended
+ * to fixed-size memory-mapped segment files; a record's length is written after its payload,
+ * so a torn append reads as the end of the segment. Each segment starts with the offset up to
+ * which its records have been acknowledged, so a replay resumes after a restart from there.
+ *
+ * <p>Appends and acknowledgements land in the page cache, so they survive a crash of the
+ * application but not of the host unless {@code audit.spool.fsync} is set. Replay is
+ * at-least-once either way: a crash between committing a batch and acknowledging it, or a host
+ * crash before an unforced acknowledgement reaches disk, inserts that batch again on restart.
+ */
+@Component
+@Slf4j
+public class AuditSpool {
+
+    private static final String SEGMENT_PREFIX = "audit-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final int HEADER_SIZE = Long.BYTES;
+    private static final int LENGTH_SIZE = Integer.BYTES;
+
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentSize;
+    private final boolean fsync;
+
+    private final AtomicInteger pendingSegments = new AtomicInteger();
+    private final Counter spooledEvents;
+
+    private FileChannel lockChannel;
+    private FileLock lock;
+    private MappedByteBuffer active;
+    private Path activePath;
+    private long lastAppendNanos;
+    private long nextSequence;
+
+    public AuditSpool(MeterRegistry meterRegistry,
+                      @Value("${audit.spool.enabled:false}") boolean enabled,
+                      @Value("${audit.spool.directory}") Path directory,
+                      @Value("${audit.spool.segment-size:16MB}") DataSize segmentSize,
+                      @Value("${audit.spool.fsync:false}") boolean fsync) {
+        this.enabled = enabled;
+        this.directory = directory;
+        this.segmentSize = Math.toIntExact(segmentSize.toBytes());
+        this.fsync = fsync;
+
+        Gauge.builder("audit.spool.segments", pendingSegments, AtomicInteger::get).register(meterRegistry);
+        this.spooledEvents = Counter.builder("audit.spool.events").register(meterRegistry);
+    }
+
+    @PostConstruct
+    void open() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        if (!directory.isAbsolute()) {
+            throw new IllegalStateException("audit.spool.directory must be an absolute path, got " + directory);
+        }
+        Files.createDirectories(directory);
+        lockChannel = FileChannel.open(directory.resolve("spool.lock"),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        lock = lockChannel.tryLock();
+        if (lock == null) {
+            throw new IllegalStateException("Audit spool " + directory + " is used by another process");
+        }
+
+        List<Path> segments = listSegments();
+        pendingSegments.set(segments.size());
+        nextSequence = segments.isEmpty() ? 1 : sequenceOf(segments.get(segments.size() - 1)) + 1;
+        if (!segments.isEmpty()) {
+            log.warn("Audit spool has {} segments left from a previous run", segments.size());
+        }
+    }
+
+    @PreDestroy
+    synchronized void close() throws IOException {
+        seal();
+        if (lock != null) {
+            lock.release();
+            lockChannel.close();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public synchronized void append(List<AuditEvent> events) {
+        List<byte[]> payloads = new ArrayList<>(events.size());
+        for (AuditEvent event : events) {
+            byte[] payload = encode(event);
+            if (LENGTH_SIZE + payload.length > segmentSize - HEADER_SIZE) {
+                throw new IllegalArgumentException("Audit event of " + payload.length + " bytes exceeds segment size");
+            }
+            payloads.add(payload);
+        }
+
+        try {
+            for (byte[] payload : payloads) {
+                if (active == null || active.remaining() < LENGTH_SIZE + payload.length) {
+                    roll();
+                }
+                int position = active.position();
+                active.put(position + LENGTH_SIZE, payload);
+                active.putInt(position, payload.length);
+                active.position(position + LENGTH_SIZE + payload.length);
+            }
+            if (fsync) {
+                active.force();
+            }
+            lastAppendNanos = System.nanoTime();
+            spooledEvents.increment(events.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the segments ready for replay, oldest first: every rolled-over segment, plus the one
+     * being appended to once nothing was appended for {@code idle}. Events reach the spool only
+     * while the database refuses them, so an idle spool means writes go through again.
+     */
+    public synchronized List<Path> sealedSegments(Duration idle) {
+        if (active != null && System.nanoTime() - lastAppendNanos >= idle.toNanos()) {
+            seal();
+        }
+        try {
+            return listSegments().stream()
+                    .filter(path -> !path.equals(activePath))
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public Segment openSegment(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return new Segment(channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void delete(Path segment) {
+        try {
+            if (Files.deleteIfExists(segment)) {
+                pendingSegments.decrementAndGet();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void roll() throws IOException {
+        seal();
+        Path path = directory.resolve(SEGMENT_PREFIX + "%020d".formatted(nextSequence++) + SEGMENT_SUFFIX);
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            active = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+        activePath = path;
+        active.putLong(0, HEADER_SIZE);
+        active.position(HEADER_SIZE);
+        pendingSegments.incrementAndGet();
+    }
+
+    private void seal() {
+        if (active == null) {
+            return;
+        }
+        active.force();
+        active = null;
+        activePath = null;
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static long sequenceOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static byte[] encode(AuditEvent event) {
+        List<byte[]> strings = new ArrayList<>(5);
+        for (String value : new String[]{event.action(), event.entityType(), event.detailsJson(),
+                event.ipAddress(), event.userAgent()}) {
+            strings.add(value != null ? value.getBytes(StandardCharsets.UTF_8) : null);
+        }
+        int size = 2 * (1 + Long.BYTES) + Long.BYTES + 2 * Integer.BYTES;
+        for (byte[] bytes : strings) {
+            size += Integer.BYTES + (bytes != null ? bytes.length : 0);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        for (byte[] bytes : strings) {
+            buffer.putInt(bytes != null ? bytes.length : -1);
+            if (bytes != null) {
+                buffer.put(bytes);
+            }
+        }
+        putNullableLong(buffer, event.entityId());
+        putNullableLong(buffer, event.userId());
+        buffer.putLong(event.createdAt().toEpochSecond(ZoneOffset.UTC));
+        buffer.putInt(event.createdAt().getNano());
+        buffer.putInt(event.eventCount());
+        return buffer.array();
+    }
+
+    private static AuditEvent decode(ByteBuffer buffer) {
+        String action = getString(buffer);
+        String entityType = getString(buffer);
+        Map<String, Object> details = AuditEvent.parseDetails(getString(buffer));
+        String ipAddress = getString(buffer);
+        String userAgent = getString(buffer);
+        Long entityId = getNullableLong(buffer);
+        Long userId = getNullableLong(buffer);
+        LocalDateTime createdAt = LocalDateTime.ofEpochSecond(buffer.getLong(), buffer.getInt(), ZoneOffset.UTC);
+        return new AuditEvent(action, entityType, entityId, details, userId, ipAddress, userAgent, createdAt,
+                buffer.getInt());
+    }
+
+    private static void putNullableLong(ByteBuffer buffer, Long value) {
+        buffer.put((byte) (value != null ? 1 : 0));
+        buffer.putLong(value != null ? value : 0L);
+    }
+
+    private static Long getNullableLong(ByteBuffer buffer) {
+        boolean present = buffer.get() == 1;
+        long value = buffer.getLong();
+        return present ? value : null;
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A spooled segment being replayed. Records before the acknowledged offset are skipped.
+     */
+    public class Segment {
+
+        private final MappedByteBuffer buffer;
+        private int position;
+        private int pending;
+
+        private Segment(MappedByteBuffer buffer) {
+            this.buffer = buffer;
+            this.position = (int) buffer.getLong(0);
+        }
+
+        public List<AuditEvent> next(int maxEvents) {
+            List<AuditEvent> events = new ArrayList<>();
+            int cursor = position;
+            while (events.size() < maxEvents && cursor + LENGTH_SIZE <= buffer.limit()) {
+                int length = buffer.getInt(cursor);
+                if (length <= 0) {
+                    break;
+                }
+                events.add(decode(buffer.slice(cursor + LENGTH_SIZE, length)));
+                cursor += LENGTH_SIZE + length;
+            }
+            pending = cursor;
+            return events;
+        }
+
+        public void acknowledge() {
+            position = pending;
+            buffer.putLong(0, position);
+            if (fsync) {
+                buffer.force();
+            }
+        }
+    }
+}
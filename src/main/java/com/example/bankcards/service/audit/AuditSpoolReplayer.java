@@ -0,0 +1,62 @@
+package com.example.bankcards.service.audit;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Drains spooled audit segments into {@code audit_logs} in batches, oldest first, deleting a
+ * segment once all its records are acknowledged. A failed batch stops the run; it is retried
+ * from the last acknowledged record on the next one. The segment still being appended to is
+ * left alone until it fills up or goes idle, so an outage does not leave a file per run.
+ */
+@Component
+@Slf4j
+public class AuditSpoolReplayer {
+
+    private final AuditSpool spool;
+    private final AuditEventWriter writer;
+    private final int batchSize;
+    private final Duration sealIdle;
+
+    public AuditSpoolReplayer(AuditSpool spool,
+                              AuditEventWriter writer,
+                              @Value("${audit.spool.replay-batch-size:500}") int batchSize,
+                              @Value("${audit.spool.seal-idle:PT5S}") Duration sealIdle) {
+        this.spool = spool;
+        this.writer = writer;
+        this.batchSize = batchSize;
+        this.sealIdle = sealIdle;
+    }
+
+    @Scheduled(fixedDelayString = "${audit.spool.replay-interval:PT1S}")
+    public synchronized int replay() {
+        if (!spool.isEnabled()) {
+            return 0;
+        }
+
+        int replayed = 0;
+        for (Path path : spool.sealedSegments(sealIdle)) {
+            AuditSpool.Segment segment = spool.openSegment(path);
+            List<AuditEvent> events;
+            while (!(events = segment.next(batchSize)).isEmpty()) {
+                if (!writer.persist(events)) {
+                    log.warn("Audit spool replay paused at {}, {} events replayed", path.getFileName(), replayed);
+                    return replayed;
+                }
+                segment.acknowledge();
+                replayed += events.size();
+            }
+            spool.delete(path);
+        }
+        if (replayed > 0) {
+            log.info("Replayed {} spooled audit events", replayed);
+        }
+        return replayed;
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.bankcards.service.transfer;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.exception.CardNotFoundException;
+import com.example.bankcards.exception.CardOperationException;
+import com.example.bankcards.exception.InsufficientFundsException;
+import com.example.bankcards.repository.BankCardRepository.BalanceView;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+abstract class AbstractTransferEngine implements TransferEngine {
+
+    protected BalanceView requireSource(Optional<BalanceView> source, BigDecimal amount) {
+        BalanceView card = source.orElseThrow(() -> new CardNotFoundException(
+                "Source card not found or doesn't belong to user"));
+
+        if (card.getStatus() != Card.CardStatus.ACTIVE) {
+            throw new CardOperationException("Source card is not active");
+        }
+
+        if (card.getBalance().compareTo(amount) < 0) {
+            throw new InsufficientFundsException("Insufficient funds");
+        }
+        return card;
+    }
+
+    protected BalanceView requireDestination(Optional<BalanceView> destination) {
+        BalanceView card = destination.orElseThrow(() -> new CardNotFoundException(
+                "Destination card not found or doesn't belong to user"));
+
+        if (card.getStatus() != Card.CardStatus.ACTIVE) {
+            throw new CardOperationException("Destination card is not active");
+        }
+        return card;
+    }
+}
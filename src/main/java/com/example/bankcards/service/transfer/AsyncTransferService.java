@@ -0,0 +1,196 @@
+package com.example.bankcards.service.transfer;
+
+import com.example.bankcards.dto.request.CardTransferRequest;
+import com.example.bankcards.entity.CardTransaction;
+import com.example.bankcards.repository.CardTransactionRepository;
+import com.example.bankcards.service.AuditService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Service
+@Slf4j
+public class AsyncTransferService {
+
+    private final TransferSettlementProcessor processor;
+    private final CardTransactionRepository transactionRepository;
+    private final AuditService auditService;
+
+    private final boolean enabled;
+    private final int workers;
+    private final int batchSize;
+    private final Duration recoveryAfter;
+    private final BlockingQueue<Long> queue;
+
+    private final Counter settledCounter;
+    private final Counter failedCounter;
+
+    private ExecutorService executor;
+    private volatile boolean running;
+
+    public AsyncTransferService(TransferSettlementProcessor processor,
+                                CardTransactionRepository transactionRepository,
+                                AuditService auditService,
+                                MeterRegistry meterRegistry,
+                                @Value("${transfer.async.enabled:false}") boolean enabled,
+                                @Value("${transfer.async.workers:2}") int workers,
+                                @Value("${transfer.async.batch-size:50}") int batchSize,
+                                @Value("${transfer.async.queue-capacity:10000}") int queueCapacity,
+                                @Value("${transfer.async.recovery-after:30s}") Duration recoveryAfter) {
+        this.processor = processor;
+        this.transactionRepository = transactionRepository;
+        this.auditService = auditService;
+        this.enabled = enabled;
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.recoveryAfter = recoveryAfter;
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+
+        Gauge.builder("transfer.async.queue.size", queue, BlockingQueue::size).register(meterRegistry);
+        this.settledCounter = Counter.builder("transfer.async.settled").tag("result", "success")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("transfer.async.settled").tag("result", "failed")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "transfer-settler-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < workers; i++) {
+            executor.submit(this::runWorker);
+        }
+        log.info("Async transfer settlement started with {} workers, batch size {}", workers, batchSize);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        if (executor != null) {
+            executor.shutdownNow();
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public CardTransaction submit(CardTransferRequest request, Long userId) {
+        CardTransaction pending = processor.createPending(request, userId);
+
+        auditService.logAction(
+                AuditService.Actions.TRANSFER_QUEUED,
+                AuditService.EntityTypes.CARD_TRANSACTION,
+                pending.getId(),
+                AuditService.details("fromCardId", request.getFromCardId(), "toCardId", request.getToCardId(),
+                        "amount", request.getAmount(), "userId", userId)
+        );
+
+        Long id = pending.getId();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(id);
+                }
+            });
+        } else {
+            enqueue(id);
+        }
+        return pending;
+    }
+
+    @Scheduled(fixedDelayString = "${transfer.async.recovery-interval:PT30S}")
+    public void recoverPending() {
+        if (!running) {
+            return;
+        }
+        List<Long> stale = transactionRepository.findPendingIdsCreatedBefore(LocalDateTime.now().minus(recoveryAfter));
+        if (!stale.isEmpty()) {
+            log.info("Re-queueing {} pending transfers", stale.size());
+            stale.forEach(this::enqueue);
+        }
+    }
+
+    private void enqueue(Long transactionId) {
+        if (!queue.offer(transactionId)) {
+            log.warn("Transfer queue is full, transaction {} left for recovery", transactionId);
+        }
+    }
+
+    private void runWorker() {
+        List<Long> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                Long first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                settle(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Failed to settle transfer batch {}, left for recovery", batch, e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void settle(List<Long> batch) {
+        for (TransferSettlementProcessor.SettlementResult result : processor.settle(batch)) {
+            TransferSettlementProcessor.PendingTransfer transfer = result.transfer();
+            if (result.succeeded()) {
+                settledCounter.increment();
+                auditService.logAction(
+                        AuditService.Actions.TRANSFER_COMPLETED,
+                        AuditService.EntityTypes.CARD_TRANSACTION,
+                        transfer.id(),
+                        AuditService.details("fromCardId", transfer.fromCardId(), "toCardId", transfer.toCardId(),
+                                "amount", transfer.amount(), "userId", transfer.userId())
+                );
+            } else {
+                failedCounter.increment();
+                auditService.logAction(
+                        AuditService.Actions.TRANSFER_FAILED,
+                        AuditService.EntityTypes.CARD_TRANSACTION,
+                        transfer.id(),
+                        AuditService.details("fromCardId", transfer.fromCardId(), "toCardId", transfer.toCardId(),
+                                "amount", transfer.amount(), "userId", transfer.userId(),
+                                "error", result.failureReason())
+                );
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.bankcards.service.transfer;
+
+import com.example.bankcards.repository.BankCardRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+
+@Component
+@ConditionalOnProperty(name = "transfer.mode", havingValue = "atomic", matchIfMissing = true)
+@RequiredArgsConstructor
+public class AtomicTransferEngine extends AbstractTransferEngine {
+
+    private final BankCardRepository cardRepository;
+    private final CardBalanceShards shards;
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY, noRollbackFor = RuntimeException.class)
+    public void transfer(Long userId, Long fromCardId, Long toCardId, BigDecimal amount) {
+        // Each UPDATE keeps its row locked until commit, so rows are touched in ascending id
+        // order to keep concurrent A->B and B->A transfers deadlock-free.
+        if (fromCardId <= toCardId) {
+            debit(fromCardId, userId, amount);
+            credit(toCardId, userId, amount);
+        } else {
+            credit(toCardId, userId, amount);
+            debit(fromCardId, userId, amount);
+        }
+    }
+
+    private void debit(Long cardId, Long userId, BigDecimal amount) {
+        if (cardRepository.debitIfSufficient(cardId, userId, amount) == 1) {
+            return;
+        }
+        if (shards.reload(cardId) && shards.sweep(cardId).signum() > 0
+                && cardRepository.debitIfSufficient(cardId, userId, amount) == 1) {
+            return;
+        }
+        requireSource(cardRepository.findBalanceView(cardId, userId), amount);
+        throw new IllegalStateException("Source card " + cardId + " changed during transfer");
+    }
+
+    private void credit(Long cardId, Long userId, BigDecimal amount) {
+        if (shards.isSharded(cardId)) {
+            requireDestination(cardRepository.findBalanceView(cardId, userId));
+            if (shards.credit(cardId, amount)) {
+                return;
+            }
+        }
+        if (cardRepository.creditIfActive(cardId, userId, amount) == 0) {
+            requireDestination(cardRepository.findBalanceView(cardId, userId));
+            throw new IllegalStateException("Destination card " + cardId + " changed during transfer");
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.bankcards.service.transfer;
+
+import com.example.bankcards.dto.request.BatchTransferRequest;
+import com.example.bankcards.dto.request.CardTransferRequest;
+import com.example.bankcards.dto.response.BatchTransferResponse;
+import com.example.bankcards.dto.response.TransferItemResult;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardTransaction;
+import com.example.bankcards.repository.BankCardRepository;
+import com.example.bankcards.repository.BankCardRepository.BalanceView;
+import com.example.bankcards.repository.CardTransferBatchRepository;
+import com.example.bankcards.service.AuditService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BatchTransferService {
+
+    private static final String INSUFFICIENT_FUNDS = "Insufficient funds";
+
+    private final BankCardRepository cardRepository;
+    private final CardTransferBatchRepository batchRepository;
+    private final AuditService auditService;
+    private final CardBalanceShards shards;
+    private final LedgerService ledgerService;
+
+    @Transactional
+    public BatchTransferResponse transferBatch(BatchTransferRequest request, Long userId) {
+        List<CardTransferRequest> transfers = request.getTransfers();
+
+        // One statement locks every card of the batch in ascending id order, so the
+        // validation below sees exactly the balances the batched updates will change.
+        Set<Long> cardIds = new TreeSet<>();
+        transfers.forEach(t -> {
+            cardIds.add(t.getFromCardId());
+            cardIds.add(t.getToCardId());
+        });
+        Map<Long, BalanceView> cards = new HashMap<>();
+        cardRepository.lockBalanceViews(cardIds, userId).forEach(card -> cards.put(card.getId(), card));
+
+        Map<Long, BigDecimal> balances = new HashMap<>();
+        cards.values().forEach(card -> balances.put(card.getId(), card.getBalance()));
+        cardIds.stream()
+                .filter(id -> cards.containsKey(id) && shards.isSharded(id))
+                .forEach(id -> balances.merge(id, shards.sweep(id), BigDecimal::add));
+
+        List<TransferItemResult> results = new ArrayList<>(transfers.size());
+        List<CardTransferRequest> accepted = new ArrayList<>(transfers.size());
+        Map<Long, BigDecimal> deltas = new TreeMap<>();
+
+        for (int i = 0; i < transfers.size(); i++) {
+            CardTransferRequest transfer = transfers.get(i);
+            String error = rejectionReason(transfer, cards, balances);
+            Long fromCardId = transfer.getFromCardId();
+            if (INSUFFICIENT_FUNDS.equals(error) && !shards.isSharded(fromCardId) && shards.reload(fromCardId)) {
+                balances.merge(fromCardId, shards.sweep(fromCardId), BigDecimal::add);
+                error = rejectionReason(transfer, cards, balances);
+            }
+
+            if (error == null) {
+                balances.merge(transfer.getFromCardId(), transfer.getAmount().negate(), BigDecimal::add);
+                balances.merge(transfer.getToCardId(), transfer.getAmount(), BigDecimal::add);
+                deltas.merge(transfer.getFromCardId(), transfer.getAmount().negate(), BigDecimal::add);
+                deltas.merge(transfer.getToCardId(), transfer.getAmount(), BigDecimal::add);
+                accepted.add(transfer);
+            }
+            results.add(result(i, transfer, error == null ? TransferItemResult.Status.SUCCESS
+                    : TransferItemResult.Status.FAILED, error));
+        }
+
+        int failed = transfers.size() - accepted.size();
+        boolean committed = !request.isAtomic() || failed == 0;
+
+        if (committed) {
+            deltas.values().removeIf(delta -> delta.signum() == 0);
+            if (!deltas.isEmpty()) {
+                batchRepository.adjustBalances(deltas);
+            }
+            if (!accepted.isEmpty()) {
+                batchRepository.insertTransactions(accepted, CardTransaction.TransactionStatus.SUCCESS, userId);
+                ledgerService.recordTransfers(accepted);
+            }
+        } else {
+            results.replaceAll(r -> r.getStatus() == TransferItemResult.Status.SUCCESS
+                    ? result(r.getIndex(), transfers.get(r.getIndex()), TransferItemResult.Status.ROLLED_BACK, null)
+                    : r);
+        }
+
+        int succeeded = committed ? accepted.size() : 0;
+
+        auditService.logAction(
+                AuditService.Actions.TRANSFER_BATCH_COMPLETED,
+                AuditService.details("transfers", transfers.size(), "userId", userId, "atomic", request.isAtomic(),
+                        "committed", committed, "succeeded", succeeded, "failed", failed)
+        );
+
+        log.info("Batch transfer by user {}: {} items, {} succeeded, {} failed, committed: {}",
+                userId, transfers.size(), succeeded, failed, committed);
+
+        return BatchTransferResponse.builder()
+                .atomic(request.isAtomic())
+                .committed(committed)
+                .succeeded(succeeded)
+                .failed(failed)
+                .results(results)
+                .build();
+    }
+
+    private String rejectionReason(CardTransferRequest transfer, Map<Long, BalanceView> cards,
+                                   Map<Long, BigDecimal> balances) {
+        BalanceView fromCard = cards.get(transfer.getFromCardId());
+        BalanceView toCard = cards.get(transfer.getToCardId());
+
+        if (transfer.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+            return "Transfer amount must be positive";
+        }
+        if (fromCard == null) {
+            return "Source card not found or doesn't belong to user";
+        }
+        if (toCard == null) {
+            return "Destination card not found or doesn't belong to user";
+        }
+        if (fromCard.getStatus() != Card.CardStatus.ACTIVE) {
+            return "Source card is not active";
+        }
+        if (toCard.getStatus() != Card.CardStatus.ACTIVE) {
+            return "Destination card is not active";
+        }
+        if (balances.get(fromCard.getId()).compareTo(transfer.getAmount()) < 0) {
+            return INSUFFICIENT_FUNDS;
+        }
+        return null;
+    }
+
+    private TransferItemResult result(int index, CardTransferRequest transfer,
+                                      TransferItemResult.Status status, String error) {
+        return TransferItemResult.builder()
+                .index(index)
+                .fromCardId(transfer.getFromCardId())
+                .toCardId(transfer.getToCardId())
+                .amount(transfer.getAmount())
+                .status(status)
+                .error(error)
+                .build();
+    }
+}
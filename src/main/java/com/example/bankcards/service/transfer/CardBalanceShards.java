@@ -0,0 +1,107 @@
+package com.example.bankcards.service.transfer;
+
+import com.example.bankcards.exception.CardNotFoundException;
+import com.example.bankcards.exception.CardOperationException;
+import com.example.bankcards.repository.CardBalanceSlotRepository;
+import com.example.bankcards.service.AuditService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Opt-in sharded balances for hot cards. A sharded card's spendable balance is
+ * {@code bank_cards.balance} plus the sum of its {@code card_balance_slots}; credits land on a
+ * random slot so concurrent senders do not queue on the card row, and debits sweep the slots
+ * back into the card row when it alone is not enough.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CardBalanceShards {
+
+    private final CardBalanceSlotRepository slotRepository;
+    private final AuditService auditService;
+    private final Map<Long, Integer> slotCounts = new ConcurrentHashMap<>();
+
+    @Value("${transfer.balance-slots.max:64}")
+    private int maxSlots;
+
+    public boolean isSharded(Long cardId) {
+        return slotCounts.containsKey(cardId);
+    }
+
+    // Slot counts are refreshed only periodically, so before turning a debit away for want of
+    // funds a node re-reads the card's configuration in case another node has just sharded it.
+    public boolean reload(Long cardId) {
+        int slots = slotRepository.findSlotCount(cardId);
+        if (slots > 0) {
+            slotCounts.put(cardId, slots);
+        } else {
+            slotCounts.remove(cardId);
+        }
+        return slots > 0;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY, noRollbackFor = RuntimeException.class)
+    public boolean credit(Long cardId, BigDecimal amount) {
+        Integer slots = slotCounts.get(cardId);
+        if (slots == null) {
+            return false;
+        }
+        return slotRepository.credit(cardId, ThreadLocalRandom.current().nextInt(slots), amount) == 1;
+    }
+
+    // The card row is locked before its slots, matching the order a debit takes them in.
+    @Transactional(propagation = Propagation.MANDATORY, noRollbackFor = RuntimeException.class)
+    public BigDecimal sweep(Long cardId) {
+        slotRepository.lockCard(cardId);
+        BigDecimal total = slotRepository.lockSlotTotal(cardId);
+        if (total.signum() != 0) {
+            slotRepository.clearSlots(cardId);
+            slotRepository.addToCardBalance(cardId, total);
+        }
+        return total;
+    }
+
+    @Transactional
+    public void configure(Long cardId, int slots) {
+        if (slots < 0 || slots > maxSlots) {
+            throw new CardOperationException("Balance slots must be between 0 and " + maxSlots);
+        }
+        if (!slotRepository.lockCard(cardId)) {
+            throw new CardNotFoundException("Card not found");
+        }
+
+        BigDecimal swept = sweep(cardId);
+        slotRepository.replaceSlots(cardId, slots);
+        if (slots > 0) {
+            slotCounts.put(cardId, slots);
+        } else {
+            slotCounts.remove(cardId);
+        }
+
+        auditService.logAction(
+                AuditService.Actions.ADMIN_ACTION,
+                AuditService.EntityTypes.BANK_CARD,
+                cardId,
+                AuditService.details("operation", "BALANCE_SLOTS_SET", "slots", slots, "swept", swept)
+        );
+        log.info("Card {} now uses {} balance slots", cardId, slots);
+    }
+
+    @Scheduled(fixedDelayString = "${transfer.balance-slots.refresh-interval:PT30S}")
+    public void refresh() {
+        Map<Long, Integer> current = slotRepository.findSlotCounts();
+        slotCounts.keySet().retainAll(current.keySet());
+        slotCounts.putAll(current);
+    }
+}
@@ -0,0 +1,231 @@
+package com.example.bankcards.service.transfer;
+
+import com.example.bankcards.dto.response.LockStripeStatsResponse;
+import com.example.bankcards.exception.ServiceBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.IntStream;
+
+@Component
+public class CardLockManager {
+
+    private static final int MAX_HOT_STRIPES = 100;
+
+    private static final Lease NO_LOCK = () -> {
+    };
+
+    private final boolean enabled;
+    private final Duration timeout;
+    private final Stripe[] stripes;
+    private final int mask;
+
+    private final Counter acquisitions;
+    private final Counter contended;
+    private final Counter timeouts;
+    private final Timer waitTimer;
+
+    public CardLockManager(MeterRegistry meterRegistry,
+                           @Value("${transfer.card-locks.enabled:true}") boolean enabled,
+                           @Value("${transfer.card-locks.stripes:1024}") int stripeCount,
+                           @Value("${transfer.card-locks.timeout:2s}") Duration timeout) {
+        this.enabled = enabled;
+        this.timeout = timeout;
+
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1) << 1);
+        this.stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new Stripe(i);
+        }
+        this.mask = size - 1;
+
+        this.acquisitions = Counter.builder("transfer.card.lock.acquisitions").register(meterRegistry);
+        this.contended = Counter.builder("transfer.card.lock.contended").register(meterRegistry);
+        this.timeouts = Counter.builder("transfer.card.lock.timeouts").register(meterRegistry);
+        this.waitTimer = Timer.builder("transfer.card.lock.wait").register(meterRegistry);
+    }
+
+    // Stripes are always taken in ascending index order, so two transfers over the same pair
+    // of cards in opposite directions cannot deadlock; a pair sharing a stripe locks it once.
+    public Lease lock(Long firstCardId, Long secondCardId) {
+        if (!enabled) {
+            return NO_LOCK;
+        }
+
+        Stripe first = stripeFor(firstCardId);
+        Stripe second = stripeFor(secondCardId);
+        if (first == second) {
+            acquire(first, firstCardId);
+            return first.lock::unlock;
+        }
+
+        Stripe lower = first.index < second.index ? first : second;
+        Stripe higher = lower == first ? second : first;
+        acquire(lower, lower == first ? firstCardId : secondCardId);
+        try {
+            acquire(higher, higher == first ? firstCardId : secondCardId);
+        } catch (RuntimeException e) {
+            lower.lock.unlock();
+            throw e;
+        }
+        return () -> {
+            higher.lock.unlock();
+            lower.lock.unlock();
+        };
+    }
+
+    public List<LockStripeStatsResponse> hotStripes(int limit) {
+        return IntStream.range(0, stripes.length)
+                .mapToObj(i -> stripes[i])
+                .filter(stripe -> stripe.contended.get() > 0)
+                .sorted(Comparator.comparingLong((Stripe stripe) -> stripe.waitNanos.get()).reversed())
+                .limit(Math.max(1, Math.min(limit, MAX_HOT_STRIPES)))
+                .map(Stripe::snapshot)
+                .toList();
+    }
+
+    /**
+     * Locks the stripes of all given cards at once, in ascending stripe order like {@link #lock},
+     * for work that updates many cards in one transaction. A stripe that cannot be taken within
+     * the timeout is skipped instead of failing the rest; {@link GroupLease#holds} tells which
+     * cards are covered.
+     */
+    public GroupLease lockAll(Collection<Long> cardIds) {
+        GroupLease lease = new GroupLease();
+        if (!enabled) {
+            return lease;
+        }
+        Map<Stripe, Long> ordered = new TreeMap<>(Comparator.comparingInt((Stripe stripe) -> stripe.index));
+        cardIds.forEach(cardId -> ordered.putIfAbsent(stripeFor(cardId), cardId));
+        ordered.forEach((stripe, cardId) -> {
+            try {
+                acquire(stripe, cardId);
+                lease.held.add(stripe);
+            } catch (ServiceBusyException e) {
+                lease.busy.add(stripe);
+            }
+        });
+        return lease;
+    }
+
+    private Stripe stripeFor(Long cardId) {
+        int h = Long.hashCode(cardId);
+        return stripes[(h ^ (h >>> 16)) & mask];
+    }
+
+    private void acquire(Stripe stripe, Long cardId) {
+        acquisitions.increment();
+        stripe.acquisitions.incrementAndGet();
+        if (stripe.lock.tryLock()) {
+            return;
+        }
+
+        contended.increment();
+        stripe.contended.incrementAndGet();
+        stripe.lastContendedCardId = cardId;
+        long started = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = stripe.lock.tryLock(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException("Interrupted while waiting for card " + cardId);
+        } finally {
+            long waited = System.nanoTime() - started;
+            stripe.waitNanos.addAndGet(waited);
+            waitTimer.record(waited, TimeUnit.NANOSECONDS);
+        }
+
+        if (!acquired) {
+            timeouts.increment();
+            stripe.timeouts.incrementAndGet();
+            throw new ServiceBusyException("Card " + cardId + " is busy, please retry later");
+        }
+    }
+
+    @FunctionalInterface
+    public interface Lease extends AutoCloseable {
+
+        @Override
+        void close();
+
+        // The rows a caller's transaction updated stay locked in the database until it commits,
+        // so the stripes are held until then as well; the next transfer then sees the new balance.
+        default void closeAfterTransaction() {
+            if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+                close();
+                return;
+            }
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    close();
+                }
+            });
+        }
+    }
+
+    public final class GroupLease implements Lease {
+
+        private final List<Stripe> held = new ArrayList<>();
+        private final Set<Stripe> busy = new HashSet<>();
+
+        private GroupLease() {
+        }
+
+        public boolean holds(Long cardId) {
+            return !busy.contains(stripeFor(cardId));
+        }
+
+        @Override
+        public void close() {
+            for (int i = held.size() - 1; i >= 0; i--) {
+                held.get(i).lock.unlock();
+            }
+            held.clear();
+        }
+    }
+
+    private static final class Stripe {
+        private final int index;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final AtomicLong acquisitions = new AtomicLong();
+        private final AtomicLong contended = new AtomicLong();
+        private final AtomicLong timeouts = new AtomicLong();
+        private final AtomicLong waitNanos = new AtomicLong();
+        private volatile Long lastContendedCardId;
+
+        private Stripe(int index) {
+            this.index = index;
+        }
+
+        private LockStripeStatsResponse snapshot() {
+            return LockStripeStatsResponse.builder()
+                    .stripe(index)
+                    .acquisitions(acquisitions.get())
+                    .contended(contended.get())
+                    .timeouts(timeouts.get())
+                    .totalWaitMillis(TimeUnit.NANOSECONDS.toMillis(waitNanos.get()))
+                    .lastContendedCardId(lastContendedCardId)
+                    .queueLength(lock.getQueueLength())
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.bankcards.service.transfer;
+
+import com.example.bankcards.dto.request.CardTransferRequest;
+import com.example.bankcards.dto.response.CardBalanceDrift;
+import com.example.bankcards.dto.response.LedgerReconcileResponse;
+import com.example.bankcards.entity.LedgerEntry;
+import com.example.bankcards.repository.LedgerRepository;
+import com.example.bankcards.service.AuditService;
+import com.example.bankcards.service.UserBalanceService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Append-only double-entry ledger. Every settled movement writes one debit and one credit
+ * entry; periodic snapshot runs fold each card's committed entries into a balance row, so any
+ * balance (current or past) is the latest snapshot before that moment plus the entries no run
+ * up to that snapshot has folded.
+ */
+@Service
+@Slf4j
+public class LedgerService {
+
+    private final LedgerRepository ledgerRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final AuditService auditService;
+    private final UserBalanceService userBalanceService;
+    private final ExecutorService reconcileExecutor;
+
+    private final int rebuildChunkSize;
+
+    public LedgerService(LedgerRepository ledgerRepository,
+                         TransactionTemplate transactionTemplate,
+                         AuditService auditService,
+                         UserBalanceService userBalanceService,
+                         @Qualifier("ledgerReconcileExecutor") ExecutorService reconcileExecutor,
+                         @Value("${transfer.ledger.rebuild-chunk-size:500}") int rebuildChunkSize) {
+        this.ledgerRepository = ledgerRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.auditService = auditService;
+        this.userBalanceService = userBalanceService;
+        this.reconcileExecutor = reconcileExecutor;
+        this.rebuildChunkSize = rebuildChunkSize;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY, noRollbackFor = RuntimeException.class)
+    public void recordTransfer(Long transactionId, Long fromCardId, Long toCardId, BigDecimal amount) {
+        List<LedgerEntry> entries = new ArrayList<>(2);
+        addEntries(entries, transactionId, fromCardId, toCardId, amount, LocalDateTime.now());
+        ledgerRepository.appendEntries(entries);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY, noRollbackFor = RuntimeException.class)
+    public void recordTransfers(List<CardTransferRequest> transfers) {
+        LocalDateTime now = LocalDateTime.now();
+        List<LedgerEntry> entries = new ArrayList<>(transfers.size() * 2);
+        transfers.forEach(t -> addEntries(entries, null, t.getFromCardId(), t.getToCardId(), t.getAmount(), now));
+        ledgerRepository.appendEntries(entries);
+    }
+
+    // A run folds exactly the entries committed when it marks them: one whose transaction is
+    // still open stays unmarked, and so in every balance's tail, until a later run takes it.
+    @Scheduled(fixedDelayString = "${transfer.ledger.snapshot-interval:PT5M}")
+    @Transactional
+    public int takeSnapshots() {
+        long run = ledgerRepository.nextSnapshotRun();
+        if (ledgerRepository.foldEntries(run) == 0) {
+            return 0;
+        }
+        int snapshots = ledgerRepository.takeSnapshots(run, LocalDateTime.now());
+        log.info("Snapshot run {} took {} card balance snapshots", run, snapshots);
+        return snapshots;
+    }
+
+    @Transactional(readOnly = true)
+    public BigDecimal balanceAt(Long cardId, LocalDateTime at) {
+        return ledgerRepository.balanceAt(cardId, at);
+    }
+
+    public LedgerReconcileResponse reconcile(boolean repair) {
+        List<Long> cardIds = ledgerRepository.findCardIds();
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int i = 0; i < cardIds.size(); i += rebuildChunkSize) {
+            chunks.add(cardIds.subList(i, Math.min(i + rebuildChunkSize, cardIds.size())));
+        }
+
+        List<CardBalanceDrift> drifts = new ArrayList<>();
+        List<Future<List<CardBalanceDrift>>> futures = new ArrayList<>(chunks.size());
+        try {
+            chunks.forEach(chunk -> futures.add(reconcileExecutor.submit(() -> reconcileChunk(chunk, repair))));
+            for (Future<List<CardBalanceDrift>> future : futures) {
+                drifts.addAll(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reconciling card balances", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new CompletionException(e.getCause());
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+        drifts.sort(Comparator.comparing(CardBalanceDrift::getCardId));
+
+        auditService.logAction(
+                AuditService.Actions.ADMIN_ACTION,
+                AuditService.details("operation", "LEDGER_RECONCILIATION", "cardsChecked", cardIds.size(),
+                        "drifted", drifts.size(), "repaired", repair)
+        );
+        if (!drifts.isEmpty()) {
+            log.warn("{} card balances differ from the ledger, repaired: {}", drifts.size(), repair);
+        }
+
+        return LedgerReconcileResponse.builder()
+                .checkedCards(cardIds.size())
+                .driftedCards(drifts.size())
+                .repaired(repair)
+                .drifts(drifts)
+                .build();
+    }
+
+    private List<CardBalanceDrift> reconcileChunk(List<Long> cardIds, boolean repair) {
+        return transactionTemplate.execute(status -> {
+            Map<Long, LedgerRepository.LockedBalance> balances = ledgerRepository.lockBalances(cardIds);
+            Map<Long, BigDecimal> ledger = ledgerRepository.ledgerBalances(cardIds);
+
+            List<CardBalanceDrift> drifts = new ArrayList<>();
+            Set<Long> driftedUsers = new TreeSet<>();
+            balances.forEach((cardId, balance) -> {
+                BigDecimal expected = ledger.getOrDefault(cardId, BigDecimal.ZERO);
+                if (balance.total().compareTo(expected) == 0) {
+                    return;
+                }
+                drifts.add(new CardBalanceDrift(cardId, balance.total(), expected));
+                if (repair) {
+                    // Slots stay as they are; only the card row absorbs the difference.
+                    ledgerRepository.setCardBalance(cardId, expected.subtract(balance.slotBalance()));
+                    driftedUsers.add(balance.userId());
+                }
+            });
+            // Chunks run in parallel, so user rows are locked in id order, once each.
+            driftedUsers.forEach(userBalanceService::recompute);
+            return drifts;
+        });
+    }
+
+    private static void addEntries(List<LedgerEntry> entries, Long transactionId, Long fromCardId, Long toCardId,
+                                   BigDecimal amount, LocalDateTime createdAt) {
+        entries.add(LedgerEntry.builder()
+                .cardId(fromCardId)
+                .transactionId(transactionId)
+                .entryType(LedgerEntry.EntryType.DEBIT)
+                .amount(amount.negate())
+                .createdAt(createdAt)
+                .build());
+        entries.add(LedgerEntry.builder()
+                .cardId(toCardId)
+                .transactionId(transactionId)
+                .entryType(LedgerEntry.EntryType.CREDIT)
+                .amount(amount)
+                .createdAt(createdAt)
+                .build());
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.bankcards.service.transfer;
+
+import com.example.bankcards.exception.CardOperationException;
+import com.example.bankcards.repository.BankCardRepository;
+import com.example.bankcards.repository.BankCardRepository.BalanceView;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+@Component
+@ConditionalOnProperty(name = "transfer.mode", havingValue = "optimistic")
+@RequiredArgsConstructor
+@Slf4j
+public class OptimisticTransferEngine extends AbstractTransferEngine {
+
+    // Set while runTransaction() can still retry: a lost compare-and-set then aborts the
+    // transaction instead of falling back to the row lock.
+    private static final ThreadLocal<Boolean> RETRYABLE = ThreadLocal.withInitial(() -> false);
+
+    private final BankCardRepository cardRepository;
+    private final CardBalanceShards shards;
+
+    @Value("${transfer.optimistic.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${transfer.optimistic.backoff:5ms}")
+    private Duration backoff;
+
+    @Override
+    public <T> T runTransaction(Supplier<T> transaction) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return transaction.get();
+        }
+        for (int attempt = 1; ; attempt++) {
+            RETRYABLE.set(attempt < maxAttempts);
+            try {
+                return transaction.get();
+            } catch (ConflictException e) {
+                log.debug("Card {} contended, retrying transfer (attempt {} of {})", e.cardId, attempt, maxAttempts);
+            } finally {
+                RETRYABLE.remove();
+            }
+            backoff(attempt);
+        }
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY, noRollbackFor = RuntimeException.class)
+    public void transfer(Long userId, Long fromCardId, Long toCardId, BigDecimal amount) {
+        // Same ascending-id ordering as AtomicTransferEngine: a successful compare-and-set
+        // keeps its row locked until commit.
+        if (fromCardId <= toCardId) {
+            apply(fromCardId, userId, amount.negate(), true);
+            apply(toCardId, userId, amount, false);
+        } else {
+            apply(toCardId, userId, amount, false);
+            apply(fromCardId, userId, amount.negate(), true);
+        }
+    }
+
+    private void apply(Long cardId, Long userId, BigDecimal delta, boolean source) {
+        if (shards.isSharded(cardId)) {
+            if (source) {
+                shards.sweep(cardId);
+            } else {
+                requireDestination(cardRepository.findBalanceView(cardId, userId));
+                if (shards.credit(cardId, delta)) {
+                    return;
+                }
+            }
+        }
+        BalanceView card = validate(findBalanceView(cardId, userId, delta, source), delta, source);
+        if (cardRepository.compareAndSetBalance(cardId, card.getVersion(), card.getBalance().add(delta)) == 1) {
+            return;
+        }
+        if (RETRYABLE.get()) {
+            throw new ConflictException(cardId);
+        }
+
+        log.debug("Card {} contended and not retryable here, falling back to row lock", cardId);
+        card = validate(cardRepository.lockBalanceView(cardId, userId), delta, source);
+        if (cardRepository.compareAndSetBalance(cardId, card.getVersion(), card.getBalance().add(delta)) != 1) {
+            throw new IllegalStateException("Card " + cardId + " changed under its row lock");
+        }
+    }
+
+    // A source this node does not yet know to be sharded gets its slots swept before a shortfall
+    // is reported.
+    private Optional<BalanceView> findBalanceView(Long cardId, Long userId, BigDecimal delta, boolean source) {
+        Optional<BalanceView> card = cardRepository.findBalanceView(cardId, userId);
+        if (source && card.isPresent() && card.get().getBalance().add(delta).signum() < 0
+                && !shards.isSharded(cardId) && shards.reload(cardId) && shards.sweep(cardId).signum() != 0) {
+            card = cardRepository.findBalanceView(cardId, userId);
+        }
+        return card;
+    }
+
+    private BalanceView validate(Optional<BalanceView> card, BigDecimal delta, boolean source) {
+        return source ? requireSource(card, delta.negate()) : requireDestination(card);
+    }
+
+    // Rolls the caller's transaction back so runTransaction() can retry it; never leaves this class.
+    private static final class ConflictException extends RuntimeException {
+
+        private final Long cardId;
+
+        private ConflictException(Long cardId) {
+            super(null, null, false, false);
+            this.cardId = cardId;
+        }
+    }
+
+    private void backoff(int attempt) {
+        long ceiling = Math.max(1, backoff.toMillis()) << Math.min(attempt - 1, 6);
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CardOperationException("Transfer interrupted");
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.bankcards.service.transfer;
+
+import com.example.bankcards.repository.BankCardRepository;
+import com.example.bankcards.repository.BankCardRepository.BalanceView;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+@Component
+@ConditionalOnProperty(name = "transfer.mode", havingValue = "pessimistic")
+@RequiredArgsConstructor
+public class PessimisticTransferEngine extends AbstractTransferEngine {
+
+    private final BankCardRepository cardRepository;
+    private final CardBalanceShards shards;
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY, noRollbackFor = RuntimeException.class)
+    public void transfer(Long userId, Long fromCardId, Long toCardId, BigDecimal amount) {
+        // Rows are always locked in ascending id order, so A->B and B->A cannot deadlock.
+        // A sharded destination is credited through a slot, so its card row is not locked.
+        boolean shardedDestination = shards.isSharded(toCardId);
+        if (fromCardId <= toCardId) {
+            lockSource(fromCardId, userId, amount);
+            checkDestination(toCardId, userId, shardedDestination);
+        } else {
+            checkDestination(toCardId, userId, shardedDestination);
+            lockSource(fromCardId, userId, amount);
+        }
+
+        cardRepository.debitIfSufficient(fromCardId, userId, amount);
+        if (!shardedDestination || !shards.credit(toCardId, amount)) {
+            cardRepository.creditIfActive(toCardId, userId, amount);
+        }
+    }
+
+    private void lockSource(Long cardId, Long userId, BigDecimal amount) {
+        Optional<BalanceView> card = cardRepository.lockBalanceView(cardId, userId);
+        boolean sharded = card.isPresent() && (shards.isSharded(cardId)
+                || card.get().getBalance().compareTo(amount) < 0 && shards.reload(cardId));
+        if (sharded && shards.sweep(cardId).signum() != 0) {
+            card = cardRepository.findBalanceView(cardId, userId);
+        }
+        requireSource(card, amount);
+    }
+
+    private void checkDestination(Long cardId, Long userId, boolean sharded) {
+        requireDestination(sharded
+                ? cardRepository.findBalanceView(cardId, userId)
+                : cardRepository.lockBalanceView(cardId, userId));
+    }
+}
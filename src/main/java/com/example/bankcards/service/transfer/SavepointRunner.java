@@ -0,0 +1,39 @@
+package com.example.bankcards.service.transfer;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.Savepoint;
+import java.util.function.Supplier;
+
+/**
+ * Runs work inside a JDBC savepoint of the current transaction. Hibernate's JPA dialect
+ * does not expose savepoints to Spring's nested propagation, so the savepoint is taken
+ * on the session's connection directly. On failure the persistence context is cleared,
+ * so callers should stick to bulk statements and not hold on to managed entities.
+ */
+@Component
+class SavepointRunner {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    <T> T run(Supplier<T> work) {
+        Session session = entityManager.unwrap(Session.class);
+        session.flush();
+        Savepoint savepoint = session.doReturningWork(Connection::setSavepoint);
+        try {
+            T result = work.get();
+            session.flush();
+            session.doWork(connection -> connection.releaseSavepoint(savepoint));
+            return result;
+        } catch (RuntimeException e) {
+            session.clear();
+            session.doWork(connection -> connection.rollback(savepoint));
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.bankcards.service.transfer;
+
+import java.math.BigDecimal;
+import java.util.function.Supplier;
+
+public interface TransferEngine {
+
+    // Always joins the caller's transaction and leaves the rollback decision to it, so a
+    // rejected transfer can be undone to a savepoint without dooming the whole transaction.
+    void transfer(Long userId, Long fromCardId, Long toCardId, BigDecimal amount);
+
+    // Runs a transaction that calls transfer(). An engine that detects conflicts optimistically
+    // retries it from here, between transactions, rather than waiting inside one.
+    default <T> T runTransaction(Supplier<T> transaction) {
+        return transaction.get();
+    }
+}
@@ -0,0 +1,228 @@
+package com.example.bankcards.service.transfer;
+
+import com.example.bankcards.dto.request.CardTransferRequest;
+import com.example.bankcards.entity.CardTransaction;
+import com.example.bankcards.exception.ServiceBusyException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+@Component
+@Slf4j
+public class TransferGroupCommitter {
+
+    private final TransferSettlementProcessor processor;
+    private final TransactionTemplate transactionTemplate;
+    private final CardLockManager cardLockManager;
+    private final CardBalanceShards cardBalanceShards;
+
+    private final boolean enabled;
+    private final long windowNanos;
+    private final int maxBatch;
+    private final BlockingQueue<PendingCommit> queue;
+    private final DistributionSummary groupSize;
+
+    private Thread committer;
+    private volatile boolean running;
+
+    public TransferGroupCommitter(TransferSettlementProcessor processor,
+                                  TransactionTemplate transactionTemplate,
+                                  CardLockManager cardLockManager,
+                                  CardBalanceShards cardBalanceShards,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${transfer.group-commit.enabled:false}") boolean enabled,
+                                  @Value("${transfer.group-commit.window:2ms}") Duration window,
+                                  @Value("${transfer.group-commit.max-batch:64}") int maxBatch,
+                                  @Value("${transfer.group-commit.queue-capacity:1024}") int queueCapacity) {
+        this.processor = processor;
+        this.transactionTemplate = transactionTemplate;
+        this.cardLockManager = cardLockManager;
+        this.cardBalanceShards = cardBalanceShards;
+        this.enabled = enabled;
+        this.windowNanos = window.toNanos();
+        this.maxBatch = maxBatch;
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+
+        this.groupSize = DistributionSummary.builder("transfer.group.commit.size")
+                .description("Transfers applied per database commit")
+                .register(meterRegistry);
+        Gauge.builder("transfer.group.commit.queue.size", queue, BlockingQueue::size).register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        committer = new Thread(this::run, "transfer-group-committer");
+        committer.setDaemon(true);
+        committer.start();
+        log.info("Transfer group commit started, window {} us, max batch {}", windowNanos / 1000, maxBatch);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        if (committer != null) {
+            committer.interrupt();
+            committer.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        List<PendingCommit> leftovers = new ArrayList<>();
+        queue.drainTo(leftovers);
+        leftovers.forEach(commit -> commit.future().completeExceptionally(
+                new IllegalStateException("Transfer service is shutting down")));
+    }
+
+    public boolean isEnabled() {
+        return running;
+    }
+
+    public CardTransaction submit(CardTransferRequest request, Long userId) {
+        PendingCommit commit = new PendingCommit(request, userId, new CompletableFuture<>());
+        if (!running || !queue.offer(commit)) {
+            try (CardLockManager.Lease lease = cardLockManager.lock(request.getFromCardId(),
+                    lockedCardOf(request.getToCardId(), request.getFromCardId()))) {
+                return processor.transferWithRetry(request, userId);
+            }
+        }
+
+        try {
+            return commit.future().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for transfer commit", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new CompletionException(e.getCause());
+        }
+    }
+
+    private void run() {
+        List<PendingCommit> group = new ArrayList<>(maxBatch);
+        while (running) {
+            try {
+                PendingCommit first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+
+                long deadline = System.nanoTime() + windowNanos;
+                while (group.size() < maxBatch) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingCommit next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    group.add(next);
+                }
+
+                commit(group);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                group.forEach(commit -> commit.future().completeExceptionally(
+                        new IllegalStateException("Transfer service is shutting down")));
+                return;
+            } finally {
+                group.clear();
+            }
+        }
+    }
+
+    // The group holds the card stripes of all its transfers until it commits, so it is
+    // serialised against direct transfers over the same cards; a transfer whose card stays
+    // busy is turned away alone.
+    private void commit(List<PendingCommit> group) {
+        List<Long> cardIds = new ArrayList<>(group.size() * 2);
+        group.forEach(commit -> {
+            cardIds.add(commit.request().getFromCardId());
+            cardIds.add(lockedCardOf(commit.request().getToCardId(), commit.request().getFromCardId()));
+        });
+
+        try (CardLockManager.GroupLease lease = cardLockManager.lockAll(cardIds)) {
+            List<PendingCommit> locked = new ArrayList<>(group.size());
+            for (int i = 0; i < group.size(); i++) {
+                PendingCommit commit = group.get(i);
+                Long busyCard = !lease.holds(cardIds.get(2 * i)) ? cardIds.get(2 * i)
+                        : !lease.holds(cardIds.get(2 * i + 1)) ? cardIds.get(2 * i + 1) : null;
+                if (busyCard != null) {
+                    commit.future().completeExceptionally(
+                            new ServiceBusyException("Card " + busyCard + " is busy, please retry later"));
+                } else {
+                    locked.add(commit);
+                }
+            }
+            if (!locked.isEmpty()) {
+                commitLocked(locked);
+            }
+        }
+    }
+
+    // Each transfer runs in its own savepoint, so a rejected one is undone alone while the
+    // rest of the group shares a single commit. Callers are released only after that commit;
+    // if the shared commit itself fails, each transfer is retried on its own.
+    private void commitLocked(List<PendingCommit> group) {
+        CardTransaction[] results = new CardTransaction[group.size()];
+        RuntimeException[] errors = new RuntimeException[group.size()];
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int i = 0; i < group.size(); i++) {
+                    PendingCommit commit = group.get(i);
+                    try {
+                        results[i] = processor.transferInSavepoint(commit.request(), commit.userId());
+                    } catch (RuntimeException e) {
+                        errors[i] = e;
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("Group commit of {} transfers failed, applying them one by one", group.size(), e);
+            group.forEach(commit -> {
+                try {
+                    commit.future().complete(processor.transferWithRetry(commit.request(), commit.userId()));
+                } catch (RuntimeException single) {
+                    commit.future().completeExceptionally(single);
+                }
+            });
+            return;
+        }
+
+        groupSize.record(group.size());
+        for (int i = 0; i < group.size(); i++) {
+            if (errors[i] != null) {
+                group.get(i).future().completeExceptionally(errors[i]);
+            } else {
+                group.get(i).future().complete(results[i]);
+            }
+        }
+    }
+
+    // Credits to a sharded card land on a slot, so only its debits need the stripe.
+    private Long lockedCardOf(Long toCardId, Long fromCardId) {
+        return cardBalanceShards.isSharded(toCardId) ? fromCardId : toCardId;
+    }
+
+    private record PendingCommit(CardTransferRequest request, Long userId,
+                                 CompletableFuture<CardTransaction> future) {
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.bankcards.service.transfer;
+
+import com.example.bankcards.dto.request.CardTransferRequest;
+import com.example.bankcards.entity.CardTransaction;
+import com.example.bankcards.entity.IdempotencyRecord;
+import com.example.bankcards.exception.IdempotencyKeyReuseException;
+import com.example.bankcards.repository.IdempotencyRecordRepository;
+import com.example.bankcards.util.BoundedTtlCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.function.Supplier;
+
+@Service
+@Slf4j
+public class TransferIdempotencyService {
+
+    private final IdempotencyRecordRepository recordRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final BoundedTtlCache<String, StoredOutcome> cache;
+    private final Duration ttl;
+
+    public TransferIdempotencyService(IdempotencyRecordRepository recordRepository,
+                                      TransactionTemplate transactionTemplate,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${transfer.idempotency.cache-size:10000}") int cacheSize,
+                                      @Value("${transfer.idempotency.ttl:24h}") Duration ttl) {
+        this.recordRepository = recordRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.ttl = ttl;
+        this.cache = new BoundedTtlCache<String, StoredOutcome>(cacheSize, ttl)
+                .bindTo(meterRegistry, "transfer.idempotency");
+    }
+
+    public TransferOutcome execute(Long userId, String idempotencyKey, CardTransferRequest request,
+                                   Supplier<CardTransaction> transfer) {
+        String cacheKey = userId + ":" + idempotencyKey;
+        String requestHash = fingerprint(request);
+
+        StoredOutcome cached = cache.get(cacheKey);
+        if (cached != null) {
+            return replay(cached, requestHash, idempotencyKey);
+        }
+
+        StoredOutcome outcome;
+        try {
+            outcome = transactionTemplate.execute(status -> {
+                IdempotencyRecord existing = recordRepository
+                        .findByUserIdAndIdempotencyKey(userId, idempotencyKey)
+                        .orElse(null);
+                if (existing != null) {
+                    return StoredOutcome.replayOf(existing);
+                }
+
+                IdempotencyRecord record = recordRepository.saveAndFlush(IdempotencyRecord.builder()
+                        .userId(userId)
+                        .idempotencyKey(idempotencyKey)
+                        .requestHash(requestHash)
+                        .build());
+
+                CardTransaction transaction = transfer.get();
+                record.setTransactionId(transaction.getId());
+                return new StoredOutcome(requestHash, transaction.getId(), false);
+            });
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Concurrent request claimed idempotency key {} for user {}", idempotencyKey, userId);
+            outcome = recordRepository.findByUserIdAndIdempotencyKey(userId, idempotencyKey)
+                    .map(StoredOutcome::replayOf)
+                    .orElseThrow(() -> e);
+        }
+
+        cache.put(cacheKey, outcome.stored());
+        return outcome.replayed() ? replay(outcome, requestHash, idempotencyKey)
+                : new TransferOutcome(outcome.transactionId(), false);
+    }
+
+    @Scheduled(fixedDelayString = "${transfer.idempotency.cleanup-interval:PT1H}")
+    public void purgeExpired() {
+        Integer removed = transactionTemplate.execute(status ->
+                recordRepository.deleteCreatedBefore(LocalDateTime.now().minus(ttl)));
+        if (removed != null && removed > 0) {
+            log.info("Removed {} expired transfer idempotency keys", removed);
+        }
+    }
+
+    private TransferOutcome replay(StoredOutcome outcome, String requestHash, String idempotencyKey) {
+        if (!outcome.requestHash().equals(requestHash)) {
+            throw new IdempotencyKeyReuseException(
+                    "Idempotency key " + idempotencyKey + " was already used with a different request");
+        }
+        return new TransferOutcome(outcome.transactionId(), true);
+    }
+
+    static String fingerprint(CardTransferRequest request) {
+        String canonical = request.getFromCardId() + "|" + request.getToCardId() + "|"
+                + request.getAmount().stripTrailingZeros().toPlainString();
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(canonical.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    public record TransferOutcome(Long transactionId, boolean replayed) {
+    }
+
+    private record StoredOutcome(String requestHash, Long transactionId, boolean replayed) {
+
+        static StoredOutcome replayOf(IdempotencyRecord record) {
+            return new StoredOutcome(record.getRequestHash(), record.getTransactionId(), true);
+        }
+
+        StoredOutcome stored() {
+            return replayed ? this : new StoredOutcome(requestHash, transactionId, true);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.bankcards.service.transfer;
+
+import com.example.bankcards.dto.request.CardTransferRequest;
+import com.example.bankcards.entity.CardTransaction;
+import com.example.bankcards.exception.CardNotFoundException;
+import com.example.bankcards.exception.CardOperationException;
+import com.example.bankcards.repository.BankCardRepository;
+import com.example.bankcards.repository.CardTransactionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TransferSettlementProcessor {
+
+    private static final int MAX_FAILURE_REASON_LENGTH = 255;
+
+    private final BankCardRepository cardRepository;
+    private final CardTransactionRepository transactionRepository;
+    private final TransferEngine transferEngine;
+    private final SavepointRunner savepointRunner;
+    private final LedgerService ledgerService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Transactional
+    public CardTransaction transfer(CardTransferRequest request, Long userId) {
+        transferEngine.transfer(userId, request.getFromCardId(), request.getToCardId(), request.getAmount());
+
+        CardTransaction transaction = transactionRepository.save(CardTransaction.builder()
+                .fromCard(cardRepository.getReferenceById(request.getFromCardId()))
+                .toCard(cardRepository.getReferenceById(request.getToCardId()))
+                .amount(request.getAmount())
+                .status(CardTransaction.TransactionStatus.SUCCESS)
+                .userId(userId)
+                .build());
+        ledgerService.recordTransfer(transaction.getId(), request.getFromCardId(), request.getToCardId(),
+                request.getAmount());
+        return transaction;
+    }
+
+    // Not transactional itself, so the engine can retry the whole transfer between transactions.
+    public CardTransaction transferWithRetry(CardTransferRequest request, Long userId) {
+        return transferEngine.runTransaction(() -> transactionTemplate.execute(status -> transfer(request, userId)));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY, noRollbackFor = RuntimeException.class)
+    public CardTransaction transferInSavepoint(CardTransferRequest request, Long userId) {
+        return savepointRunner.run(() -> transfer(request, userId));
+    }
+
+    @Transactional
+    public CardTransaction createPending(CardTransferRequest request, Long userId) {
+        if (request.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+            throw new CardOperationException("Transfer amount must be positive");
+        }
+        if (cardRepository.findBalanceView(request.getFromCardId(), userId).isEmpty()) {
+            throw new CardNotFoundException("Source card not found or doesn't belong to user");
+        }
+        if (cardRepository.findBalanceView(request.getToCardId(), userId).isEmpty()) {
+            throw new CardNotFoundException("Destination card not found or doesn't belong to user");
+        }
+
+        return transactionRepository.save(CardTransaction.builder()
+                .fromCard(cardRepository.getReferenceById(request.getFromCardId()))
+                .toCard(cardRepository.getReferenceById(request.getToCardId()))
+                .amount(request.getAmount())
+                .status(CardTransaction.TransactionStatus.PENDING)
+                .userId(userId)
+                .build());
+    }
+
+    @Transactional
+    public List<SettlementResult> settle(Collection<Long> transactionIds) {
+        List<PendingTransfer> pending = new ArrayList<>(transactionIds.size());
+        transactionRepository.findPendingByIdIn(transactionIds).forEach(t -> pending.add(new PendingTransfer(
+                t.getId(), t.getUserId(), t.getFromCard().getId(), t.getToCard().getId(), t.getAmount())));
+
+        List<SettlementResult> results = new ArrayList<>(pending.size());
+        for (PendingTransfer transfer : pending) {
+            SettlementResult result = settleOne(transfer);
+            if (result != null) {
+                results.add(result);
+            }
+        }
+        return results;
+    }
+
+    // The guarded PENDING -> SUCCESS update is the claim: a row already settled by another
+    // worker matches nothing, and a failed transfer rolls back to the savepoint, un-claiming it.
+    private SettlementResult settleOne(PendingTransfer transfer) {
+        try {
+            boolean claimed = savepointRunner.run(() -> {
+                if (transactionRepository.completePending(
+                        transfer.id(), CardTransaction.TransactionStatus.SUCCESS, null) == 0) {
+                    return false;
+                }
+                transferEngine.transfer(transfer.userId(), transfer.fromCardId(), transfer.toCardId(),
+                        transfer.amount());
+                ledgerService.recordTransfer(transfer.id(), transfer.fromCardId(), transfer.toCardId(),
+                        transfer.amount());
+                return true;
+            });
+            return claimed ? new SettlementResult(transfer, null) : null;
+        } catch (RuntimeException e) {
+            String reason = truncate(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+            log.debug("Pending transfer {} rejected: {}", transfer.id(), reason);
+            transactionRepository.completePending(transfer.id(), CardTransaction.TransactionStatus.FAILED, reason);
+            return new SettlementResult(transfer, reason);
+        }
+    }
+
+    private static String truncate(String message) {
+        if (message.length() <= MAX_FAILURE_REASON_LENGTH) {
+            return message;
+        }
+        return message.substring(0, MAX_FAILURE_REASON_LENGTH);
+    }
+
+    public record PendingTransfer(Long id, Long userId, Long fromCardId, Long toCardId, BigDecimal amount) {
+    }
+
+    public record SettlementResult(PendingTransfer transfer, String failureReason) {
+
+        public boolean succeeded() {
+            return failureReason == null;
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package com.example.bankcards.specification;
 
 import com.example.bankcards.entity.Card;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Root;
 import org.springframework.data.jpa.domain.Specification;
 
 import java.math.BigDecimal;
@@ -19,11 +22,15 @@ public class BankCardSpecification {
 
     public static Specification<Card> balanceGreaterThanOrEqual(BigDecimal minBalance) {
         return (root, query, cb) ->
-                minBalance == null ? null : cb.greaterThanOrEqualTo(root.get("balance"), minBalance);
+                minBalance == null ? null : cb.greaterThanOrEqualTo(totalBalance(root, cb), minBalance);
     }
 
     public static Specification<Card> balanceLessThanOrEqual(BigDecimal maxBalance) {
         return (root, query, cb) ->
-                maxBalance == null ? null : cb.lessThanOrEqualTo(root.get("balance"), maxBalance);
+                maxBalance == null ? null : cb.lessThanOrEqualTo(totalBalance(root, cb), maxBalance);
     }
-}
\ No newline at end of file
+
+    private static Expression<BigDecimal> totalBalance(Root<Card> root, CriteriaBuilder cb) {
+        return cb.sum(root.get("balance"), root.<BigDecimal>get("slotBalance"));
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.bankcards.util;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+public class BoundedTtlCache<K, V> {
+
+    private final int maxSize;
+    private final Duration ttl;
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public BoundedTtlCache(int maxSize, Duration ttl) {
+        this.maxSize = maxSize;
+        this.ttl = ttl;
+        this.entries = new LinkedHashMap<>(Math.min(maxSize, 1024), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > BoundedTtlCache.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        if (entry.expiresAt().isBefore(Instant.now())) {
+            entries.remove(key);
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.value();
+    }
+
+    public void put(K key, V value) {
+        put(key, value, Instant.now().plus(ttl));
+    }
+
+    public synchronized void put(K key, V value, Instant expiresAt) {
+        Instant latest = Instant.now().plus(ttl);
+        entries.put(key, new Entry<>(value, expiresAt.isBefore(latest) ? expiresAt : latest));
+    }
+
+    public synchronized void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    public synchronized void invalidateIf(Predicate<V> predicate) {
+        entries.values().removeIf(entry -> predicate.test(entry.value()));
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long hitCount() {
+        return hits.get();
+    }
+
+    public long missCount() {
+        return misses.get();
+    }
+
+    public long evictionCount() {
+        return evictions.get();
+    }
+
+    public BoundedTtlCache<K, V> bindTo(MeterRegistry registry, String name) {
+        FunctionCounter.builder("cache.gets", this, BoundedTtlCache::hitCount)
+                .tag("cache", name).tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", this, BoundedTtlCache::missCount)
+                .tag("cache", name).tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("cache.evictions", this, BoundedTtlCache::evictionCount)
+                .tag("cache", name)
+                .register(registry);
+        Gauge.builder("cache.size", this, BoundedTtlCache::size)
+                .tag("cache", name)
+                .register(registry);
+        return this;
+    }
+
+    private record Entry<V>(V value, Instant expiresAt) {
+    }
+}
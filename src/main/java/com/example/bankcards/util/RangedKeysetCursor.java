@@ -0,0 +1,36 @@
+package com.example.bankcards.util;
+
+import com.example.bankcards.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * {@link KeysetCursor} that also carries the date range the first page was resolved with, so a
+ * range defaulted relative to now stays the same for every page of the feed.
+ */
+public record RangedKeysetCursor(LocalDateTime startDate, LocalDateTime endDate, KeysetCursor position) {
+
+    private static final String SEPARATOR = "|";
+
+    public String encode() {
+        String raw = startDate.toString() + SEPARATOR + endDate + SEPARATOR + position.encode();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static RangedKeysetCursor decode(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8)
+                    .split("\\" + SEPARATOR, 3);
+            if (parts.length != 3) {
+                throw new InvalidCursorException("Malformed page cursor");
+            }
+            return new RangedKeysetCursor(LocalDateTime.parse(parts[0]), LocalDateTime.parse(parts[1]),
+                    KeysetCursor.decode(parts[2]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidCursorException("Malformed page cursor");
+        }
+    }
+}
@@ -0,0 +1,5 @@
+ALTER TABLE card_transactions ADD COLUMN IF NOT EXISTS user_id BIGINT REFERENCES users (id);
+ALTER TABLE card_transactions ADD COLUMN IF NOT EXISTS failure_reason VARCHAR(255);
+
+CREATE INDEX IF NOT EXISTS idx_card_transactions_pending
+    ON card_transactions (transaction_date) WHERE status = 'PENDING';
@@ -0,0 +1,10 @@
+ALTER TABLE bank_cards
+    ADD COLUMN IF NOT EXISTS balance_slots INT NOT NULL DEFAULT 0;
+
+CREATE TABLE IF NOT EXISTS card_balance_slots
+(
+    card_id BIGINT         NOT NULL REFERENCES bank_cards (id) ON DELETE CASCADE,
+    slot    INT            NOT NULL,
+    balance DECIMAL(15, 2) NOT NULL DEFAULT 0.00,
+    PRIMARY KEY (card_id, slot)
+);
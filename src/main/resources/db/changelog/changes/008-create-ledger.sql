@@ -0,0 +1,44 @@
+CREATE TABLE IF NOT EXISTS ledger_entries
+(
+    id             BIGSERIAL PRIMARY KEY,
+    card_id        BIGINT         NOT NULL REFERENCES bank_cards (id) ON DELETE CASCADE,
+    transaction_id BIGINT,
+    entry_type     VARCHAR(10)    NOT NULL,
+    amount         DECIMAL(15, 2) NOT NULL,
+    created_at     TIMESTAMP      NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    -- The snapshot run that folded this entry; NULL until one does.
+    snapshot_run   BIGINT
+);
+
+CREATE INDEX IF NOT EXISTS idx_ledger_entries_card ON ledger_entries (card_id, id);
+CREATE INDEX IF NOT EXISTS idx_ledger_entries_card_run ON ledger_entries (card_id, snapshot_run);
+CREATE INDEX IF NOT EXISTS idx_ledger_entries_unfolded ON ledger_entries (id) WHERE snapshot_run IS NULL;
+
+CREATE TABLE IF NOT EXISTS card_balance_snapshots
+(
+    id            BIGSERIAL PRIMARY KEY,
+    card_id       BIGINT         NOT NULL REFERENCES bank_cards (id) ON DELETE CASCADE,
+    last_entry_id BIGINT         NOT NULL,
+    run           BIGINT         NOT NULL DEFAULT 0,
+    balance       DECIMAL(15, 2) NOT NULL,
+    taken_at      TIMESTAMP      NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_card_balance_snapshots_card ON card_balance_snapshots (card_id, taken_at);
+
+-- Snapshots fold entries by commit visibility instead of an id watermark: each run marks the
+-- committed entries it folds with its run number, so an entry whose transaction commits late
+-- (a lower id than entries already folded) is simply picked up by the next run. This one row's
+-- lock serializes runs across instances.
+CREATE TABLE IF NOT EXISTS ledger_snapshot_state
+(
+    id       INT PRIMARY KEY,
+    last_run BIGINT NOT NULL
+);
+
+INSERT INTO ledger_snapshot_state (id, last_run) VALUES (1, 0);
+
+INSERT INTO card_balance_snapshots (card_id, last_entry_id, balance, taken_at)
+SELECT c.id, 0, c.balance + COALESCE((SELECT SUM(s.balance) FROM card_balance_slots s WHERE s.card_id = c.id), 0),
+       CURRENT_TIMESTAMP
+FROM bank_cards c;
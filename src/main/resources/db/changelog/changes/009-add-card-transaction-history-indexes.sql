@@ -0,0 +1,7 @@
+CREATE INDEX IF NOT EXISTS idx_card_transactions_from_history
+    ON card_transactions (from_card_id, transaction_date DESC, id DESC)
+    INCLUDE (to_card_id, amount, status, failure_reason);
+
+CREATE INDEX IF NOT EXISTS idx_card_transactions_to_history
+    ON card_transactions (to_card_id, transaction_date DESC, id DESC)
+    INCLUDE (from_card_id, amount, status, failure_reason);
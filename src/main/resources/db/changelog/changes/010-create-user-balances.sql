@@ -0,0 +1,6 @@
+CREATE TABLE IF NOT EXISTS user_balances
+(
+    user_id    BIGINT PRIMARY KEY REFERENCES users (id) ON DELETE CASCADE,
+    balance    DECIMAL(17, 2) NOT NULL DEFAULT 0.00,
+    updated_at TIMESTAMP      NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
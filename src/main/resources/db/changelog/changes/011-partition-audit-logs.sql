@@ -0,0 +1,47 @@
+ALTER TABLE audit_logs RENAME TO audit_logs_legacy;
+ALTER TABLE audit_logs_legacy RENAME CONSTRAINT audit_logs_pkey TO audit_logs_legacy_pkey;
+ALTER SEQUENCE audit_logs_id_seq OWNED BY NONE;
+
+CREATE TABLE audit_logs
+(
+    id          BIGINT       NOT NULL DEFAULT nextval('audit_logs_id_seq'),
+    action      VARCHAR(100) NOT NULL,
+    entity_type VARCHAR(50),
+    entity_id   BIGINT,
+    details     TEXT,
+    user_id     BIGINT REFERENCES users (id) ON DELETE SET NULL,
+    ip_address  VARCHAR(45),
+    user_agent  TEXT,
+    created_at  TIMESTAMP    NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+ALTER SEQUENCE audit_logs_id_seq OWNED BY audit_logs.id;
+
+-- No DEFAULT partition: it would block creating a month that already has rows in it and rule
+-- out DETACH ... CONCURRENTLY. Legacy rows all fall into the months created here.
+DO
+$$
+    DECLARE
+        month      DATE := date_trunc('month', COALESCE((SELECT MIN(created_at) FROM audit_logs_legacy), now()));
+        last_month DATE := date_trunc('month', GREATEST((SELECT MAX(created_at) FROM audit_logs_legacy),
+                                                        now() + INTERVAL '3 months'));
+    BEGIN
+        WHILE month <= last_month
+            LOOP
+                EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF audit_logs FOR VALUES FROM (%L) TO (%L)',
+                               'audit_logs_p' || to_char(month, 'YYYYMM'), month, month + INTERVAL '1 month');
+                month := month + INTERVAL '1 month';
+            END LOOP;
+    END
+$$;
+
+INSERT INTO audit_logs (id, action, entity_type, entity_id, details, user_id, ip_address, user_agent, created_at)
+SELECT id, action, entity_type, entity_id, details, user_id, ip_address, user_agent,
+       COALESCE(created_at, CURRENT_TIMESTAMP)
+FROM audit_logs_legacy;
+
+DROP TABLE audit_logs_legacy;
+
+CREATE INDEX IF NOT EXISTS idx_audit_logs_created_at ON audit_logs (created_at DESC);
+CREATE INDEX IF NOT EXISTS idx_audit_logs_entity_composite ON audit_logs (entity_type, entity_id);
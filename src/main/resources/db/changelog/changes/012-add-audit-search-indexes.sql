@@ -0,0 +1,9 @@
+-- Each filter the admin search supports gets an index that also serves its newest-first
+-- ordering; the single-column indexes they supersede are dropped.
+CREATE INDEX IF NOT EXISTS idx_audit_logs_user_created ON audit_logs (user_id, created_at DESC);
+CREATE INDEX IF NOT EXISTS idx_audit_logs_action_created ON audit_logs (action, created_at DESC);
+CREATE INDEX IF NOT EXISTS idx_audit_logs_entity_type_created ON audit_logs (entity_type, created_at DESC);
+
+DROP INDEX IF EXISTS idx_audit_logs_user_id;
+DROP INDEX IF EXISTS idx_audit_logs_action;
+DROP INDEX IF EXISTS idx_audit_logs_entity_type;
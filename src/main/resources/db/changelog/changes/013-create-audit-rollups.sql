@@ -0,0 +1,21 @@
+CREATE TABLE IF NOT EXISTS audit_log_rollups
+(
+    id          BIGSERIAL PRIMARY KEY,
+    bucket      TIMESTAMP    NOT NULL,
+    action      VARCHAR(100) NOT NULL,
+    entity_type VARCHAR(50)  NOT NULL DEFAULT '',
+    event_count BIGINT       NOT NULL DEFAULT 0,
+    CONSTRAINT uk_audit_log_rollups_key UNIQUE (bucket, action, entity_type)
+);
+
+CREATE TABLE IF NOT EXISTS audit_rollup_watermarks
+(
+    id             INT PRIMARY KEY,
+    last_id        BIGINT    NOT NULL DEFAULT 0,
+    pending_max_id BIGINT    NOT NULL DEFAULT 0,
+    updated_at     TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+INSERT INTO audit_rollup_watermarks (id, last_id, pending_max_id)
+VALUES (1, 0, 0)
+ON CONFLICT (id) DO NOTHING;
@@ -0,0 +1,2 @@
+-- Number of occurrences a row stands for once the audit policy coalesces or samples events.
+ALTER TABLE audit_logs ADD COLUMN IF NOT EXISTS event_count INT NOT NULL DEFAULT 1;
@@ -0,0 +1,103 @@
+-- Repeated audit strings move into small dictionary tables, ip_address becomes inet and
+-- details becomes JSONB; legacy free-text details are kept as {"message": ...}.
+-- Each partition is copied into a compact partition of a new parent and the old one dropped, so
+-- the result holds no dead tuples or dropped-column bytes. Updating in place and dropping the
+-- columns would rewrite every row and leave the table at its old size until a VACUUM FULL.
+CREATE TABLE IF NOT EXISTS audit_actions
+(
+    id   SMALLSERIAL PRIMARY KEY,
+    name VARCHAR(100) NOT NULL UNIQUE
+);
+
+CREATE TABLE IF NOT EXISTS audit_entity_types
+(
+    id   SMALLSERIAL PRIMARY KEY,
+    name VARCHAR(50) NOT NULL UNIQUE
+);
+
+CREATE TABLE IF NOT EXISTS audit_user_agents
+(
+    id   SERIAL PRIMARY KEY,
+    name VARCHAR(512) NOT NULL UNIQUE
+);
+
+INSERT INTO audit_actions (name)
+SELECT DISTINCT action FROM audit_logs
+ON CONFLICT (name) DO NOTHING;
+
+INSERT INTO audit_entity_types (name)
+SELECT DISTINCT entity_type FROM audit_logs WHERE entity_type IS NOT NULL
+ON CONFLICT (name) DO NOTHING;
+
+INSERT INTO audit_user_agents (name)
+SELECT DISTINCT LEFT(user_agent, 512) FROM audit_logs WHERE user_agent IS NOT NULL
+ON CONFLICT (name) DO NOTHING;
+
+CREATE FUNCTION audit_try_inet(value TEXT) RETURNS INET AS
+$$
+BEGIN
+    RETURN value::INET;
+EXCEPTION
+    WHEN others THEN RETURN NULL;
+END
+$$ LANGUAGE plpgsql IMMUTABLE;
+
+CREATE TABLE audit_logs_compact
+(
+    id             BIGINT    NOT NULL DEFAULT nextval('audit_logs_id_seq'),
+    action_id      SMALLINT  NOT NULL REFERENCES audit_actions (id),
+    entity_type_id SMALLINT REFERENCES audit_entity_types (id),
+    entity_id      BIGINT,
+    details        JSONB,
+    user_id        BIGINT REFERENCES users (id) ON DELETE SET NULL,
+    ip_address     INET,
+    user_agent_id  INT REFERENCES audit_user_agents (id),
+    created_at     TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    event_count    INT       NOT NULL DEFAULT 1,
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+DO
+$$
+    DECLARE
+        part RECORD;
+    BEGIN
+        FOR part IN
+            SELECT c.relname AS name, pg_get_expr(c.relpartbound, c.oid) AS bound
+            FROM pg_inherits i
+                     JOIN pg_class c ON c.oid = i.inhrelid
+            WHERE i.inhparent = 'audit_logs'::regclass
+            ORDER BY c.relname
+            LOOP
+                EXECUTE format('CREATE TABLE %I PARTITION OF audit_logs_compact %s', part.name || '_compact', part.bound);
+                EXECUTE format('INSERT INTO %I (id, action_id, entity_type_id, entity_id, details, user_id, ip_address, ' ||
+                               'user_agent_id, created_at, event_count) ' ||
+                               'SELECT l.id, a.id, t.id, l.entity_id, ' ||
+                               'CASE WHEN l.details IS NOT NULL THEN jsonb_build_object(''message'', l.details) END, ' ||
+                               'l.user_id, audit_try_inet(l.ip_address), u.id, l.created_at, l.event_count ' ||
+                               'FROM %I l ' ||
+                               'JOIN audit_actions a ON a.name = l.action ' ||
+                               'LEFT JOIN audit_entity_types t ON t.name = l.entity_type ' ||
+                               'LEFT JOIN audit_user_agents u ON u.name = LEFT(l.user_agent, 512)',
+                               part.name || '_compact', part.name);
+                EXECUTE format('DROP TABLE %I', part.name);
+                EXECUTE format('ALTER TABLE %I RENAME TO %I', part.name || '_compact', part.name);
+                EXECUTE format('ALTER TABLE %I RENAME CONSTRAINT %I TO %I',
+                               part.name, part.name || '_compact_pkey', part.name || '_pkey');
+            END LOOP;
+    END
+$$;
+
+DROP FUNCTION audit_try_inet(TEXT);
+
+ALTER SEQUENCE audit_logs_id_seq OWNED BY NONE;
+DROP TABLE audit_logs;
+ALTER TABLE audit_logs_compact RENAME TO audit_logs;
+ALTER TABLE audit_logs RENAME CONSTRAINT audit_logs_compact_pkey TO audit_logs_pkey;
+ALTER SEQUENCE audit_logs_id_seq OWNED BY audit_logs.id;
+
+CREATE INDEX IF NOT EXISTS idx_audit_logs_user_created ON audit_logs (user_id, created_at DESC);
+CREATE INDEX IF NOT EXISTS idx_audit_logs_created_at ON audit_logs (created_at DESC);
+CREATE INDEX IF NOT EXISTS idx_audit_logs_action_created ON audit_logs (action_id, created_at DESC);
+CREATE INDEX IF NOT EXISTS idx_audit_logs_entity_type_created ON audit_logs (entity_type_id, created_at DESC);
+CREATE INDEX IF NOT EXISTS idx_audit_logs_entity_composite ON audit_logs (entity_type_id, entity_id);
@@ -0,0 +1,5 @@
+-- Tokens carry the version current when they were issued; bumping it revokes every older token.
+ALTER TABLE users ADD COLUMN IF NOT EXISTS token_version INT NOT NULL DEFAULT 0;
+
+-- The revocation registry reloads only users with revoked tokens or disabled accounts.
+CREATE INDEX IF NOT EXISTS idx_users_revoked ON users (id) WHERE token_version > 0 OR NOT enabled;
@@ -0,0 +1,110 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.exception.ServiceBusyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoundedPasswordEncoderTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private BoundedPasswordEncoder encoder;
+
+    @AfterEach
+    void tearDown() {
+        encoder.close();
+    }
+
+    @Test
+    void encodeAndMatches_RunOnHashingPool() {
+        encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), meterRegistry, 2, 8, Duration.ofSeconds(5));
+
+        String hash = encoder.encode("secret");
+
+        assertTrue(encoder.matches("secret", hash));
+        assertFalse(encoder.matches("other", hash));
+        assertEquals(1, meterRegistry.get("password.hash.latency").tag("operation", "encode").timer().count());
+        assertEquals(2, meterRegistry.get("password.hash.latency").tag("operation", "matches").timer().count());
+        assertEquals(3, meterRegistry.get("password.hash.queue.wait").timer().count());
+    }
+
+    @Test
+    void saturatedPool_FailsFastAndNeverHashesStaleWork() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        BlockingEncoder blocking = new BlockingEncoder(release);
+        encoder = new BoundedPasswordEncoder(blocking, meterRegistry, 1, 1, Duration.ofMillis(100));
+
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> encoder.encode("first"));
+        assertTrue(blocking.started.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> encoder.encode("second"));
+        while (queueSize() < 1) {
+            Thread.sleep(1);
+        }
+        assertThrows(ServiceBusyException.class, () -> encoder.encode("third"));
+        assertEquals(1.0, rejected("queue_full"));
+
+        ExecutionException stale = assertThrows(ExecutionException.class, () -> queued.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(ServiceBusyException.class, stale.getCause());
+        assertEquals(1.0, rejected("queue_budget"));
+        assertEquals(0.0, queueSize());
+
+        release.countDown();
+        assertEquals("first", running.get(5, TimeUnit.SECONDS));
+        assertEquals(0, blocking.others.get());
+    }
+
+    private double queueSize() {
+        return meterRegistry.get("password.hash.queue.size").gauge().value();
+    }
+
+    private double rejected(String reason) {
+        return meterRegistry.get("password.hash.rejected").tag("reason", reason).counter().count();
+    }
+
+    private static class BlockingEncoder implements PasswordEncoder {
+
+        private final CountDownLatch release;
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final AtomicInteger others = new AtomicInteger();
+
+        BlockingEncoder(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            if ("first".contentEquals(rawPassword)) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            } else {
+                others.incrementAndGet();
+            }
+            return rawPassword.toString();
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return rawPassword.toString().equals(encodedPassword);
+        }
+    }
+}
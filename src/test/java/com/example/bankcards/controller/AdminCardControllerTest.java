@@ -4,9 +4,14 @@ import com.example.bankcards.config.JwtAuthenticationFilter;
 import com.example.bankcards.dto.filter.CardFilter;
 import com.example.bankcards.dto.request.CreateCardRequest;
 import com.example.bankcards.dto.response.BankCardResponse;
+import com.example.bankcards.dto.response.LedgerReconcileResponse;
+import com.example.bankcards.dto.response.LockStripeStatsResponse;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.transfer.CardBalanceShards;
+import com.example.bankcards.service.transfer.CardLockManager;
+import com.example.bankcards.service.transfer.LedgerService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.junit.jupiter.api.BeforeEach;
@@ -51,6 +56,15 @@ class AdminCardControllerTest {
     @MockBean
     private CardService cardService;
 
+    @MockBean
+    private CardLockManager cardLockManager;
+
+    @MockBean
+    private CardBalanceShards cardBalanceShards;
+
+    @MockBean
+    private LedgerService ledgerService;
+
     @BeforeEach
     void setup() {
         objectMapper.registerModule(new JavaTimeModule());
@@ -345,4 +359,44 @@ class AdminCardControllerTest {
                 .andExpect(jsonPath("$.id").value(3))
                 .andExpect(jsonPath("$.cardHolder").value("JOHN SMITH"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void getHotLockStripes_Success() throws Exception {
+        LockStripeStatsResponse stripe = LockStripeStatsResponse.builder()
+                .stripe(7)
+                .acquisitions(120)
+                .contended(40)
+                .lastContendedCardId(42L)
+                .build();
+
+        when(cardLockManager.hotStripes(5)).thenReturn(List.of(stripe));
+
+        mockMvc.perform(get("/api/admin/cards/lock-stripes").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].stripe").value(7))
+                .andExpect(jsonPath("$[0].lastContendedCardId").value(42));
+    }
+
+    @Test
+    void configureBalanceSlots_Success() throws Exception {
+        mockMvc.perform(put("/api/admin/cards/1/balance-slots").param("slots", "8"))
+                .andExpect(status().isOk());
+
+        verify(cardBalanceShards).configure(1L, 8);
+    }
+
+    @Test
+    void reconcileLedger_Success() throws Exception {
+        when(ledgerService.reconcile(true)).thenReturn(LedgerReconcileResponse.builder()
+                .checkedCards(10)
+                .driftedCards(0)
+                .repaired(true)
+                .drifts(List.of())
+                .build());
+
+        mockMvc.perform(post("/api/admin/cards/ledger/reconcile").param("repair", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.checkedCards").value(10))
+                .andExpect(jsonPath("$.repaired").value(true));
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.AuditLogBatchRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.AuditService;
+import com.example.bankcards.service.audit.AuditEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc(addFilters = false)
+@ActiveProfiles("test")
+@Import(AuditControllerQueryCountTest.StatementCounterConfig.class)
+class AuditControllerQueryCountTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    @Autowired
+    private AuditLogBatchRepository batchRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<User> users = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM audit_logs");
+        users.clear();
+        for (int i = 0; i < 5; i++) {
+            String username = "query_count_" + i;
+            users.add(userRepository.findByUsername(username).orElseGet(() -> userRepository.save(User.builder()
+                    .username(username)
+                    .password("password")
+                    .email(username + "@test.com")
+                    .role(User.Role.USER)
+                    .enabled(true)
+                    .build())));
+        }
+
+        List<AuditEvent> events = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 30; i++) {
+            events.add(new AuditEvent(AuditService.Actions.USER_LOGIN, AuditService.EntityTypes.USER, (long) i,
+                    AuditService.details("attempt", i), users.get(i % users.size()).getId(), "127.0.0.1", "junit",
+                    now.minusMinutes(i)));
+        }
+        batchRepository.insert(events);
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void searchPage_IsPageAndCountStatements() throws Exception {
+        statementCounter.watchCurrentThread();
+
+        mockMvc.perform(get("/api/admin/audit").param("size", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(20))
+                .andExpect(jsonPath("$.totalElements").value(30))
+                .andExpect(jsonPath("$.content[0].username").value("query_count_0"));
+
+        assertEquals(2, statementCounter.count());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void userPage_IsPageAndCountStatements() throws Exception {
+        statementCounter.watchCurrentThread();
+
+        mockMvc.perform(get("/api/admin/audit/user/" + users.get(1).getId()).param("size", "4"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(4))
+                .andExpect(jsonPath("$.totalElements").value(6))
+                .andExpect(jsonPath("$.content[0].username").value("query_count_1"));
+
+        assertEquals(2, statementCounter.count());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void partialPage_SkipsCount() throws Exception {
+        statementCounter.watchCurrentThread();
+
+        mockMvc.perform(get("/api/admin/audit/user/" + users.get(1).getId()).param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(6))
+                .andExpect(jsonPath("$.totalElements").value(6));
+
+        assertEquals(1, statementCounter.count());
+    }
+
+    @TestConfiguration
+    static class StatementCounterConfig {
+
+        @Bean
+        static StatementCounter statementCounter() {
+            return new StatementCounter();
+        }
+    }
+
+    // Counts statements prepared on one thread, so background work such as transfer settlement
+    // does not affect the result.
+    static class StatementCounter implements BeanPostProcessor {
+
+        private static final Set<String> STATEMENT_METHODS = Set.of("prepareStatement", "prepareCall", "createStatement");
+
+        private final AtomicInteger statements = new AtomicInteger();
+        private volatile Thread watched;
+
+        void watchCurrentThread() {
+            statements.set(0);
+            watched = Thread.currentThread();
+        }
+
+        int count() {
+            return statements.get();
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof DataSource dataSource) {
+                return proxy(DataSource.class, dataSource, (method, result) ->
+                        result instanceof Connection connection ? proxy(Connection.class, connection, (m, r) -> {
+                            if (STATEMENT_METHODS.contains(m.getName()) && Thread.currentThread() == watched) {
+                                statements.incrementAndGet();
+                            }
+                            return r;
+                        }) : result);
+            }
+            return bean;
+        }
+
+        private interface Interceptor {
+            Object after(Method method, Object result);
+        }
+
+        private static <T> T proxy(Class<T> type, T target, Interceptor interceptor) {
+            return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+                try {
+                    return interceptor.after(method, method.invoke(target, args));
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }));
+        }
+    }
+}
@@ -1,8 +1,12 @@
 package com.example.bankcards.controller;
 
-import com.example.bankcards.entity.AuditLog;
+import com.example.bankcards.dto.response.AuditLogResponse;
+import com.example.bankcards.dto.response.AuditStatsResponse;
+import com.example.bankcards.dto.response.CursorPageResponse;
 import com.example.bankcards.config.JwtAuthenticationFilter;
 import com.example.bankcards.service.AuditService;
+import com.example.bankcards.service.audit.AuditLogExporter;
+import com.example.bankcards.service.audit.AuditRollupService;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,12 +17,16 @@ import org.springframework.context.annotation.ComponentScan;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -39,23 +47,26 @@ class AuditControllerTest {
     @MockBean
     private AuditService auditService;
 
+    @MockBean
+    private AuditRollupService auditRollupService;
+
     @Test
     void getAuditLogs_Success() throws Exception {
-        AuditLog log1 = AuditLog.builder()
+        AuditLogResponse log1 = AuditLogResponse.builder()
                 .id(1L)
                 .action("CREATE")
                 .entityType("CARD")
                 .createdAt(LocalDateTime.now())
                 .build();
 
-        AuditLog log2 = AuditLog.builder()
+        AuditLogResponse log2 = AuditLogResponse.builder()
                 .id(2L)
                 .action("UPDATE")
                 .entityType("USER")
                 .createdAt(LocalDateTime.now())
                 .build();
 
-        Page<AuditLog> page = new PageImpl<>(List.of(log1, log2));
+        Page<AuditLogResponse> page = new PageImpl<>(List.of(log1, log2));
 
         when(auditService.searchAuditLogs(any(), any(), any(), any(), any(), any()))
                 .thenReturn(page);
@@ -72,14 +83,14 @@ class AuditControllerTest {
 
     @Test
     void getUserAuditLogs_Success() throws Exception {
-        AuditLog log = AuditLog.builder()
+        AuditLogResponse log = AuditLogResponse.builder()
                 .id(1L)
                 .action("LOGIN")
                 .entityType("USER")
                 .createdAt(LocalDateTime.now())
                 .build();
 
-        Page<AuditLog> page = new PageImpl<>(List.of(log));
+        Page<AuditLogResponse> page = new PageImpl<>(List.of(log));
 
         when(auditService.getUserAuditLogs(anyLong(), any())).thenReturn(page);
 
@@ -91,4 +102,78 @@ class AuditControllerTest {
                 .andExpect(jsonPath("$.content[0].action").value("LOGIN"))
                 .andExpect(jsonPath("$.content[0].entityType").value("USER"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void getAuditLogFeed_Success() throws Exception {
+        CursorPageResponse<AuditLogResponse> page = CursorPageResponse.<AuditLogResponse>builder()
+                .items(List.of(AuditLogResponse.builder().id(5L).action("USER_LOGIN").userId(3L)
+                        .createdAt(LocalDateTime.now()).build()))
+                .nextCursor("next")
+                .hasMore(true)
+                .approximateTotal(120L)
+                .build();
+
+        when(auditService.getAuditLogFeed(eq(3L), isNull(), isNull(), isNull(), isNull(), eq("abc"), eq(1), eq(true)))
+                .thenReturn(page);
+
+        mockMvc.perform(get("/api/admin/audit/feed")
+                        .param("userId", "3")
+                        .param("cursor", "abc")
+                        .param("size", "1")
+                        .param("includeTotal", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value(5))
+                .andExpect(jsonPath("$.items[0].userId").value(3))
+                .andExpect(jsonPath("$.nextCursor").value("next"))
+                .andExpect(jsonPath("$.approximateTotal").value(120));
+    }
+
+    @Test
+    void getAuditLogFeed_WithoutTotal_OmitsIt() throws Exception {
+        when(auditService.getAuditLogFeed(isNull(), isNull(), isNull(), isNull(), isNull(), isNull(), eq(50), eq(false)))
+                .thenReturn(CursorPageResponse.<AuditLogResponse>builder().items(List.of()).build());
+
+        mockMvc.perform(get("/api/admin/audit/feed"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hasMore").value(false))
+                .andExpect(jsonPath("$.approximateTotal").doesNotExist());
+    }
+
+    @Test
+    void exportAuditLogs_StreamsAttachment() throws Exception {
+        StreamingResponseBody body = out -> out.write("{\"id\":1}\n".getBytes(StandardCharsets.UTF_8));
+        when(auditService.exportAuditLogs(isNull(), eq("USER_LOGIN"), isNull(), isNull(), isNull(),
+                eq(AuditLogExporter.Format.NDJSON), eq(false))).thenReturn(body);
+
+        MvcResult result = mockMvc.perform(get("/api/admin/audit/export")
+                        .param("action", "USER_LOGIN")
+                        .param("format", "ndjson"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"audit-logs.ndjson\""))
+                .andExpect(content().string("{\"id\":1}\n"));
+    }
+
+    @Test
+    void exportAuditLogs_UnknownFormat_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(get("/api/admin/audit/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getAuditStats_Success() throws Exception {
+        LocalDateTime bucket = LocalDateTime.of(2024, 5, 1, 10, 0);
+        when(auditRollupService.getStats(any(), any(), eq("USER_LOGIN"), isNull()))
+                .thenReturn(List.of(AuditStatsResponse.builder()
+                        .bucket(bucket).action("USER_LOGIN").entityType("User").count(42).build()));
+
+        mockMvc.perform(get("/api/admin/audit/stats").param("action", "USER_LOGIN"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].action").value("USER_LOGIN"))
+                .andExpect(jsonPath("$[0].count").value(42));
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.entity.CustomUserDetails;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.JwtService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Measures p99 latency of card listing alone and under a login flood. With password hashing
+ * confined to its own pool, the flood costs at most that pool's cores and the rest is turned
+ * away with 503, so listing p99 may grow by no more than {@link #P99_MARGIN_MS}.
+ * <p>
+ * Needs at least {@link #REQUIRED_CORES} cores to itself: {@link #HASHING_THREADS} for
+ * hashing, the rest for the server and the clients, with no other load on the machine. Run with
+ * {@code mvn test -Dtest=LoginFloodBenchmarkTest -Dbenchmark=true}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "security.password-hashing.threads=" + LoginFloodBenchmarkTest.HASHING_THREADS)
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class LoginFloodBenchmarkTest {
+
+    private static final int SAMPLES = 500;
+    private static final int FLOOD_CLIENTS = 64;
+    static final int HASHING_THREADS = 2;
+    private static final int REQUIRED_CORES = HASHING_THREADS + 2;
+    private static final long P99_MARGIN_MS = 10;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private JwtService jwtService;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private String token;
+
+    @BeforeEach
+    void setUp() {
+        User user = userRepository.findByUsername("flood_user").orElseGet(() -> userRepository.save(User.builder()
+                .username("flood_user")
+                .password(passwordEncoder.encode("password"))
+                .email("flood_user@test.com")
+                .role(User.Role.USER)
+                .enabled(true)
+                .build()));
+        token = jwtService.generateToken(new CustomUserDetails(user.getId(), user.getUsername(), user.getPassword(),
+                user.getEmail(), true, user.getTokenVersion(), user.getAuthorities()));
+    }
+
+    @Test
+    void cardListingP99_StaysFlatUnderLoginFlood(TestReporter reporter) throws Exception {
+        assertTrue(Runtime.getRuntime().availableProcessors() >= REQUIRED_CORES,
+                "the benchmark needs " + REQUIRED_CORES + " cores, found " + Runtime.getRuntime().availableProcessors());
+        measureCardListing(100);
+        long baseline = measureCardListing(SAMPLES);
+
+        AtomicBoolean flooding = new AtomicBoolean(true);
+        Map<Integer, LongAdder> loginStatuses = new ConcurrentHashMap<>();
+        ExecutorService flood = Executors.newFixedThreadPool(FLOOD_CLIENTS);
+        for (int i = 0; i < FLOOD_CLIENTS; i++) {
+            flood.submit(() -> {
+                while (flooding.get()) {
+                    int status = send(HttpRequest.newBuilder(uri("/api/auth/login"))
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString(
+                                    "{\"username\":\"flood_user\",\"password\":\"password\"}"))
+                            .build());
+                    loginStatuses.computeIfAbsent(status, key -> new LongAdder()).increment();
+                    if (status == 503) {
+                        // Clients honour Retry-After, if more eagerly than the second it asks for.
+                        Thread.sleep(100);
+                    }
+                }
+                return null;
+            });
+        }
+
+        Thread.sleep(1000);
+        long underFlood;
+        try {
+            underFlood = measureCardListing(SAMPLES);
+        } finally {
+            flooding.set(false);
+            flood.shutdown();
+            flood.awaitTermination(30, TimeUnit.SECONDS);
+        }
+
+        reporter.publishEntry(Map.of(
+                "cardListingP99AloneMs", "%.1f".formatted(baseline / 1e6),
+                "cardListingP99UnderFloodMs", "%.1f".formatted(underFlood / 1e6),
+                "loginResponses", loginStatuses.toString()));
+        assertTrue(underFlood <= baseline + TimeUnit.MILLISECONDS.toNanos(P99_MARGIN_MS),
+                "card listing p99 grew from " + baseline / 1e6 + " ms to " + underFlood / 1e6 + " ms");
+    }
+
+    private long measureCardListing(int samples) {
+        long[] latencies = new long[samples];
+        HttpRequest request = HttpRequest.newBuilder(uri("/api/user/cards"))
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build();
+        for (int i = 0; i < samples; i++) {
+            long start = System.nanoTime();
+            assertEquals(200, send(request));
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+        return latencies[(int) Math.ceil(samples * 0.99) - 1];
+    }
+
+    private int send(HttpRequest request) {
+        try {
+            return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+}
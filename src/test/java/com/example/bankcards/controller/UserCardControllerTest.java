@@ -1,11 +1,24 @@
 package com.example.bankcards.controller;
 
+import com.example.bankcards.dto.request.BatchTransferRequest;
 import com.example.bankcards.dto.request.CardTransferRequest;
 import com.example.bankcards.dto.response.BankCardResponse;
+import com.example.bankcards.dto.response.BatchTransferResponse;
+import com.example.bankcards.dto.response.CursorPageResponse;
+import com.example.bankcards.dto.response.TransferItemResult;
+import com.example.bankcards.dto.response.TransferStatusResponse;
 import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardTransaction;
+import com.example.bankcards.exception.IdempotencyKeyReuseException;
+import com.example.bankcards.exception.TransactionNotFoundException;
 import com.example.bankcards.service.AuthenticationService;
 import com.example.bankcards.service.CardService;
 import com.example.bankcards.service.JwtService;
+import com.example.bankcards.service.TokenRevocationRegistry;
+import com.example.bankcards.service.transfer.AsyncTransferService;
+import com.example.bankcards.service.transfer.BatchTransferService;
+import com.example.bankcards.service.transfer.LedgerService;
+import com.example.bankcards.service.transfer.TransferIdempotencyService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -19,6 +32,7 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 
 import static org.mockito.ArgumentMatchers.*;
@@ -45,6 +59,21 @@ class UserCardControllerTest {
     @MockBean
     private JwtService jwtService;
 
+    @MockBean
+    private TokenRevocationRegistry tokenRevocationRegistry;
+
+    @MockBean
+    private BatchTransferService batchTransferService;
+
+    @MockBean
+    private TransferIdempotencyService idempotencyService;
+
+    @MockBean
+    private AsyncTransferService asyncTransferService;
+
+    @MockBean
+    private LedgerService ledgerService;
+
     @BeforeEach
     void setUp() {
         when(authenticationService.getCurrentUserId()).thenReturn(1L);
@@ -91,6 +120,42 @@ class UserCardControllerTest {
                 .andExpect(content().string("1500.5"));
     }
 
+    @Test
+    void getCardTransactions_Success() throws Exception {
+        TransferStatusResponse item = TransferStatusResponse.builder()
+                .id(9L)
+                .fromCardId(5L)
+                .toCardId(6L)
+                .amount(new BigDecimal("10.00"))
+                .status(CardTransaction.TransactionStatus.SUCCESS)
+                .build();
+        when(cardService.getCardTransactions(5L, 1L, "abc", 20)).thenReturn(
+                CursorPageResponse.<TransferStatusResponse>builder()
+                        .items(List.of(item))
+                        .hasMore(true)
+                        .nextCursor("def")
+                        .build());
+
+        mockMvc.perform(get("/api/user/cards/5/transactions").param("cursor", "abc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value(9))
+                .andExpect(jsonPath("$.hasMore").value(true))
+                .andExpect(jsonPath("$.nextCursor").value("def"));
+    }
+
+    @Test
+    void getCardBalanceAt_Success() throws Exception {
+        LocalDateTime at = LocalDateTime.of(2024, 3, 1, 12, 0);
+        when(ledgerService.balanceAt(5L, at)).thenReturn(new BigDecimal("250.00"));
+
+        mockMvc.perform(get("/api/user/cards/5/balance").param("at", "2024-03-01T12:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.cardId").value(5))
+                .andExpect(jsonPath("$.balance").value(250.00));
+
+        verify(cardService).getUserCardById(5L, 1L);
+    }
+
     @Test
     void transferBetweenCards_Success() throws Exception {
         Long userId = 1L;
@@ -99,7 +164,8 @@ class UserCardControllerTest {
         request.setToCardId(2L);
         request.setAmount(BigDecimal.valueOf(100));
 
-        doNothing().when(cardService).transferBetweenCards(any(CardTransferRequest.class), eq(userId));
+        when(cardService.transferBetweenCards(any(CardTransferRequest.class), eq(userId)))
+                .thenReturn(CardTransaction.builder().id(10L).build());
 
         mockMvc.perform(post("/api/user/cards/transfer")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -107,6 +173,168 @@ class UserCardControllerTest {
                 .andExpect(status().isOk());
 
         verify(cardService, times(1)).transferBetweenCards(any(), eq(userId));
+        verify(idempotencyService, never()).execute(any(), any(), any(), any());
+    }
+
+    @Test
+    void transferBetweenCards_ReplayedWithIdempotencyKey() throws Exception {
+        CardTransferRequest request = new CardTransferRequest(1L, 2L, BigDecimal.valueOf(100));
+
+        when(idempotencyService.execute(eq(1L), eq("key-1"), any(CardTransferRequest.class), any()))
+                .thenReturn(new TransferIdempotencyService.TransferOutcome(10L, true));
+
+        mockMvc.perform(post("/api/user/cards/transfer")
+                        .header("Idempotency-Key", "key-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Idempotent-Replayed", "true"));
+
+        verify(cardService, never()).transferBetweenCards(any(), any());
+    }
+
+    @Test
+    void transferBetweenCards_IdempotencyKeyReuseConflict() throws Exception {
+        CardTransferRequest request = new CardTransferRequest(1L, 2L, BigDecimal.valueOf(100));
+
+        when(idempotencyService.execute(eq(1L), eq("key-1"), any(CardTransferRequest.class), any()))
+                .thenThrow(new IdempotencyKeyReuseException("Idempotency key key-1 was already used with a different request"));
+
+        mockMvc.perform(post("/api/user/cards/transfer")
+                        .header("Idempotency-Key", "key-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void transferBetweenCards_InvalidIdempotencyKey_ReturnsBadRequest() throws Exception {
+        CardTransferRequest request = new CardTransferRequest(1L, 2L, BigDecimal.valueOf(100));
+
+        for (String key : new String[]{"k".repeat(256), "ключ"}) {
+            mockMvc.perform(post("/api/user/cards/transfer")
+                            .header("Idempotency-Key", key)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isBadRequest());
+        }
+
+        verify(idempotencyService, never()).execute(any(), any(), any(), any());
+        verify(cardService, never()).transferBetweenCards(any(), any());
+    }
+
+    @Test
+    void transferBetweenCards_AsyncAccepted() throws Exception {
+        CardTransferRequest request = new CardTransferRequest(1L, 2L, BigDecimal.valueOf(100));
+        TransferStatusResponse status = TransferStatusResponse.builder()
+                .id(10L)
+                .fromCardId(1L)
+                .toCardId(2L)
+                .amount(BigDecimal.valueOf(100))
+                .status(CardTransaction.TransactionStatus.PENDING)
+                .build();
+
+        when(asyncTransferService.isEnabled()).thenReturn(true);
+        when(asyncTransferService.submit(any(CardTransferRequest.class), eq(1L)))
+                .thenReturn(CardTransaction.builder().id(10L).build());
+        when(cardService.getUserTransfer(10L, 1L)).thenReturn(status);
+
+        mockMvc.perform(post("/api/user/cards/transfer")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.id").value(10))
+                .andExpect(jsonPath("$.status").value("PENDING"));
+
+        verify(cardService, never()).transferBetweenCards(any(), any());
+    }
+
+    @Test
+    void getTransfer_Success() throws Exception {
+        TransferStatusResponse status = TransferStatusResponse.builder()
+                .id(10L)
+                .status(CardTransaction.TransactionStatus.FAILED)
+                .failureReason("Insufficient funds")
+                .build();
+
+        when(cardService.getUserTransfer(10L, 1L)).thenReturn(status);
+
+        mockMvc.perform(get("/api/user/cards/transactions/10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("FAILED"))
+                .andExpect(jsonPath("$.failureReason").value("Insufficient funds"));
+    }
+
+    @Test
+    void getTransfer_NotFound() throws Exception {
+        when(cardService.getUserTransfer(99L, 1L))
+                .thenThrow(new TransactionNotFoundException("Transaction not found or doesn't belong to user"));
+
+        mockMvc.perform(get("/api/user/cards/transactions/99"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void transferBatch_Committed() throws Exception {
+        BatchTransferRequest request = BatchTransferRequest.builder()
+                .transfers(List.of(
+                        new CardTransferRequest(1L, 2L, BigDecimal.valueOf(100)),
+                        new CardTransferRequest(2L, 3L, BigDecimal.valueOf(50))))
+                .build();
+
+        BatchTransferResponse response = BatchTransferResponse.builder()
+                .atomic(true)
+                .committed(true)
+                .succeeded(2)
+                .results(List.of(
+                        TransferItemResult.builder().index(0).status(TransferItemResult.Status.SUCCESS).build(),
+                        TransferItemResult.builder().index(1).status(TransferItemResult.Status.SUCCESS).build()))
+                .build();
+
+        when(batchTransferService.transferBatch(any(BatchTransferRequest.class), eq(1L))).thenReturn(response);
+
+        mockMvc.perform(post("/api/user/cards/transfers/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.succeeded").value(2))
+                .andExpect(jsonPath("$.results[1].status").value("SUCCESS"));
+    }
+
+    @Test
+    void transferBatch_RolledBack() throws Exception {
+        BatchTransferRequest request = BatchTransferRequest.builder()
+                .transfers(List.of(new CardTransferRequest(1L, 2L, BigDecimal.valueOf(100))))
+                .build();
+
+        BatchTransferResponse response = BatchTransferResponse.builder()
+                .atomic(true)
+                .committed(false)
+                .failed(1)
+                .results(List.of(TransferItemResult.builder()
+                        .index(0)
+                        .status(TransferItemResult.Status.FAILED)
+                        .error("Insufficient funds")
+                        .build()))
+                .build();
+
+        when(batchTransferService.transferBatch(any(BatchTransferRequest.class), eq(1L))).thenReturn(response);
+
+        mockMvc.perform(post("/api/user/cards/transfers/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.results[0].error").value("Insufficient funds"));
+    }
+
+    @Test
+    void transferBatch_EmptyBatchRejected() throws Exception {
+        mockMvc.perform(post("/api/user/cards/transfers/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"transfers\": []}"))
+                .andExpect(status().isBadRequest());
+
+        verify(batchTransferService, never()).transferBatch(any(), any());
     }
 
     @Test
@@ -0,0 +1,239 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.response.AuditLogResponse;
+import com.example.bankcards.dto.response.CursorPageResponse;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.AuditLogBatchRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.audit.AuditEvent;
+import com.example.bankcards.service.audit.AuditLogExporter;
+import com.example.bankcards.util.RangedKeysetCursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class AuditServiceIntegrationTest {
+
+    @Autowired
+    private AuditService auditService;
+
+    @Autowired
+    private AuditLogBatchRepository batchRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final PageRequest newestFirst = PageRequest.of(0, 50, Sort.by(Sort.Direction.DESC, "createdAt"));
+    private final LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+
+    private User alice;
+    private User bob;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM audit_logs");
+        jdbcTemplate.update("DELETE FROM user_balances");
+        userRepository.findByUsername("audit_alice").ifPresent(userRepository::delete);
+        userRepository.findByUsername("audit_bob").ifPresent(userRepository::delete);
+
+        alice = userRepository.save(user("audit_alice"));
+        bob = userRepository.save(user("audit_bob"));
+
+        batchRepository.insert(List.of(
+                event(AuditService.Actions.USER_LOGIN, AuditService.EntityTypes.USER, alice.getId(), now.minusDays(1)),
+                event(AuditService.Actions.CARD_CREATED, AuditService.EntityTypes.BANK_CARD, alice.getId(), now.minusDays(2)),
+                event(AuditService.Actions.USER_LOGIN, AuditService.EntityTypes.USER, bob.getId(), now.minusDays(3)),
+                event(AuditService.Actions.USER_LOGIN, AuditService.EntityTypes.USER, alice.getId(), now.minusMonths(3))));
+    }
+
+    @Test
+    void search_WithoutFilters_DefaultsToLastMonth() {
+        Page<AuditLogResponse> page = auditService.searchAuditLogs(null, null, null, null, null, newestFirst);
+
+        assertEquals(3, page.getTotalElements());
+        assertEquals(AuditService.Actions.USER_LOGIN, page.getContent().get(0).getAction());
+        assertEquals("audit_alice", page.getContent().get(0).getUsername());
+    }
+
+    @Test
+    void search_AppliesOnlySuppliedFilters() {
+        assertEquals(2, auditService.searchAuditLogs(alice.getId(), null, null, null, null, newestFirst)
+                .getTotalElements());
+        assertEquals(2, auditService.searchAuditLogs(null, AuditService.Actions.USER_LOGIN, null, null, null, newestFirst)
+                .getTotalElements());
+        assertEquals(1, auditService.searchAuditLogs(alice.getId(), AuditService.Actions.USER_LOGIN,
+                AuditService.EntityTypes.USER, null, null, newestFirst).getTotalElements());
+        assertEquals(1, auditService.searchAuditLogs(null, null, AuditService.EntityTypes.BANK_CARD,
+                null, null, newestFirst).getTotalElements());
+    }
+
+    @Test
+    void search_HonoursExplicitRange() {
+        Page<AuditLogResponse> page = auditService.searchAuditLogs(alice.getId(), null, null,
+                now.minusMonths(4), now.minusMonths(2), newestFirst);
+
+        assertEquals(1, page.getTotalElements());
+    }
+
+    @Test
+    void search_UnknownActionOrEntityType_AddsNoDictionaryRows() {
+        assertEquals(0, auditService.searchAuditLogs(null, "NEVER_LOGGED", null, null, null, newestFirst)
+                .getTotalElements());
+        assertEquals(0, auditService.searchAuditLogs(null, null, "NeverLogged", null, null, newestFirst)
+                .getTotalElements());
+
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM audit_actions WHERE name = 'NEVER_LOGGED'", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM audit_entity_types WHERE name = 'NeverLogged'", Integer.class));
+    }
+
+    @Test
+    void feed_WalksPagesByCursor() {
+        CursorPageResponse<AuditLogResponse> first = auditService.getAuditLogFeed(
+                null, null, null, null, null, null, 2, true);
+
+        assertEquals(List.of(now.minusDays(1), now.minusDays(2)),
+                first.getItems().stream().map(AuditLogResponse::getCreatedAt).toList());
+        assertTrue(first.isHasMore());
+        assertEquals(3L, first.getApproximateTotal());
+        RangedKeysetCursor next = RangedKeysetCursor.decode(first.getNextCursor());
+        assertEquals(next.endDate().minusMonths(1), next.startDate());
+        assertFalse(next.endDate().isBefore(now));
+
+        CursorPageResponse<AuditLogResponse> second = auditService.getAuditLogFeed(
+                null, null, null, null, null, first.getNextCursor(), 2, true);
+
+        assertEquals(1, second.getItems().size());
+        assertEquals(bob.getId(), second.getItems().get(0).getUserId());
+        assertFalse(second.isHasMore());
+        assertNull(second.getNextCursor());
+        assertNull(second.getApproximateTotal());
+    }
+
+    @Test
+    void feed_BreaksTimestampTiesById() {
+        jdbcTemplate.update("DELETE FROM audit_logs");
+        LocalDateTime same = now.minusHours(1);
+        batchRepository.insert(List.of(
+                event(AuditService.Actions.USER_LOGIN, null, alice.getId(), same),
+                event(AuditService.Actions.USER_LOGIN, null, alice.getId(), same),
+                event(AuditService.Actions.USER_LOGIN, null, alice.getId(), same)));
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPageResponse<AuditLogResponse> page = auditService.getAuditLogFeed(
+                    alice.getId(), null, null, null, null, cursor, 1, false);
+            page.getItems().forEach(item -> seen.add(item.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(3, seen.size());
+        assertEquals(seen.stream().sorted(Comparator.reverseOrder()).toList(), seen);
+    }
+
+    @Test
+    void export_StreamsNdjsonInChronologicalOrder() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        auditService.exportAuditLogs(null, null, AuditService.EntityTypes.USER, null, null,
+                AuditLogExporter.Format.NDJSON, false).writeTo(out);
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).contains("\"userId\":" + bob.getId()));
+        assertTrue(lines.get(1).contains("\"userId\":" + alice.getId()));
+    }
+
+    @Test
+    void export_WritesEscapedGzippedCsv() throws Exception {
+        batchRepository.insert(List.of(new AuditEvent("EXPORT_CHECK", null, null, Map.of("note", "said, twice"),
+                null, "127.0.0.1", "junit", now.minusHours(1))));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        auditService.exportAuditLogs(null, "EXPORT_CHECK", null, null, null,
+                AuditLogExporter.Format.CSV, true).writeTo(out);
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            List<String> lines = new String(in.readAllBytes(), StandardCharsets.UTF_8).lines().toList();
+            assertEquals(2, lines.size());
+            assertTrue(lines.get(0).startsWith("id,action,"));
+            assertTrue(lines.get(1).contains(",EXPORT_CHECK,,,\"{\"\"note\"\":\"\"said, twice\"\"}\",,127.0.0.1,junit,"));
+        }
+    }
+
+    @Test
+    void compactRows_ResolveThroughDictionaries() {
+        batchRepository.insert(List.of(
+                new AuditEvent("DICTIONARY_CHECK", AuditService.EntityTypes.BANK_CARD, 9L,
+                        AuditService.details("userId", alice.getId(), "amount", new BigDecimal("12.50")),
+                        alice.getId(), "unknown", "junit", now.minusHours(1)),
+                new AuditEvent("DICTIONARY_CHECK", AuditService.EntityTypes.BANK_CARD, 9L, null,
+                        alice.getId(), "2001:db8::1", "junit", now.minusHours(2))));
+
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM audit_actions WHERE name = 'DICTIONARY_CHECK'", Integer.class));
+
+        List<AuditLogResponse> items = auditService.getAuditLogFeed(null, "DICTIONARY_CHECK", null, null, null,
+                null, 10, false).getItems();
+        assertEquals(2, items.size());
+        assertEquals(AuditService.EntityTypes.BANK_CARD, items.get(0).getEntityType());
+        assertEquals("junit", items.get(0).getUserAgent());
+        assertEquals("{\"userId\":" + alice.getId() + ",\"amount\":12.50}", items.get(0).getDetails());
+        assertNull(items.get(0).getIpAddress());
+        assertEquals("2001:db8::1", items.get(1).getIpAddress());
+
+        Page<AuditLogResponse> page = auditService.searchAuditLogs(null, "DICTIONARY_CHECK", null, null, null, newestFirst);
+        assertEquals(AuditService.EntityTypes.BANK_CARD, page.getContent().get(0).getEntityType());
+    }
+
+    @Test
+    void search_ForUnknownAction_DoesNotGrowDictionary() {
+        assertEquals(0, auditService.searchAuditLogs(null, "NEVER_LOGGED", null, null, null, newestFirst)
+                .getTotalElements());
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM audit_actions WHERE name = 'NEVER_LOGGED'", Integer.class));
+    }
+
+    private AuditEvent event(String action, String entityType, Long userId, LocalDateTime createdAt) {
+        return new AuditEvent(action, entityType, 1L, null, userId, "127.0.0.1", "junit", createdAt);
+    }
+
+    private User user(String username) {
+        return User.builder()
+                .username(username)
+                .password("password")
+                .email(username + "@test.com")
+                .role(User.Role.USER)
+                .enabled(true)
+                .build();
+    }
+}
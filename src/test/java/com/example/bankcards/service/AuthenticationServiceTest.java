@@ -134,7 +134,7 @@ class AuthenticationServiceTest {
                 eq(AuditService.Actions.USER_LOGIN),
                 eq(AuditService.EntityTypes.USER),
                 eq(userId),
-                contains(username)
+                argThat(details -> username.equals(details.get("username")))
         );
     }
 }
\ No newline at end of file
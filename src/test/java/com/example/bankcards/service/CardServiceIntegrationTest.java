@@ -2,22 +2,36 @@ package com.example.bankcards.service;
 
 import com.example.bankcards.dto.request.CardTransferRequest;
 import com.example.bankcards.dto.request.CreateCardRequest;
+import com.example.bankcards.dto.response.CursorPageResponse;
+import com.example.bankcards.dto.response.TransferStatusResponse;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.repository.BankCardRepository;
 import com.example.bankcards.repository.UserRepository;
 import com.example.bankcards.service.encryption.EncryptionService;
+import com.example.bankcards.service.transfer.CardLockManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.transaction.TestTransaction;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.when;
@@ -36,6 +50,9 @@ class CardServiceIntegrationTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private CardLockManager cardLockManager;
+
     @MockBean
     private EncryptionService encryptionService;
 
@@ -105,6 +122,57 @@ class CardServiceIntegrationTest {
         assertEquals(new BigDecimal("700.00"), updatedCard2.get().getBalance());
     }
 
+    @Test
+    void transferInsideTransaction_KeepsCardsLockedUntilItCompletes() throws Exception {
+        cardService.transferBetweenCards(new CardTransferRequest(card1.getId(), card2.getId(), new BigDecimal("10.00")),
+                testUser.getId());
+
+        ExecutorService other = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> next = other.submit(() -> cardLockManager.lock(card2.getId(), card1.getId()).close());
+            assertThrows(TimeoutException.class, () -> next.get(200, TimeUnit.MILLISECONDS));
+
+            TestTransaction.end();
+            next.get(5, TimeUnit.SECONDS);
+        } finally {
+            other.shutdownNow();
+        }
+    }
+
+    @Test
+    void getCardTransactions_PagesThroughBothDirections() {
+        for (int i = 1; i <= 5; i++) {
+            boolean outgoing = i % 2 == 1;
+            CardTransferRequest request = new CardTransferRequest();
+            request.setFromCardId(outgoing ? card1.getId() : card2.getId());
+            request.setToCardId(outgoing ? card2.getId() : card1.getId());
+            request.setAmount(new BigDecimal(i + "0.00"));
+            cardService.transferBetweenCards(request, testUser.getId());
+        }
+
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            CursorPageResponse<TransferStatusResponse> page =
+                    cardService.getCardTransactions(card1.getId(), testUser.getId(), cursor, 2);
+            page.getItems().forEach(item -> ids.add(item.getId()));
+            cursor = page.getNextCursor();
+            pages++;
+            if (!page.isHasMore()) {
+                assertNull(cursor);
+            }
+        } while (cursor != null);
+
+        assertEquals(3, pages);
+        assertEquals(5, ids.size());
+        assertEquals(5, ids.stream().distinct().count());
+        for (int i = 1; i < ids.size(); i++) {
+            assertTrue(ids.get(i - 1) > ids.get(i));
+        }
+        assertFalse(cardService.getCardTransactions(card2.getId(), testUser.getId(), null, 10).isHasMore());
+    }
+
     @Test
     void getTotalBalance_IntegrationTest() {
         BigDecimal totalBalance = cardService.getTotalBalance(testUser.getId());
@@ -11,6 +11,10 @@ import com.example.bankcards.repository.BankCardRepository;
 import com.example.bankcards.repository.CardTransactionRepository;
 import com.example.bankcards.repository.UserRepository;
 import com.example.bankcards.service.encryption.EncryptionService;
+import com.example.bankcards.service.transfer.CardBalanceShards;
+import com.example.bankcards.service.transfer.CardLockManager;
+import com.example.bankcards.service.transfer.TransferGroupCommitter;
+import com.example.bankcards.service.transfer.TransferSettlementProcessor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -45,6 +49,24 @@ class CardServiceUnitTest {
     @Mock
     private AuditService auditService;
 
+    @Mock
+    private TransferSettlementProcessor transferProcessor;
+
+    @Mock
+    private TransferGroupCommitter groupCommitter;
+
+    @Mock
+    private CardLockManager cardLockManager;
+
+    @Mock
+    private CardLockManager.Lease lease;
+
+    @Mock
+    private CardBalanceShards cardBalanceShards;
+
+    @Mock
+    private UserBalanceService userBalanceService;
+
     @InjectMocks
     private CardService cardService;
 
@@ -79,6 +101,8 @@ class CardServiceUnitTest {
                 .amount(new BigDecimal("100.00"))
                 .status(CardTransaction.TransactionStatus.SUCCESS)
                 .build();
+
+        lenient().when(cardLockManager.lock(any(), any())).thenReturn(lease);
     }
 
     @Test
@@ -118,33 +142,28 @@ class CardServiceUnitTest {
         request.setToCardId(2L);
         request.setAmount(new BigDecimal("100.00"));
 
-        Card fromCard = Card.builder()
-                .id(1L)
-                .balance(new BigDecimal("1000.00"))
-                .status(Card.CardStatus.ACTIVE)
-                .user(testUser)
-                .build();
+        when(transferProcessor.transferWithRetry(request, 1L)).thenReturn(testTransaction);
 
-        Card toCard = Card.builder()
-                .id(2L)
-                .balance(new BigDecimal("500.00"))
-                .status(Card.CardStatus.ACTIVE)
-                .user(testUser)
-                .build();
+        CardTransaction result = cardService.transferBetweenCards(request, 1L);
+
+        assertSame(testTransaction, result);
+        verify(cardLockManager).lock(1L, 2L);
+        verify(lease).closeAfterTransaction();
+        verify(groupCommitter, never()).submit(any(), any());
+        verify(cardRepository, never()).save(any());
+        verify(auditService, times(1)).logAction(any(), any(), any(), any());
+    }
 
-        when(cardRepository.findByIdAndUserId(1L, 1L))
-                .thenReturn(Optional.of(fromCard));
-        when(cardRepository.findByIdAndUserId(2L, 1L))
-                .thenReturn(Optional.of(toCard));
-        when(transactionRepository.save(any())).thenReturn(testTransaction);
+    @Test
+    void transferBetweenCards_UsesGroupCommitterWhenEnabled() {
+        CardTransferRequest request = new CardTransferRequest(1L, 2L, new BigDecimal("100.00"));
 
-        cardService.transferBetweenCards(request, 1L);
+        when(groupCommitter.isEnabled()).thenReturn(true);
+        when(groupCommitter.submit(request, 1L)).thenReturn(testTransaction);
 
-        verify(cardRepository, times(2)).save(any());
-        verify(transactionRepository, times(1)).save(any());
-        assertEquals(new BigDecimal("900.00"), fromCard.getBalance());
-        assertEquals(new BigDecimal("600.00"), toCard.getBalance());
-        verify(auditService, times(1)).logAction(any(), any(), any(), any());
+        assertSame(testTransaction, cardService.transferBetweenCards(request, 1L));
+
+        verify(transferProcessor, never()).transfer(any(), any());
     }
 
     @Test
@@ -154,29 +173,14 @@ class CardServiceUnitTest {
         request.setToCardId(2L);
         request.setAmount(new BigDecimal("1500.00"));
 
-        Card fromCard = Card.builder()
-                .id(1L)
-                .balance(new BigDecimal("1000.00"))
-                .status(Card.CardStatus.ACTIVE)
-                .user(testUser)
-                .build();
-
-        Card toCard = Card.builder()
-                .id(2L)
-                .balance(new BigDecimal("500.00"))
-                .status(Card.CardStatus.ACTIVE)
-                .user(testUser)
-                .build();
-
-        when(cardRepository.findByIdAndUserId(1L, 1L))
-                .thenReturn(Optional.of(fromCard));
-        when(cardRepository.findByIdAndUserId(2L, 1L))
-                .thenReturn(Optional.of(toCard));
+        when(transferProcessor.transferWithRetry(request, 1L))
+                .thenThrow(new InsufficientFundsException("Insufficient funds"));
 
         assertThrows(InsufficientFundsException.class, () ->
                 cardService.transferBetweenCards(request, 1L));
 
         verify(auditService, times(1)).logAction(any(), any());
+        verify(auditService, never()).logAction(any(), any(), any(), any());
     }
 
     @Test
@@ -186,13 +190,27 @@ class CardServiceUnitTest {
         request.setToCardId(2L);
         request.setAmount(new BigDecimal("100.00"));
 
-        when(cardRepository.findByIdAndUserId(1L, 1L))
-                .thenReturn(Optional.empty());
+        when(transferProcessor.transferWithRetry(request, 1L))
+                .thenThrow(new com.example.bankcards.exception.CardNotFoundException("Source card not found"));
 
         assertThrows(com.example.bankcards.exception.CardNotFoundException.class, () ->
                 cardService.transferBetweenCards(request, 1L));
     }
 
+    @Test
+    void transferBetweenCards_NonPositiveAmount() {
+        CardTransferRequest request = new CardTransferRequest();
+        request.setFromCardId(1L);
+        request.setToCardId(2L);
+        request.setAmount(BigDecimal.ZERO);
+
+        assertThrows(com.example.bankcards.exception.CardOperationException.class, () ->
+                cardService.transferBetweenCards(request, 1L));
+
+        verify(transferProcessor, never()).transfer(any(), any());
+        verify(groupCommitter, never()).submit(any(), any());
+    }
+
     @Test
     void blockCardByAdmin_Success() {
         Card activeCard = Card.builder()
@@ -250,7 +268,7 @@ class CardServiceUnitTest {
 
     @Test
     void getTotalBalance_Success() {
-        when(cardRepository.getTotalBalanceByUserId(1L))
+        when(userBalanceService.getTotal(1L))
                 .thenReturn(new BigDecimal("1500.00"));
 
         BigDecimal result = cardService.getTotalBalance(1L);
@@ -261,8 +279,8 @@ class CardServiceUnitTest {
 
     @Test
     void getTotalBalance_ZeroBalance() {
-        when(cardRepository.getTotalBalanceByUserId(1L))
-                .thenReturn(null);
+        when(userBalanceService.getTotal(1L))
+                .thenReturn(BigDecimal.ZERO);
 
         BigDecimal result = cardService.getTotalBalance(1L);
 
@@ -277,6 +295,7 @@ class CardServiceUnitTest {
         cardService.deleteCard(1L);
 
         verify(cardRepository, times(1)).deleteById(1L);
+        verify(userBalanceService, times(1)).adjust(testUser.getId(), BigDecimal.ZERO.negate());
         verify(auditService, times(1)).logAction(any(), any(), any(), any());
     }
 
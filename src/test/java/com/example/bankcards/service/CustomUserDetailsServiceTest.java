@@ -0,0 +1,87 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.CustomUserDetails;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CustomUserDetailsServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private CustomUserDetailsService userDetailsService;
+    private User alice;
+
+    @BeforeEach
+    void setUp() {
+        userDetailsService = new CustomUserDetailsService(userRepository, meterRegistry, 100, Duration.ofMinutes(5));
+        alice = User.builder()
+                .id(1L)
+                .username("alice")
+                .password("hash")
+                .email("alice@test.com")
+                .role(User.Role.USER)
+                .enabled(true)
+                .tokenVersion(2)
+                .build();
+    }
+
+    @Test
+    void loadUserByUsername_QueriesOnceAndHandsOutCopies() {
+        when(userRepository.findByUsername("alice")).thenReturn(Optional.of(alice));
+
+        CustomUserDetails first = (CustomUserDetails) userDetailsService.loadUserByUsername("alice");
+        first.eraseCredentials();
+        CustomUserDetails second = (CustomUserDetails) userDetailsService.loadUserByUsername("alice");
+        UserDetails byId = userDetailsService.loadUserById(1L);
+
+        verify(userRepository, times(1)).findByUsername("alice");
+        assertEquals("hash", second.getPassword());
+        assertEquals(2, second.getTokenVersion());
+        assertEquals("alice", byId.getUsername());
+        assertEquals(2.0, meterRegistry.get("cache.gets").tag("cache", "users.by-username").tag("result", "hit")
+                .functionCounter().count() + meterRegistry.get("cache.gets").tag("cache", "users.by-id")
+                .tag("result", "hit").functionCounter().count());
+        assertEquals(1, meterRegistry.get("users.load.latency").timer().count());
+    }
+
+    @Test
+    void evict_ReloadsChangedUser() {
+        when(userRepository.findByUsername("alice")).thenReturn(Optional.of(alice));
+        userDetailsService.loadUserByUsername("alice");
+
+        alice.setEnabled(false);
+        userDetailsService.evict(1L);
+
+        assertThrows(UsernameNotFoundException.class, () -> userDetailsService.loadUserByUsername("alice"));
+        verify(userRepository, times(2)).findByUsername("alice");
+    }
+
+    @Test
+    void loadUserByUsername_UnknownUserIsNotCached() {
+        when(userRepository.findByUsername("ghost")).thenReturn(Optional.empty());
+
+        assertThrows(UsernameNotFoundException.class, () -> userDetailsService.loadUserByUsername("ghost"));
+        assertThrows(UsernameNotFoundException.class, () -> userDetailsService.loadUserByUsername("ghost"));
+        verify(userRepository, times(2)).findByUsername("ghost");
+    }
+}
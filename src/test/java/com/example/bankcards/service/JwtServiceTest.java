@@ -0,0 +1,81 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.CustomUserDetails;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JwtServiceTest {
+
+    private static final String SECRET = "nmVx9H4tsqsY5qEW2+azmKmdq+Y/OltP0C+skqox30s=";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final JwtService jwtService = new JwtService(meterRegistry, SECRET, 60_000, 100, Duration.ofMinutes(10));
+    private final UserDetails alice = User.withUsername("alice").password("x").authorities(List.of()).build();
+
+    @Test
+    void verify_ParsesEachTokenOnce() {
+        String token = jwtService.generateToken(alice);
+
+        Claims first = jwtService.verify(token);
+        Claims second = jwtService.verify(token);
+
+        assertSame(first, second);
+        assertEquals("alice", jwtService.extractUsername(token));
+        assertEquals(2.0, hits());
+        assertTrue(jwtService.isTokenValid(first, alice));
+        assertFalse(jwtService.isTokenValid(first,
+                User.withUsername("bob").password("x").authorities(List.of()).build()));
+    }
+
+    @Test
+    void verify_RejectsTamperedToken() {
+        String token = jwtService.generateToken(alice);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        assertThrows(JwtException.class, () -> jwtService.verify(tampered));
+    }
+
+    @Test
+    void verify_RejectsExpiredTokenWithoutCachingIt() {
+        JwtService expiring = new JwtService(meterRegistry, SECRET, -1_000, 100, Duration.ofMinutes(10));
+        String token = expiring.generateToken(alice);
+
+        assertThrows(ExpiredJwtException.class, () -> expiring.verify(token));
+        assertThrows(ExpiredJwtException.class, () -> expiring.verify(token));
+    }
+
+    @Test
+    void principalOf_RebuildsUserFromClaims() {
+        CustomUserDetails user = new CustomUserDetails(7L, "alice", "hash", "alice@test.com", true, 3,
+                List.of(new SimpleGrantedAuthority("ROLE_ADMIN")));
+
+        CustomUserDetails principal = jwtService.principalOf(jwtService.verify(jwtService.generateToken(user)));
+
+        assertEquals(7L, principal.getId());
+        assertEquals("alice", principal.getUsername());
+        assertEquals(3, principal.getTokenVersion());
+        assertEquals(List.of(new SimpleGrantedAuthority("ROLE_ADMIN")), List.copyOf(principal.getAuthorities()));
+        assertNull(jwtService.principalOf(jwtService.verify(jwtService.generateToken(alice))));
+    }
+
+    private double hits() {
+        return meterRegistry.get("cache.gets").tag("cache", "jwt.claims").tag("result", "hit")
+                .functionCounter().count();
+    }
+}
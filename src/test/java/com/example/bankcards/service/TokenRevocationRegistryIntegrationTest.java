@@ -0,0 +1,173 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.CustomUserDetails;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.repository.UserTokenRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class TokenRevocationRegistryIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private TokenRevocationRegistry revocationRegistry;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @SpyBean
+    private CustomUserDetailsService userDetailsService;
+
+    @SpyBean
+    private UserTokenRepository userTokenRepository;
+
+    private User user;
+    private User admin;
+
+    @BeforeEach
+    void setUp() {
+        user = save("revocation_user", User.Role.USER);
+        admin = save("revocation_admin", User.Role.ADMIN);
+        revocationRegistry.refresh();
+        clearInvocations(userDetailsService);
+    }
+
+    @Test
+    void request_AuthenticatesFromClaimsWithoutLoadingUser() throws Exception {
+        mockMvc.perform(get("/api/user/cards").header("Authorization", bearer(user)))
+                .andExpect(status().isOk());
+
+        verify(userDetailsService, never()).loadUserByUsername(anyString());
+    }
+
+    @Test
+    void revokeTokens_RejectsOlderTokensOnly() throws Exception {
+        String before = bearer(user);
+
+        mockMvc.perform(post("/api/admin/users/" + user.getId() + "/revoke-tokens").header("Authorization", bearer(admin)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/user/cards").header("Authorization", before))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/user/cards").header("Authorization", bearer(user)))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void revokeTokens_ForUnknownUser_IsNotFound() throws Exception {
+        mockMvc.perform(post("/api/admin/users/999999/revoke-tokens").header("Authorization", bearer(admin)))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void refresh_PicksUpUsersDisabledElsewhere() {
+        String token = jwtService.generateToken(details(user));
+        CustomUserDetails principal = jwtService.principalOf(jwtService.verify(token));
+
+        assertEquals(user.getId(), principal.getId());
+        assertEquals(List.of("ROLE_USER"), principal.getAuthorities().stream().map(Object::toString).toList());
+        assertFalse(revocationRegistry.isRevoked(principal.getId(), principal.getTokenVersion()));
+
+        jdbcTemplate.update("UPDATE users SET enabled = FALSE WHERE id = ?", user.getId());
+        revocationRegistry.refresh();
+
+        assertTrue(revocationRegistry.isRevoked(principal.getId(), principal.getTokenVersion()));
+    }
+
+    @Test
+    void deletedUser_TokensAreRejected() throws Exception {
+        String token = bearer(user);
+        mockMvc.perform(get("/api/user/cards").header("Authorization", token))
+                .andExpect(status().isOk());
+
+        userRepository.deleteById(user.getId());
+
+        mockMvc.perform(get("/api/user/cards").header("Authorization", token))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void refresh_KeepsRevocationMadeAfterItsSnapshot() {
+        int before = details(userRepository.findById(user.getId()).orElseThrow()).getTokenVersion();
+        doAnswer(invocation -> {
+            @SuppressWarnings("unchecked")
+            Map<Long, Integer> snapshot = (Map<Long, Integer>) invocation.callRealMethod();
+            revocationRegistry.revokeAll(user.getId());
+            return snapshot;
+        }).when(userTokenRepository).findRevokedVersions();
+
+        revocationRegistry.refresh();
+
+        assertTrue(revocationRegistry.isRevoked(user.getId(), before));
+        assertFalse(revocationRegistry.isRevoked(user.getId(), before + 1));
+    }
+
+    @Test
+    void userUpdate_EvictsCachedDetails() {
+        userDetailsService.loadUserByUsername(user.getUsername());
+
+        User stored = userRepository.findById(user.getId()).orElseThrow();
+        stored.setRole(User.Role.ADMIN);
+        userRepository.save(stored);
+
+        assertEquals(List.of("ROLE_ADMIN"), userDetailsService.loadUserByUsername(user.getUsername())
+                .getAuthorities().stream().map(Object::toString).toList());
+    }
+
+    private String bearer(User user) {
+        return "Bearer " + jwtService.generateToken(details(userRepository.findById(user.getId()).orElseThrow()));
+    }
+
+    private CustomUserDetails details(User user) {
+        return new CustomUserDetails(user.getId(), user.getUsername(), user.getPassword(), user.getEmail(),
+                user.isEnabled(), user.getTokenVersion(), user.getAuthorities());
+    }
+
+    private User save(String username, User.Role role) {
+        userRepository.findByUsername(username).ifPresent(existing -> {
+            jdbcTemplate.update("DELETE FROM audit_logs WHERE user_id = ?", existing.getId());
+            userRepository.delete(existing);
+        });
+        return userRepository.save(User.builder()
+                .username(username)
+                .password("password")
+                .email(username + "@test.com")
+                .role(role)
+                .enabled(true)
+                .build());
+    }
+}
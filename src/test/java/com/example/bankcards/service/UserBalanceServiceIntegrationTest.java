@@ -0,0 +1,132 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.request.CardTransferRequest;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.BankCardRepository;
+import com.example.bankcards.repository.CardTransactionRepository;
+import com.example.bankcards.repository.UserBalanceRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.transfer.LedgerService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class UserBalanceServiceIntegrationTest {
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private BankCardRepository cardRepository;
+
+    @Autowired
+    private CardTransactionRepository transactionRepository;
+
+    @Autowired
+    private UserBalanceRepository balanceRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+    private Card cardA;
+    private Card cardB;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM ledger_entries");
+        jdbcTemplate.update("DELETE FROM card_balance_snapshots");
+        transactionRepository.deleteAll();
+        cardRepository.deleteAll();
+        balanceRepository.deleteAll();
+        userRepository.deleteAll();
+
+        user = userRepository.save(User.builder()
+                .username("total_user")
+                .password("password")
+                .email("total@test.com")
+                .role(User.Role.USER)
+                .enabled(true)
+                .build());
+
+        cardA = cardRepository.save(card("1111", "1000.00"));
+        cardB = cardRepository.save(card("2222", "250.00"));
+    }
+
+    @Test
+    void getTotalBalance_MaterialisesRowOnFirstRead() {
+        assertTrue(balanceRepository.findById(user.getId()).isEmpty());
+
+        assertEquals(0, cardService.getTotalBalance(user.getId()).compareTo(new BigDecimal("1250.00")));
+
+        assertEquals(0, balanceRepository.findById(user.getId()).orElseThrow().getBalance()
+                .compareTo(new BigDecimal("1250.00")));
+    }
+
+    @Test
+    void transfers_LeaveTotalUnchanged() {
+        cardService.getTotalBalance(user.getId());
+
+        cardService.transferBetweenCards(
+                new CardTransferRequest(cardA.getId(), cardB.getId(), new BigDecimal("300.00")), user.getId());
+
+        assertEquals(0, cardService.getTotalBalance(user.getId()).compareTo(new BigDecimal("1250.00")));
+    }
+
+    @Test
+    void deleteCard_SubtractsItsBalance() {
+        cardService.getTotalBalance(user.getId());
+
+        cardService.deleteCard(cardB.getId());
+
+        assertEquals(0, cardService.getTotalBalance(user.getId()).compareTo(new BigDecimal("1000.00")));
+        assertEquals(0, balanceRepository.findById(user.getId()).orElseThrow().getBalance()
+                .compareTo(new BigDecimal("1000.00")));
+    }
+
+    @Test
+    void ledgerRepair_RecomputesTotal() {
+        jdbcTemplate.update("INSERT INTO card_balance_snapshots (card_id, last_entry_id, run, balance, taken_at) " +
+                "SELECT id, 0, 0, balance, CURRENT_TIMESTAMP FROM bank_cards");
+        cardService.getTotalBalance(user.getId());
+        jdbcTemplate.update("UPDATE bank_cards SET balance = 0 WHERE id = ?", cardB.getId());
+
+        ledgerService.reconcile(true);
+
+        assertEquals(0, cardRepository.findById(cardB.getId()).orElseThrow().getBalance()
+                .compareTo(new BigDecimal("250.00")));
+        assertEquals(0, balanceRepository.findById(user.getId()).orElseThrow().getBalance()
+                .compareTo(new BigDecimal("1250.00")));
+    }
+
+    private Card card(String lastDigits, String balance) {
+        return Card.builder()
+                .cardNumberEncrypted("encrypted-" + lastDigits)
+                .cardNumberMasked("**** **** **** " + lastDigits)
+                .cardHolder("Total User")
+                .expiryDate(LocalDate.now().plusYears(1))
+                .cvvEncrypted("encrypted-cvv")
+                .status(Card.CardStatus.ACTIVE)
+                .balance(new BigDecimal(balance))
+                .user(user)
+                .build();
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.bankcards.service.audit;
+
+import com.example.bankcards.repository.AuditDictionaryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AuditDictionaryTest {
+
+    private final AuditDictionaryRepository repository = mock(AuditDictionaryRepository.class);
+    private AuditDictionary dictionary;
+
+    @BeforeEach
+    void setUp() {
+        dictionary = new AuditDictionary(repository, mock(PlatformTransactionManager.class),
+                new SimpleMeterRegistry(), 2, Duration.ofMinutes(5), 3);
+        when(repository.findId(anyString(), anyString())).thenReturn(null);
+        when(repository.count("audit_user_agents")).thenReturn(2);
+        when(repository.insert(eq("audit_user_agents"), anyString())).thenReturn(3);
+        when(repository.insert(eq("audit_actions"), anyString())).thenReturn(7, 8, 9);
+    }
+
+    @Test
+    void userAgents_PastLimit_AreStoredAsNullWithoutRepeatedLookups() {
+        assertEquals(3, dictionary.idOf(AuditDictionary.Kind.USER_AGENT, "first"));
+        assertNull(dictionary.idOf(AuditDictionary.Kind.USER_AGENT, "second"));
+        assertNull(dictionary.idOf(AuditDictionary.Kind.USER_AGENT, "second"));
+
+        verify(repository, times(1)).insert(eq("audit_user_agents"), anyString());
+        verify(repository, times(1)).findId("audit_user_agents", "second");
+        assertEquals(3, dictionary.idOf(AuditDictionary.Kind.USER_AGENT, "first"));
+    }
+
+    @Test
+    void cache_EvictsLeastRecentlyUsedValues() {
+        assertEquals(7, dictionary.idOf(AuditDictionary.Kind.ACTION, "A"));
+        assertEquals(8, dictionary.idOf(AuditDictionary.Kind.ACTION, "B"));
+        dictionary.idOf(AuditDictionary.Kind.ACTION, "A");
+        assertEquals(9, dictionary.idOf(AuditDictionary.Kind.ACTION, "C"));
+
+        dictionary.find(AuditDictionary.Kind.ACTION, "A");
+        dictionary.find(AuditDictionary.Kind.ACTION, "B");
+
+        verify(repository, times(1)).findId("audit_actions", "A");
+        verify(repository, times(2)).findId("audit_actions", "B");
+        verify(repository, never()).count("audit_actions");
+    }
+
+    @Test
+    void converters_OnlyLookUpNames() {
+        when(repository.findId("audit_actions", "KNOWN")).thenReturn(4);
+        var beans = new DefaultListableBeanFactory();
+        beans.registerSingleton("auditDictionary", dictionary);
+        var action = new AuditDictionaryConverters.Action(beans.getBeanProvider(AuditDictionary.class));
+        var userAgent = new AuditDictionaryConverters.UserAgent(beans.getBeanProvider(AuditDictionary.class));
+
+        assertEquals((short) 4, action.convertToDatabaseColumn("KNOWN"));
+        assertEquals((short) AuditDictionaryConverters.UNKNOWN_ID, action.convertToDatabaseColumn("UNKNOWN"));
+        assertEquals(AuditDictionaryConverters.UNKNOWN_ID, userAgent.convertToDatabaseColumn("curl"));
+        assertNull(action.convertToDatabaseColumn(null));
+
+        verify(repository, never()).insert(anyString(), anyString());
+    }
+}
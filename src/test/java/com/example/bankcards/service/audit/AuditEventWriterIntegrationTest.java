@@ -0,0 +1,150 @@
+package com.example.bankcards.service.audit;
+
+import com.example.bankcards.repository.AuditLogBatchRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class AuditEventWriterIntegrationTest {
+
+    @Autowired
+    private AuditLogBatchRepository batchRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private AuditEventWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM audit_logs");
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (writer != null) {
+            writer.stop();
+        }
+    }
+
+    @Test
+    void syncDurability_RowsVisibleWhenSubmitReturns() {
+        writer = writer(AuditEventWriter.Durability.SYNC, 64, Duration.ofMillis(20));
+
+        for (int i = 0; i < 10; i++) {
+            writer.submit(event("SYNC_" + i, null));
+            assertEquals(i + 1, countRows());
+        }
+    }
+
+    @Test
+    void syncDurability_InsideTransaction_WaitsOnlyAfterCompletion() {
+        writer = writer(AuditEventWriter.Durability.SYNC, 64, Duration.ofMillis(500));
+
+        long[] submitMillis = new long[1];
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            long started = System.nanoTime();
+            writer.submit(event("SYNC_IN_TX", null));
+            submitMillis[0] = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        });
+
+        assertTrue(submitMillis[0] < 250, "submit waited " + submitMillis[0] + " ms inside the transaction");
+        assertEquals(1, countRows());
+    }
+
+    @Test
+    void asyncDurability_DrainsIntoBatches() throws Exception {
+        writer = writer(AuditEventWriter.Durability.ASYNC, 1024, Duration.ofMillis(200));
+
+        for (int i = 0; i < 100; i++) {
+            writer.submit(event("ASYNC_" + i, null));
+        }
+
+        // The batch is recorded after its insert commits, so once all 100 are counted the rows are there.
+        var batches = meterRegistry.get("audit.writer.batch.size").summary();
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (batches.totalAmount() < 100 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(100, (long) batches.totalAmount());
+        assertEquals(100, countRows());
+        assertTrue(batches.count() < 100, "events should be written in multi-row batches");
+    }
+
+    @Test
+    void writerNotRunning_CallerWritesEventItself() {
+        writer = new AuditEventWriter(batchRepository, disabledSpool(), transactionManager, meterRegistry, true, AuditEventWriter.Durability.ASYNC,
+                1, 64, Duration.ofMillis(20), Duration.ZERO, Duration.ofSeconds(5), Duration.ofMillis(50));
+        writer.submit(event("STOPPED", null));
+        writer.submit(event("STOPPED", null));
+        assertEquals(2, countRows());
+    }
+
+    @Test
+    void writerNotRunning_CallerWriteIsIndependentOfCallerTransaction() {
+        writer = new AuditEventWriter(batchRepository, disabledSpool(), transactionManager, meterRegistry, true,
+                AuditEventWriter.Durability.ASYNC, 1, 64, Duration.ofMillis(20), Duration.ZERO, Duration.ofSeconds(5),
+                Duration.ofMillis(50));
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            writer.submit(event("ROLLED_BACK_CALLER", null));
+            writer.submit(event("ORPHAN", Long.MAX_VALUE));
+            status.setRollbackOnly();
+        });
+
+        assertEquals(2, countRows());
+    }
+
+    @Test
+    void deletedUser_EventKeptWithoutUser() {
+        writer = writer(AuditEventWriter.Durability.SYNC, 64, Duration.ofMillis(20));
+
+        writer.submit(event("ORPHAN", Long.MAX_VALUE));
+
+        assertEquals(1, countRows());
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM audit_logs WHERE user_id IS NOT NULL", Long.class));
+    }
+
+    private AuditEventWriter writer(AuditEventWriter.Durability durability, int batchSize, Duration flushInterval) {
+        AuditEventWriter created = new AuditEventWriter(batchRepository, disabledSpool(), transactionManager, meterRegistry, true, durability,
+                1024, batchSize, flushInterval, Duration.ofMillis(50), Duration.ofSeconds(5), Duration.ofMillis(50));
+        created.start();
+        return created;
+    }
+
+    private AuditSpool disabledSpool() {
+        return new AuditSpool(meterRegistry, false, Path.of("unused"), DataSize.ofMegabytes(1), false);
+    }
+
+    private long countRows() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM audit_logs", Long.class);
+    }
+
+    private AuditEvent event(String action, Long userId) {
+        return new AuditEvent(action, "Test", 1L, null, userId, "127.0.0.1", "junit", LocalDateTime.now());
+    }
+}
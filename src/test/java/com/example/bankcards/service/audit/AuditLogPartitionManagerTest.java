@@ -0,0 +1,127 @@
+package com.example.bankcards.service.audit;
+
+import com.example.bankcards.repository.AuditLogPartitionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.CannotAcquireLockException;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AuditLogPartitionManagerTest {
+
+    @TempDir
+    Path exportDirectory;
+
+    private AuditLogPartitionRepository partitionRepository;
+    private AuditLogPartitionManager manager;
+
+    @BeforeEach
+    void setUp() {
+        partitionRepository = mock(AuditLogPartitionRepository.class);
+        manager = new AuditLogPartitionManager(partitionRepository, true, 2, 12, exportDirectory, Duration.ofSeconds(1), 2);
+    }
+
+    @Test
+    void maintain_CreatesCurrentAndUpcomingMonths() {
+        manager.maintain(YearMonth.of(2024, 11));
+
+        Duration timeout = Duration.ofSeconds(1);
+        verify(partitionRepository).createPartition("audit_logs_p202411", LocalDate.of(2024, 11, 1), LocalDate.of(2024, 12, 1), timeout);
+        verify(partitionRepository).createPartition("audit_logs_p202412", LocalDate.of(2024, 12, 1), LocalDate.of(2025, 1, 1), timeout);
+        verify(partitionRepository).createPartition("audit_logs_p202501", LocalDate.of(2025, 1, 1), LocalDate.of(2025, 2, 1), timeout);
+    }
+
+    @Test
+    void maintain_RetiresExpiredMonthsEvenIfCreationKeepsTimingOut() {
+        doThrow(new CannotAcquireLockException("lock timeout")).when(partitionRepository)
+                .createPartition(anyString(), any(), any(), any());
+        when(partitionRepository.findPartitionTables(anyString())).thenReturn(List.of("audit_logs_p202309"));
+
+        manager.maintain(YearMonth.of(2024, 11));
+
+        verify(partitionRepository, times(2)).createPartition(eq("audit_logs_p202411"), any(), any(), any());
+        verify(partitionRepository).drop("audit_logs_p202309");
+    }
+
+    @Test
+    void maintain_FailedRetirementDoesNotHoldBackLaterMonths() {
+        when(partitionRepository.findPartitionTables(anyString()))
+                .thenReturn(List.of("audit_logs_p202309", "audit_logs_p202310"));
+        when(partitionRepository.isAttached(anyString())).thenReturn(true);
+        doThrow(new CannotAcquireLockException("lock timeout")).when(partitionRepository).detach("audit_logs_p202309");
+
+        manager.maintain(YearMonth.of(2024, 11));
+
+        verify(partitionRepository, never()).drop("audit_logs_p202309");
+        verify(partitionRepository).detach("audit_logs_p202310");
+        verify(partitionRepository).drop("audit_logs_p202310");
+    }
+
+    @Test
+    void maintain_SkipsWhileAnotherInstanceHoldsTheLock() {
+        when(partitionRepository.runExclusively(any())).thenReturn(false);
+
+        manager.maintain();
+
+        verify(partitionRepository, never()).createPartition(anyString(), any(), any(), any());
+        verify(partitionRepository, never()).findPartitionTables(anyString());
+    }
+
+    @Test
+    void maintain_DetachesExportsAndDropsExpiredMonths() throws Exception {
+        when(partitionRepository.findPartitionTables(anyString()))
+                .thenReturn(List.of("audit_logs_p202309", "audit_logs_p202310", "audit_logs_p202311"));
+        when(partitionRepository.isAttached("audit_logs_p202309")).thenReturn(true);
+        when(partitionRepository.export(anyString(), any())).thenAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(1).write("id,action\n1,USER_LOGIN\n".getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        });
+
+        manager.maintain(YearMonth.of(2024, 11));
+
+        var order = inOrder(partitionRepository);
+        order.verify(partitionRepository).detach("audit_logs_p202309");
+        order.verify(partitionRepository).export(anyString(), any());
+        order.verify(partitionRepository).drop("audit_logs_p202309");
+        verify(partitionRepository).drop("audit_logs_p202310");
+        verify(partitionRepository, never()).detach("audit_logs_p202310");
+        verify(partitionRepository, never()).drop("audit_logs_p202311");
+
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(exportDirectory.resolve("audit_logs_p202309.csv.gz")))) {
+            assertEquals("id,action\n1,USER_LOGIN\n", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        assertFalse(Files.exists(exportDirectory.resolve("audit_logs_p202309.csv.gz.part")));
+    }
+
+    @Test
+    void monthOf_ParsesOnlyMonthlyPartitions() {
+        assertEquals(Optional.of(YearMonth.of(2024, 3)), AuditLogPartitionManager.monthOf("audit_logs_p202403"));
+        assertTrue(AuditLogPartitionManager.monthOf("audit_logs_default").isEmpty());
+        assertEquals("audit_logs_p202403", AuditLogPartitionManager.partitionName(YearMonth.of(2024, 3)));
+    }
+}
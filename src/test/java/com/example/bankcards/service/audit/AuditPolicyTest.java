@@ -0,0 +1,95 @@
+package com.example.bankcards.service.audit;
+
+import com.example.bankcards.service.AuditService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class AuditPolicyTest {
+
+    @Mock
+    private AuditEventWriter writer;
+
+    private final LocalDateTime now = LocalDateTime.now();
+
+    @Test
+    void coalesced_WritesOneRowPerUserWithTheCount() {
+        AuditPolicy policy = policy(new MockEnvironment()
+                .withProperty("audit.policy.actions.BALANCE_CHECKED", "COALESCED"));
+
+        for (int i = 0; i < 5; i++) {
+            policy.apply(event(AuditService.Actions.BALANCE_CHECKED, 1L));
+        }
+        policy.apply(event(AuditService.Actions.BALANCE_CHECKED, 2L));
+        verifyNoInteractions(writer);
+
+        policy.flush(now.plusSeconds(1));
+
+        ArgumentCaptor<AuditEvent> written = ArgumentCaptor.forClass(AuditEvent.class);
+        verify(writer, times(2)).submit(written.capture());
+        List<AuditEvent> events = written.getAllValues();
+        assertEquals(5, events.stream().filter(e -> e.userId() == 1L).findFirst().orElseThrow().eventCount());
+        assertEquals(1, events.stream().filter(e -> e.userId() == 2L).findFirst().orElseThrow().eventCount());
+    }
+
+    @Test
+    void coalesced_KeepsOpenWindowsPending() {
+        AuditPolicy policy = policy(new MockEnvironment()
+                .withProperty("audit.policy.actions.BALANCE_CHECKED", "COALESCED"));
+        policy.apply(event(AuditService.Actions.BALANCE_CHECKED, 1L));
+
+        policy.flush(now.minusSeconds(1));
+        verify(writer, never()).submit(any());
+
+        policy.flushAll();
+        verify(writer).submit(any());
+    }
+
+    @Test
+    void securityRelevantActions_AreAlwaysWritten() {
+        AuditPolicy policy = policy(new MockEnvironment().withProperty("audit.policy.default", "OFF"));
+
+        policy.apply(event(AuditService.Actions.USER_LOGIN, 1L));
+        policy.apply(event(AuditService.Actions.BALANCE_CHECKED, 1L));
+
+        verify(writer).submit(argThat(e -> e.action().equals(AuditService.Actions.USER_LOGIN)));
+        verify(writer, times(1)).submit(any());
+    }
+
+    @Test
+    void configuringSecurityRelevantActionAsLossy_FailsFast() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("audit.policy.actions.USER_LOGIN", "SAMPLED");
+
+        assertThrows(IllegalStateException.class, () -> policy(environment));
+    }
+
+    private AuditPolicy policy(MockEnvironment environment) {
+        AuditPolicy.Mode defaultMode = AuditPolicy.Mode.valueOf(
+                environment.getProperty("audit.policy.default", "ALWAYS"));
+        return new AuditPolicy(writer, new SimpleMeterRegistry(), environment, defaultMode, 0.1,
+                Duration.ofMinutes(1), 1000);
+    }
+
+    private AuditEvent event(String action, Long userId) {
+        return new AuditEvent(action, AuditService.EntityTypes.USER, userId, null, userId, "127.0.0.1", "junit", now);
+    }
+}
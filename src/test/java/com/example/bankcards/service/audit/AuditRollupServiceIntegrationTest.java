@@ -0,0 +1,87 @@
+package com.example.bankcards.service.audit;
+
+import com.example.bankcards.dto.response.AuditStatsResponse;
+import com.example.bankcards.repository.AuditLogBatchRepository;
+import com.example.bankcards.service.AuditService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class AuditRollupServiceIntegrationTest {
+
+    @Autowired
+    private AuditRollupService rollupService;
+
+    @Autowired
+    private AuditLogBatchRepository batchRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final LocalDateTime hour = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).minusHours(2);
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM audit_log_rollups");
+        jdbcTemplate.update("DELETE FROM audit_rollup_watermarks");
+        jdbcTemplate.update("DELETE FROM audit_logs");
+        rollupService.rollup();
+    }
+
+    @Test
+    void rollup_CountsOnlyRowsSeenByThePreviousRun() {
+        insert(AuditService.Actions.USER_LOGIN, AuditService.EntityTypes.USER, hour.plusMinutes(5), 3);
+        insert(AuditService.Actions.USER_LOGIN, AuditService.EntityTypes.USER, hour.plusMinutes(65), 2);
+        insert(AuditService.Actions.TRANSFER_FAILED, null, hour.plusMinutes(10), 1);
+
+        assertEquals(0, rollupService.rollup());
+        assertEquals(6, rollupService.rollup());
+
+        List<AuditStatsResponse> stats = rollupService.getStats(hour.minusHours(1), null, null, null);
+        assertEquals(3, stats.size());
+        assertEquals(hour, stats.get(0).getBucket());
+        assertEquals(AuditService.Actions.TRANSFER_FAILED, stats.get(0).getAction());
+        assertNull(stats.get(0).getEntityType());
+        assertEquals(3, stats.get(1).getCount());
+        assertEquals(hour.plusHours(1), stats.get(2).getBucket());
+        assertEquals(2, stats.get(2).getCount());
+    }
+
+    @Test
+    void rollup_AddsNewRowsWithoutRecountingOldOnes() {
+        insert(AuditService.Actions.USER_LOGIN, AuditService.EntityTypes.USER, hour.plusMinutes(5), 3);
+        rollupService.rollup();
+        rollupService.rollup();
+
+        insert(AuditService.Actions.USER_LOGIN, AuditService.EntityTypes.USER, hour.plusMinutes(30), 4);
+        rollupService.rollup();
+        rollupService.rollup();
+        rollupService.rollup();
+
+        List<AuditStatsResponse> stats = rollupService.getStats(hour.minusHours(1), null,
+                AuditService.Actions.USER_LOGIN, AuditService.EntityTypes.USER);
+        assertEquals(1, stats.size());
+        assertEquals(7, stats.get(0).getCount());
+    }
+
+    private void insert(String action, String entityType, LocalDateTime createdAt, int count) {
+        List<AuditEvent> events = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            events.add(new AuditEvent(action, entityType, null, null, null, "127.0.0.1", "junit", createdAt));
+        }
+        batchRepository.insert(events);
+    }
+}
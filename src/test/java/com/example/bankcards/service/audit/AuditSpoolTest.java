@@ -0,0 +1,129 @@
+package com.example.bankcards.service.audit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AuditSpoolTest {
+
+    @TempDir
+    Path directory;
+
+    private AuditSpool spool;
+    private AuditEventWriter writer;
+    private List<AuditEvent> persisted;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        spool = openSpool(DataSize.ofMegabytes(1));
+        writer = mock(AuditEventWriter.class);
+        persisted = new ArrayList<>();
+        when(writer.persist(anyList())).thenAnswer(invocation -> {
+            persisted.addAll(invocation.getArgument(0));
+            return true;
+        });
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        spool.close();
+    }
+
+    @Test
+    void replay_RestoresEventsAndDeletesSegments() {
+        AuditEvent full = new AuditEvent("CARD_CREATED", "BankCard", 7L, Map.of("note", "détails", "amount", 12.5), 3L,
+                "10.0.0.1", "curl", LocalDateTime.of(2024, 5, 1, 12, 30, 15, 123_456_789));
+        AuditEvent sparse = new AuditEvent("USER_LOGIN", null, null, null, null, null, null,
+                LocalDateTime.of(2024, 5, 1, 12, 31));
+        spool.append(List.of(full, sparse));
+
+        assertEquals(2, new AuditSpoolReplayer(spool, writer, 10, Duration.ZERO).replay());
+
+        assertEquals(List.of(full, sparse), persisted);
+        assertTrue(spool.sealedSegments(Duration.ZERO).isEmpty());
+    }
+
+    @Test
+    void replay_RollsOverFullSegments() {
+        spool = reopen(DataSize.ofKilobytes(1));
+        spool.append(events(50));
+
+        assertTrue(spool.sealedSegments(Duration.ZERO).size() > 1);
+        assertEquals(50, new AuditSpoolReplayer(spool, writer, 16, Duration.ZERO).replay());
+        assertEquals(events(50), persisted);
+    }
+
+    @Test
+    void replay_ResumesAfterFailureAndRestartWithoutDuplicates() throws Exception {
+        spool.append(events(5));
+        when(writer.persist(anyList()))
+                .thenAnswer(invocation -> persisted.addAll(invocation.getArgument(0)))
+                .thenAnswer(invocation -> persisted.addAll(invocation.getArgument(0)))
+                .thenReturn(false);
+
+        assertEquals(4, new AuditSpoolReplayer(spool, writer, 2, Duration.ZERO).replay());
+        assertEquals(1, spool.sealedSegments(Duration.ZERO).size());
+
+        spool = reopen(DataSize.ofMegabytes(1));
+        when(writer.persist(anyList())).thenAnswer(invocation -> persisted.addAll(invocation.getArgument(0)));
+
+        assertEquals(1, new AuditSpoolReplayer(spool, writer, 2, Duration.ZERO).replay());
+        assertEquals(events(5), persisted);
+        assertTrue(spool.sealedSegments(Duration.ZERO).isEmpty());
+    }
+
+    @Test
+    void replay_LeavesSegmentBeingAppendedToUntilIdle() {
+        spool = reopen(DataSize.ofKilobytes(1));
+        spool.append(events(50));
+        AuditSpoolReplayer replayer = new AuditSpoolReplayer(spool, writer, 16, Duration.ofHours(1));
+
+        int replayed = replayer.replay();
+
+        assertTrue(replayed > 0 && replayed < 50);
+        assertTrue(spool.sealedSegments(Duration.ofHours(1)).isEmpty());
+        assertEquals(0, replayer.replay());
+
+        assertEquals(50 - replayed, new AuditSpoolReplayer(spool, writer, 16, Duration.ZERO).replay());
+        assertEquals(events(50), persisted);
+    }
+
+    private AuditSpool reopen(DataSize segmentSize) {
+        try {
+            spool.close();
+            return openSpool(segmentSize);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private AuditSpool openSpool(DataSize segmentSize) throws Exception {
+        AuditSpool opened = new AuditSpool(new SimpleMeterRegistry(), true, directory, segmentSize, false);
+        opened.open();
+        return opened;
+    }
+
+    private static List<AuditEvent> events(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> new AuditEvent("EVENT_" + i, "Test", (long) i, null, null, "127.0.0.1", "junit",
+                        LocalDateTime.of(2024, 1, 1, 0, 0).plusSeconds(i)))
+                .toList();
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.bankcards.service.transfer;
+
+import com.example.bankcards.dto.request.CardTransferRequest;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardTransaction;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.BankCardRepository;
+import com.example.bankcards.repository.CardTransactionRepository;
+import com.example.bankcards.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "transfer.async.enabled=true",
+        "transfer.async.batch-size=5",
+        "transfer.async.recovery-after=0s"
+})
+@ActiveProfiles("test")
+class AsyncTransferServiceIntegrationTest {
+
+    @Autowired
+    private AsyncTransferService asyncTransferService;
+
+    @Autowired
+    private TransferSettlementProcessor processor;
+
+    @Autowired
+    private BankCardRepository cardRepository;
+
+    @Autowired
+    private CardTransactionRepository transactionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User user;
+    private Card card1;
+    private Card card2;
+
+    @BeforeEach
+    void setUp() {
+        transactionRepository.deleteAll();
+        cardRepository.deleteAll();
+        userRepository.deleteAll();
+
+        user = userRepository.save(User.builder()
+                .username("async_user")
+                .password("password")
+                .email("async@test.com")
+                .role(User.Role.USER)
+                .enabled(true)
+                .build());
+
+        card1 = cardRepository.save(card("1111", "1000.00"));
+        card2 = cardRepository.save(card("2222", "0.00"));
+    }
+
+    @Test
+    void submit_SettlesPendingTransfersInBackground() throws InterruptedException {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            CardTransaction pending = asyncTransferService.submit(
+                    new CardTransferRequest(card1.getId(), card2.getId(), new BigDecimal("100.00")), user.getId());
+            assertEquals(CardTransaction.TransactionStatus.PENDING, pending.getStatus());
+            ids.add(pending.getId());
+        }
+
+        awaitSettled(ids);
+
+        List<CardTransaction> settled = transactionRepository.findAllById(ids);
+        long succeeded = settled.stream()
+                .filter(t -> t.getStatus() == CardTransaction.TransactionStatus.SUCCESS).count();
+        assertEquals(10, succeeded);
+        assertTrue(settled.stream()
+                .filter(t -> t.getStatus() == CardTransaction.TransactionStatus.FAILED)
+                .allMatch(t -> "Insufficient funds".equals(t.getFailureReason())));
+        assertEquals(new BigDecimal("0.00"), balanceOf(card1));
+        assertEquals(new BigDecimal("1000.00"), balanceOf(card2));
+    }
+
+    @Test
+    void settle_IgnoresAlreadySettledTransfers() {
+        CardTransaction pending = processor.createPending(
+                new CardTransferRequest(card1.getId(), card2.getId(), new BigDecimal("250.00")), user.getId());
+
+        List<TransferSettlementProcessor.SettlementResult> first = processor.settle(List.of(pending.getId()));
+        List<TransferSettlementProcessor.SettlementResult> second = processor.settle(List.of(pending.getId()));
+
+        assertEquals(1, first.size());
+        assertTrue(first.get(0).succeeded());
+        assertTrue(second.isEmpty());
+        assertEquals(new BigDecimal("750.00"), balanceOf(card1));
+        assertEquals(new BigDecimal("250.00"), balanceOf(card2));
+    }
+
+    @Test
+    void recoverPending_RequeuesStalePendingTransfers() throws InterruptedException {
+        CardTransaction pending = processor.createPending(
+                new CardTransferRequest(card1.getId(), card2.getId(), new BigDecimal("300.00")), user.getId());
+
+        asyncTransferService.recoverPending();
+        awaitSettled(List.of(pending.getId()));
+
+        assertEquals(CardTransaction.TransactionStatus.SUCCESS,
+                transactionRepository.findById(pending.getId()).orElseThrow().getStatus());
+        assertEquals(new BigDecimal("700.00"), balanceOf(card1));
+    }
+
+    private void awaitSettled(List<Long> ids) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (System.currentTimeMillis() < deadline) {
+            boolean pending = transactionRepository.findAllById(ids).stream()
+                    .anyMatch(t -> t.getStatus() == CardTransaction.TransactionStatus.PENDING);
+            if (!pending) {
+                return;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("Transfers were not settled in time: " + ids);
+    }
+
+    private BigDecimal balanceOf(Card card) {
+        return cardRepository.findById(card.getId()).orElseThrow().getBalance();
+    }
+
+    private Card card(String lastDigits, String balance) {
+        return Card.builder()
+                .cardNumberEncrypted("encrypted-" + lastDigits)
+                .cardNumberMasked("**** **** **** " + lastDigits)
+                .cardHolder("Async User")
+                .expiryDate(LocalDate.now().plusYears(1))
+                .cvvEncrypted("encrypted-cvv")
+                .status(Card.CardStatus.ACTIVE)
+                .balance(new BigDecimal(balance))
+                .user(user)
+                .build();
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.bankcards.service.transfer;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.exception.CardNotFoundException;
+import com.example.bankcards.exception.CardOperationException;
+import com.example.bankcards.exception.InsufficientFundsException;
+import com.example.bankcards.repository.BankCardRepository;
+import com.example.bankcards.repository.BankCardRepository.BalanceView;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AtomicTransferEngineTest {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("100.00");
+
+    @Mock
+    private BankCardRepository cardRepository;
+
+    @Mock
+    private CardBalanceShards shards;
+
+    @InjectMocks
+    private AtomicTransferEngine transferEngine;
+
+    @Test
+    void transfer_Success() {
+        when(cardRepository.debitIfSufficient(1L, 7L, AMOUNT)).thenReturn(1);
+        when(cardRepository.creditIfActive(2L, 7L, AMOUNT)).thenReturn(1);
+
+        transferEngine.transfer(7L, 1L, 2L, AMOUNT);
+
+        verify(cardRepository, never()).findBalanceView(any(), any());
+        verify(cardRepository, never()).save(any());
+    }
+
+    @Test
+    void transfer_SourceNotOwned() {
+        when(cardRepository.debitIfSufficient(1L, 7L, AMOUNT)).thenReturn(0);
+        when(cardRepository.findBalanceView(1L, 7L)).thenReturn(Optional.empty());
+
+        assertThrows(CardNotFoundException.class, () -> transferEngine.transfer(7L, 1L, 2L, AMOUNT));
+
+        verify(cardRepository, never()).creditIfActive(any(), any(), any());
+    }
+
+    @Test
+    void transfer_SourceBlocked() {
+        when(cardRepository.debitIfSufficient(1L, 7L, AMOUNT)).thenReturn(0);
+        when(cardRepository.findBalanceView(1L, 7L))
+                .thenReturn(Optional.of(view(1L, Card.CardStatus.BLOCKED, "500.00")));
+
+        CardOperationException ex = assertThrows(CardOperationException.class,
+                () -> transferEngine.transfer(7L, 1L, 2L, AMOUNT));
+
+        assertEquals("Source card is not active", ex.getMessage());
+    }
+
+    @Test
+    void transfer_InsufficientFunds() {
+        when(cardRepository.debitIfSufficient(1L, 7L, AMOUNT)).thenReturn(0);
+        when(cardRepository.findBalanceView(1L, 7L))
+                .thenReturn(Optional.of(view(1L, Card.CardStatus.ACTIVE, "50.00")));
+
+        assertThrows(InsufficientFundsException.class, () -> transferEngine.transfer(7L, 1L, 2L, AMOUNT));
+    }
+
+    @Test
+    void transfer_DestinationNotActive() {
+        when(cardRepository.debitIfSufficient(1L, 7L, AMOUNT)).thenReturn(1);
+        when(cardRepository.creditIfActive(2L, 7L, AMOUNT)).thenReturn(0);
+        when(cardRepository.findBalanceView(2L, 7L))
+                .thenReturn(Optional.of(view(2L, Card.CardStatus.EXPIRED, "0.00")));
+
+        CardOperationException ex = assertThrows(CardOperationException.class,
+                () -> transferEngine.transfer(7L, 1L, 2L, AMOUNT));
+
+        assertEquals("Destination card is not active", ex.getMessage());
+    }
+
+    private static BalanceView view(Long id, Card.CardStatus status, String balance) {
+        return new BalanceView() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public Card.CardStatus getStatus() {
+                return status;
+            }
+
+            @Override
+            public BigDecimal getBalance() {
+                return new BigDecimal(balance);
+            }
+
+            @Override
+            public Long getVersion() {
+                return 0L;
+            }
+        };
+    }
+}
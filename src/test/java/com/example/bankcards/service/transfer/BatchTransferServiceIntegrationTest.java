@@ -0,0 +1,140 @@
+package com.example.bankcards.service.transfer;
+
+import com.example.bankcards.dto.request.BatchTransferRequest;
+import com.example.bankcards.dto.request.CardTransferRequest;
+import com.example.bankcards.dto.response.BatchTransferResponse;
+import com.example.bankcards.dto.response.TransferItemResult;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.BankCardRepository;
+import com.example.bankcards.repository.CardTransactionRepository;
+import com.example.bankcards.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class BatchTransferServiceIntegrationTest {
+
+    @Autowired
+    private BatchTransferService batchTransferService;
+
+    @Autowired
+    private BankCardRepository cardRepository;
+
+    @Autowired
+    private CardTransactionRepository transactionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User user;
+    private Card card1;
+    private Card card2;
+    private Card blockedCard;
+
+    @BeforeEach
+    void setUp() {
+        transactionRepository.deleteAll();
+        cardRepository.deleteAll();
+        userRepository.deleteAll();
+
+        user = userRepository.save(User.builder()
+                .username("batch_user")
+                .password("password")
+                .email("batch@test.com")
+                .role(User.Role.USER)
+                .enabled(true)
+                .build());
+
+        card1 = cardRepository.save(card("1111", Card.CardStatus.ACTIVE, "1000.00"));
+        card2 = cardRepository.save(card("2222", Card.CardStatus.ACTIVE, "500.00"));
+        blockedCard = cardRepository.save(card("3333", Card.CardStatus.BLOCKED, "0.00"));
+    }
+
+    @Test
+    void transferBatch_AtomicSuccess() {
+        BatchTransferResponse response = batchTransferService.transferBatch(BatchTransferRequest.builder()
+                .transfers(List.of(
+                        transfer(card1, card2, "300.00"),
+                        transfer(card2, card1, "700.00"),
+                        transfer(card1, card2, "50.00")))
+                .build(), user.getId());
+
+        assertTrue(response.isCommitted());
+        assertEquals(3, response.getSucceeded());
+        assertEquals(new BigDecimal("1350.00"), balanceOf(card1));
+        assertEquals(new BigDecimal("150.00"), balanceOf(card2));
+        assertEquals(3, transactionRepository.count());
+    }
+
+    @Test
+    void transferBatch_AtomicRollsBackWholeBatch() {
+        BatchTransferResponse response = batchTransferService.transferBatch(BatchTransferRequest.builder()
+                .transfers(List.of(
+                        transfer(card1, card2, "300.00"),
+                        transfer(card2, card1, "900.00")))
+                .build(), user.getId());
+
+        assertFalse(response.isCommitted());
+        assertEquals(0, response.getSucceeded());
+        assertEquals(TransferItemResult.Status.ROLLED_BACK, response.getResults().get(0).getStatus());
+        assertEquals("Insufficient funds", response.getResults().get(1).getError());
+        assertEquals(new BigDecimal("1000.00"), balanceOf(card1));
+        assertEquals(new BigDecimal("500.00"), balanceOf(card2));
+        assertEquals(0, transactionRepository.count());
+    }
+
+    @Test
+    void transferBatch_PerItemAppliesValidTransfers() {
+        BatchTransferResponse response = batchTransferService.transferBatch(BatchTransferRequest.builder()
+                .atomic(false)
+                .transfers(List.of(
+                        transfer(card1, card2, "100.00"),
+                        transfer(card1, blockedCard, "100.00"),
+                        transfer(card2, card1, "5000.00"),
+                        transfer(card2, card1, "600.00")))
+                .build(), user.getId());
+
+        assertTrue(response.isCommitted());
+        assertEquals(2, response.getSucceeded());
+        assertEquals(2, response.getFailed());
+        assertEquals("Destination card is not active", response.getResults().get(1).getError());
+        assertEquals("Insufficient funds", response.getResults().get(2).getError());
+        assertEquals(new BigDecimal("1500.00"), balanceOf(card1));
+        assertEquals(new BigDecimal("0.00"), balanceOf(card2));
+        assertEquals(2, transactionRepository.count());
+    }
+
+    private BigDecimal balanceOf(Card card) {
+        return cardRepository.findById(card.getId()).orElseThrow().getBalance();
+    }
+
+    private CardTransferRequest transfer(Card from, Card to, String amount) {
+        return new CardTransferRequest(from.getId(), to.getId(), new BigDecimal(amount));
+    }
+
+    private Card card(String lastDigits, Card.CardStatus status, String balance) {
+        return Card.builder()
+                .cardNumberEncrypted("encrypted-" + lastDigits)
+                .cardNumberMasked("**** **** **** " + lastDigits)
+                .cardHolder("Batch User")
+                .expiryDate(LocalDate.now().plusYears(1))
+                .cvvEncrypted("encrypted-cvv")
+                .status(status)
+                .balance(new BigDecimal(balance))
+                .user(user)
+                .build();
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.bankcards.service.transfer;
+
+import com.example.bankcards.dto.filter.CardFilter;
+import com.example.bankcards.dto.request.CardTransferRequest;
+import com.example.bankcards.dto.response.BankCardResponse;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.CardOperationException;
+import com.example.bankcards.repository.BankCardRepository;
+import com.example.bankcards.repository.CardTransactionRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.CardService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "spring.datasource.hikari.maximum-pool-size=20")
+@ActiveProfiles("test")
+class CardBalanceShardsIntegrationTest {
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private CardBalanceShards shards;
+
+    @Autowired
+    private BankCardRepository cardRepository;
+
+    @Autowired
+    private CardTransactionRepository transactionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+    private Card source;
+    private Card hot;
+
+    @BeforeEach
+    void setUp() {
+        transactionRepository.deleteAll();
+        jdbcTemplate.update("DELETE FROM card_balance_slots");
+        cardRepository.deleteAll();
+        userRepository.deleteAll();
+
+        user = userRepository.save(User.builder()
+                .username("sharded_user")
+                .password("password")
+                .email("sharded@test.com")
+                .role(User.Role.USER)
+                .enabled(true)
+                .build());
+
+        source = cardRepository.save(card("1111", "1000.00"));
+        hot = cardRepository.save(card("2222", "0.00"));
+    }
+
+    @Test
+    void credits_LandInSlotsAndAreSummed() {
+        shards.configure(hot.getId(), 4);
+        assertTrue(shards.isSharded(hot.getId()));
+
+        for (int i = 0; i < 10; i++) {
+            cardService.transferBetweenCards(transfer(source, hot, "10.00"), user.getId());
+        }
+
+        Card card = cardRepository.findById(hot.getId()).orElseThrow();
+        assertEquals(0, card.getBalance().compareTo(BigDecimal.ZERO));
+        assertEquals(0, card.getTotalBalance().compareTo(new BigDecimal("100.00")));
+        assertEquals(0, cardService.getTotalBalance(user.getId()).compareTo(new BigDecimal("1000.00")));
+
+        CardFilter filter = new CardFilter();
+        filter.setMinBalance(new BigDecimal("50.00"));
+        filter.setMaxBalance(new BigDecimal("150.00"));
+        List<BankCardResponse> cards = cardService.getUserCards(user.getId(), filter, PageRequest.of(0, 10))
+                .getContent();
+        assertEquals(1, cards.size());
+        assertEquals(0, cards.get(0).getBalance().compareTo(new BigDecimal("100.00")));
+    }
+
+    @Test
+    void debit_SweepsSlotsIntoCard() {
+        shards.configure(hot.getId(), 4);
+        for (int i = 0; i < 5; i++) {
+            cardService.transferBetweenCards(transfer(source, hot, "20.00"), user.getId());
+        }
+
+        cardService.transferBetweenCards(transfer(hot, source, "60.00"), user.getId());
+
+        Card card = cardRepository.findById(hot.getId()).orElseThrow();
+        assertEquals(0, card.getBalance().compareTo(new BigDecimal("40.00")));
+        assertEquals(0, card.getSlotBalance().compareTo(BigDecimal.ZERO));
+        assertEquals(0, cardRepository.findById(source.getId()).orElseThrow().getBalance()
+                .compareTo(new BigDecimal("960.00")));
+    }
+
+    @Test
+    void debit_ReloadsSlotsConfiguredByAnotherNode() {
+        jdbcTemplate.update("UPDATE bank_cards SET balance_slots = 2 WHERE id = ?", hot.getId());
+        jdbcTemplate.update("INSERT INTO card_balance_slots (card_id, slot, balance) VALUES (?, 0, 30.00), (?, 1, 20.00)",
+                hot.getId(), hot.getId());
+        assertFalse(shards.isSharded(hot.getId()));
+
+        cardService.transferBetweenCards(transfer(hot, source, "45.00"), user.getId());
+
+        assertTrue(shards.isSharded(hot.getId()));
+        Card card = cardRepository.findById(hot.getId()).orElseThrow();
+        assertEquals(0, card.getBalance().compareTo(new BigDecimal("5.00")));
+        assertEquals(0, card.getSlotBalance().compareTo(BigDecimal.ZERO));
+    }
+
+    @Test
+    void configure_ZeroSlotsFoldsBalanceBack() {
+        shards.configure(hot.getId(), 4);
+        cardService.transferBetweenCards(transfer(source, hot, "75.00"), user.getId());
+
+        shards.configure(hot.getId(), 0);
+
+        assertFalse(shards.isSharded(hot.getId()));
+        Card card = cardRepository.findById(hot.getId()).orElseThrow();
+        assertEquals(0, card.getBalance().compareTo(new BigDecimal("75.00")));
+        assertEquals(0, card.getBalanceSlots());
+        assertThrows(CardOperationException.class, () -> shards.configure(hot.getId(), 1000));
+    }
+
+    @Test
+    void concurrentCredits_AreAllApplied() throws Exception {
+        shards.configure(hot.getId(), 8);
+        List<Card> senders = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            senders.add(cardRepository.save(card("300" + i, "100.00")));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(senders.size());
+        List<Future<?>> futures = new ArrayList<>();
+        for (Card sender : senders) {
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < 10; j++) {
+                    cardService.transferBetweenCards(transfer(sender, hot, "5.00"), user.getId());
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(0, cardRepository.findById(hot.getId()).orElseThrow().getTotalBalance()
+                .compareTo(new BigDecimal("200.00")));
+    }
+
+    private CardTransferRequest transfer(Card from, Card to, String amount) {
+        return new CardTransferRequest(from.getId(), to.getId(), new BigDecimal(amount));
+    }
+
+    private Card card(String lastDigits, String balance) {
+        return Card.builder()
+                .cardNumberEncrypted("encrypted-" + lastDigits)
+                .cardNumberMasked("**** **** **** " + lastDigits)
+                .cardHolder("Sharded User")
+                .expiryDate(LocalDate.now().plusYears(1))
+                .cvvEncrypted("encrypted-cvv")
+                .status(Card.CardStatus.ACTIVE)
+                .balance(new BigDecimal(balance))
+                .user(user)
+                .build();
+    }
+}
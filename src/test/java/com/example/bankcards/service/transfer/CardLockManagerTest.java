@@ -0,0 +1,133 @@
+package com.example.bankcards.service.transfer;
+
+import com.example.bankcards.dto.response.LockStripeStatsResponse;
+import com.example.bankcards.exception.ServiceBusyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CardLockManagerTest {
+
+    @Test
+    void lock_OpposingPairsDoNotDeadlock() throws Exception {
+        CardLockManager lockManager = new CardLockManager(new SimpleMeterRegistry(), true, 16, Duration.ofSeconds(5));
+        AtomicInteger inside = new AtomicInteger();
+        AtomicInteger maxInside = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            boolean forward = i % 2 == 0;
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < 200; j++) {
+                    try (CardLockManager.Lease lease = forward ? lockManager.lock(1L, 2L) : lockManager.lock(2L, 1L)) {
+                        maxInside.accumulateAndGet(inside.incrementAndGet(), Math::max);
+                        inside.decrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(1, maxInside.get());
+    }
+
+    @Test
+    void lock_SameStripeIsTakenOnce() throws Exception {
+        CardLockManager lockManager = new CardLockManager(new SimpleMeterRegistry(), true, 1, Duration.ofMillis(50));
+
+        lockManager.lock(1L, 2L).close();
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.submit(() -> lockManager.lock(3L, 4L).close()).get(1, TimeUnit.SECONDS);
+        executor.shutdown();
+        assertTrue(lockManager.hotStripes(10).isEmpty());
+    }
+
+    @Test
+    void lockAll_SkipsBusyStripesAndKeepsTheRest() throws Exception {
+        CardLockManager lockManager = new CardLockManager(new SimpleMeterRegistry(), true, 16, Duration.ofMillis(50));
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread(() -> {
+            try (CardLockManager.Lease lease = lockManager.lock(1L, 1L)) {
+                locked.countDown();
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        holder.start();
+        assertTrue(locked.await(5, TimeUnit.SECONDS));
+
+        try (CardLockManager.GroupLease lease = lockManager.lockAll(List.of(3L, 1L, 2L, 3L))) {
+            assertFalse(lease.holds(1L));
+            assertTrue(lease.holds(2L));
+            assertTrue(lease.holds(3L));
+        } finally {
+            release.countDown();
+            holder.join();
+        }
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.submit(() -> lockManager.lock(2L, 3L).close()).get(1, TimeUnit.SECONDS);
+        executor.shutdown();
+    }
+
+    @Test
+    void lock_TimesOutAndReportsHotStripe() throws Exception {
+        CardLockManager lockManager = new CardLockManager(new SimpleMeterRegistry(), true, 16, Duration.ofMillis(50));
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Thread holder = new Thread(() -> {
+            try (CardLockManager.Lease lease = lockManager.lock(5L, 6L)) {
+                locked.countDown();
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        holder.start();
+        locked.await();
+
+        assertThrows(ServiceBusyException.class, () -> lockManager.lock(6L, 7L));
+        release.countDown();
+        holder.join();
+
+        List<LockStripeStatsResponse> hot = lockManager.hotStripes(10);
+        assertEquals(1, hot.size());
+        assertEquals(6L, hot.get(0).getLastContendedCardId());
+        assertEquals(1, hot.get(0).getTimeouts());
+        assertEquals(1, lockManager.hotStripes(-1).size());
+        assertEquals(1, lockManager.hotStripes(Integer.MAX_VALUE).size());
+    }
+
+    @Test
+    void lock_DisabledReturnsNoOpLease() {
+        CardLockManager lockManager = new CardLockManager(new SimpleMeterRegistry(), false, 16, Duration.ofMillis(50));
+
+        try (CardLockManager.Lease first = lockManager.lock(1L, 2L);
+             CardLockManager.Lease second = lockManager.lock(1L, 2L)) {
+            assertTrue(lockManager.hotStripes(10).isEmpty());
+        }
+    }
+}
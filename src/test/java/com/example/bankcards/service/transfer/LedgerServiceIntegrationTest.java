@@ -0,0 +1,194 @@
+package com.example.bankcards.service.transfer;
+
+import com.example.bankcards.dto.request.BatchTransferRequest;
+import com.example.bankcards.dto.request.CardTransferRequest;
+import com.example.bankcards.dto.response.LedgerReconcileResponse;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.BankCardRepository;
+import com.example.bankcards.repository.CardTransactionRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.UserBalanceService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest(properties = {
+        "transfer.ledger.snapshot-interval=PT1H",
+        "transfer.ledger.rebuild-chunk-size=2"
+})
+@ActiveProfiles("test")
+class LedgerServiceIntegrationTest {
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private BatchTransferService batchTransferService;
+
+    @Autowired
+    private BankCardRepository cardRepository;
+
+    @Autowired
+    private CardTransactionRepository transactionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @SpyBean
+    private UserBalanceService userBalanceService;
+
+    private User user;
+    private Card cardA;
+    private Card cardB;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM ledger_entries");
+        jdbcTemplate.update("DELETE FROM card_balance_snapshots");
+        transactionRepository.deleteAll();
+        cardRepository.deleteAll();
+        userRepository.deleteAll();
+
+        user = userRepository.save(User.builder()
+                .username("ledger_user")
+                .password("password")
+                .email("ledger@test.com")
+                .role(User.Role.USER)
+                .enabled(true)
+                .build());
+
+        cardA = cardRepository.save(card("1111", "1000.00"));
+        cardB = cardRepository.save(card("2222", "0.00"));
+        jdbcTemplate.update("INSERT INTO card_balance_snapshots (card_id, last_entry_id, run, balance, taken_at) " +
+                "SELECT id, 0, 0, balance, ? FROM bank_cards", LocalDateTime.now().minusDays(1));
+    }
+
+    @Test
+    void transfers_WriteBalancedEntries() {
+        cardService.transferBetweenCards(transfer(cardA, cardB, "100.00"), user.getId());
+        batchTransferService.transferBatch(BatchTransferRequest.builder()
+                .transfers(List.of(transfer(cardA, cardB, "50.00"), transfer(cardB, cardA, "30.00")))
+                .build(), user.getId());
+
+        assertEquals(6, count("SELECT COUNT(*) FROM ledger_entries"));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT SUM(amount) FROM ledger_entries", BigDecimal.class)
+                .signum());
+        assertEquals(2, count("SELECT COUNT(*) FROM ledger_entries WHERE transaction_id IS NOT NULL"));
+
+        LocalDateTime now = LocalDateTime.now();
+        assertEquals(0, ledgerService.balanceAt(cardA.getId(), now).compareTo(new BigDecimal("880.00")));
+        assertEquals(0, ledgerService.balanceAt(cardB.getId(), now).compareTo(new BigDecimal("120.00")));
+        assertEquals(0, ledgerService.reconcile(false).getDriftedCards());
+    }
+
+    @Test
+    void balanceAt_ReturnsPastBalanceAcrossSnapshots() throws Exception {
+        cardService.transferBetweenCards(transfer(cardA, cardB, "100.00"), user.getId());
+        Thread.sleep(20);
+        LocalDateTime afterFirst = LocalDateTime.now();
+        Thread.sleep(20);
+
+        assertTrue(ledgerService.takeSnapshots() > 0);
+        cardService.transferBetweenCards(transfer(cardA, cardB, "200.00"), user.getId());
+
+        assertEquals(0, ledgerService.balanceAt(cardB.getId(), afterFirst).compareTo(new BigDecimal("100.00")));
+        assertEquals(0, ledgerService.balanceAt(cardB.getId(), LocalDateTime.now())
+                .compareTo(new BigDecimal("300.00")));
+        assertEquals(0, ledgerService.balanceAt(cardA.getId(), LocalDateTime.now())
+                .compareTo(new BigDecimal("700.00")));
+        assertEquals(0, ledgerService.reconcile(false).getDriftedCards());
+    }
+
+    @Test
+    void reconcile_RepairsDriftedBalance() {
+        cardService.transferBetweenCards(transfer(cardA, cardB, "100.00"), user.getId());
+        jdbcTemplate.update("UPDATE bank_cards SET balance = 42.00 WHERE id = ?", cardB.getId());
+
+        LedgerReconcileResponse report = ledgerService.reconcile(false);
+        assertEquals(2, report.getCheckedCards());
+        assertEquals(1, report.getDriftedCards());
+        assertEquals(cardB.getId(), report.getDrifts().get(0).getCardId());
+        assertEquals(0, report.getDrifts().get(0).getLedgerBalance().compareTo(new BigDecimal("100.00")));
+
+        LedgerReconcileResponse repaired = ledgerService.reconcile(true);
+        assertTrue(repaired.isRepaired());
+        assertEquals(0, cardRepository.findById(cardB.getId()).orElseThrow().getBalance()
+                .compareTo(new BigDecimal("100.00")));
+        assertEquals(0, ledgerService.reconcile(false).getDriftedCards());
+    }
+
+    @Test
+    void reconcile_RecomputesEachUserOncePerChunk() {
+        cardRepository.save(card("3333", "0.00"));
+        jdbcTemplate.update("UPDATE bank_cards SET balance = balance + 1");
+
+        assertEquals(3, ledgerService.reconcile(true).getDriftedCards());
+
+        verify(userBalanceService, times(2)).recompute(user.getId());
+        assertEquals(0, ledgerService.reconcile(false).getDriftedCards());
+    }
+
+    @Test
+    void takeSnapshots_KeepsLateCommittedLowerIdEntriesInTail() {
+        cardService.transferBetweenCards(transfer(cardA, cardB, "100.00"), user.getId());
+        long firstId = count("SELECT MIN(id) FROM ledger_entries");
+        jdbcTemplate.update("DELETE FROM ledger_entries WHERE id = ?", firstId);
+
+        assertTrue(ledgerService.takeSnapshots() > 0);
+
+        // The debit commits only now, below an id the run already folded.
+        jdbcTemplate.update("INSERT INTO ledger_entries (id, card_id, entry_type, amount, created_at) " +
+                "VALUES (?, ?, 'DEBIT', -100.00, ?)", firstId, cardA.getId(), LocalDateTime.now());
+
+        assertEquals(0, ledgerService.balanceAt(cardA.getId(), LocalDateTime.now())
+                .compareTo(new BigDecimal("900.00")));
+        assertEquals(0, ledgerService.reconcile(false).getDriftedCards());
+
+        assertTrue(ledgerService.takeSnapshots() > 0);
+        assertEquals(0, ledgerService.takeSnapshots());
+        assertEquals(0, ledgerService.reconcile(false).getDriftedCards());
+    }
+
+    private long count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class);
+    }
+
+    private CardTransferRequest transfer(Card from, Card to, String amount) {
+        return new CardTransferRequest(from.getId(), to.getId(), new BigDecimal(amount));
+    }
+
+    private Card card(String lastDigits, String balance) {
+        return Card.builder()
+                .cardNumberEncrypted("encrypted-" + lastDigits)
+                .cardNumberMasked("**** **** **** " + lastDigits)
+                .cardHolder("Ledger User")
+                .expiryDate(LocalDate.now().plusYears(1))
+                .cvvEncrypted("encrypted-cvv")
+                .status(Card.CardStatus.ACTIVE)
+                .balance(new BigDecimal(balance))
+                .user(user)
+                .build();
+    }
+}
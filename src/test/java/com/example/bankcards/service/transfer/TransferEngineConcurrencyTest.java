@@ -0,0 +1,157 @@
+package com.example.bankcards.service.transfer;
+
+import com.example.bankcards.dto.request.CardTransferRequest;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.BankCardRepository;
+import com.example.bankcards.repository.CardTransactionRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.CardService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+class TransferEngineConcurrencyTest {
+
+    // Every transfer also borrows a connection for its REQUIRES_NEW audit record.
+    static final String POOL_SIZE = "spring.datasource.hikari.maximum-pool-size=20";
+
+    @Nested
+    @SpringBootTest(properties = {"transfer.mode=atomic", POOL_SIZE})
+    @ActiveProfiles("test")
+    class Atomic extends OpposingTransfersScenario {
+
+        @Autowired
+        private TransferEngine transferEngine;
+
+        @Test
+        void usesAtomicEngine() {
+            assertInstanceOf(AtomicTransferEngine.class, transferEngine);
+        }
+    }
+
+    @Nested
+    @SpringBootTest(properties = {"transfer.mode=pessimistic", POOL_SIZE})
+    @ActiveProfiles("test")
+    class Pessimistic extends OpposingTransfersScenario {
+
+        @Autowired
+        private TransferEngine transferEngine;
+
+        @Test
+        void usesPessimisticEngine() {
+            assertInstanceOf(PessimisticTransferEngine.class, transferEngine);
+        }
+    }
+
+    @Nested
+    @SpringBootTest(properties = {"transfer.mode=optimistic", "transfer.optimistic.max-attempts=3", POOL_SIZE})
+    @ActiveProfiles("test")
+    class Optimistic extends OpposingTransfersScenario {
+
+        @Autowired
+        private TransferEngine transferEngine;
+
+        @Test
+        void usesOptimisticEngine() {
+            assertInstanceOf(OptimisticTransferEngine.class, transferEngine);
+        }
+    }
+
+    abstract static class OpposingTransfersScenario {
+
+        private static final int THREADS = 8;
+        private static final int TRANSFERS_PER_THREAD = 10;
+
+        @Autowired
+        private CardService cardService;
+
+        @Autowired
+        private BankCardRepository cardRepository;
+
+        @Autowired
+        private CardTransactionRepository transactionRepository;
+
+        @Autowired
+        private UserRepository userRepository;
+
+        private User user;
+        private Card cardA;
+        private Card cardB;
+
+        @BeforeEach
+        void setUp() {
+            transactionRepository.deleteAll();
+            cardRepository.deleteAll();
+            userRepository.deleteAll();
+
+            user = userRepository.save(User.builder()
+                    .username("concurrency_user")
+                    .password("password")
+                    .email("concurrency@test.com")
+                    .role(User.Role.USER)
+                    .enabled(true)
+                    .build());
+
+            cardA = cardRepository.save(card("1111"));
+            cardB = cardRepository.save(card("2222"));
+        }
+
+        @Test
+        void opposingTransfers_PreserveBalancesWithoutDeadlock() throws Exception {
+            ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+            List<Future<?>> futures = new ArrayList<>();
+
+            for (int i = 0; i < THREADS; i++) {
+                boolean forward = i % 2 == 0;
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < TRANSFERS_PER_THREAD; j++) {
+                        CardTransferRequest request = CardTransferRequest.builder()
+                                .fromCardId(forward ? cardA.getId() : cardB.getId())
+                                .toCardId(forward ? cardB.getId() : cardA.getId())
+                                .amount(new BigDecimal("10.00"))
+                                .build();
+                        cardService.transferBetweenCards(request, user.getId());
+                    }
+                    return null;
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            executor.shutdown();
+
+            assertEquals(new BigDecimal("1000.00"), cardRepository.findById(cardA.getId()).orElseThrow().getBalance());
+            assertEquals(new BigDecimal("1000.00"), cardRepository.findById(cardB.getId()).orElseThrow().getBalance());
+            assertEquals(THREADS * TRANSFERS_PER_THREAD, transactionRepository.count());
+        }
+
+        private Card card(String lastDigits) {
+            return Card.builder()
+                    .cardNumberEncrypted("encrypted-" + lastDigits)
+                    .cardNumberMasked("**** **** **** " + lastDigits)
+                    .cardHolder("Concurrency User")
+                    .expiryDate(LocalDate.now().plusYears(1))
+                    .cvvEncrypted("encrypted-cvv")
+                    .status(Card.CardStatus.ACTIVE)
+                    .balance(new BigDecimal("1000.00"))
+                    .user(user)
+                    .build();
+        }
+    }
+}
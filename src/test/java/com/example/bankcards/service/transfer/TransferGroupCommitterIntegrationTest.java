@@ -0,0 +1,184 @@
+package com.example.bankcards.service.transfer;
+
+import com.example.bankcards.dto.request.CardTransferRequest;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.InsufficientFundsException;
+import com.example.bankcards.exception.ServiceBusyException;
+import com.example.bankcards.repository.BankCardRepository;
+import com.example.bankcards.repository.CardTransactionRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.CardService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "transfer.group-commit.enabled=true",
+        "transfer.group-commit.window=50ms",
+        "transfer.card-locks.timeout=200ms",
+        "spring.datasource.hikari.maximum-pool-size=20"
+})
+@ActiveProfiles("test")
+class TransferGroupCommitterIntegrationTest {
+
+    private static final int THREADS = 8;
+    private static final int TRANSFERS_PER_THREAD = 10;
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private TransferGroupCommitter groupCommitter;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private CardLockManager cardLockManager;
+
+    @Autowired
+    private BankCardRepository cardRepository;
+
+    @Autowired
+    private CardTransactionRepository transactionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User user;
+    private Card cardA;
+    private Card cardB;
+
+    @BeforeEach
+    void setUp() {
+        transactionRepository.deleteAll();
+        cardRepository.deleteAll();
+        userRepository.deleteAll();
+
+        user = userRepository.save(User.builder()
+                .username("group_commit_user")
+                .password("password")
+                .email("group@test.com")
+                .role(User.Role.USER)
+                .enabled(true)
+                .build());
+
+        cardA = cardRepository.save(card("1111", "1000.00"));
+        cardB = cardRepository.save(card("2222", "1000.00"));
+    }
+
+    @Test
+    void concurrentTransfers_ShareCommits() throws Exception {
+        assertTrue(groupCommitter.isEnabled());
+        DistributionSummary groups = meterRegistry.get("transfer.group.commit.size").summary();
+        long groupsBefore = groups.count();
+        double itemsBefore = groups.totalAmount();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            boolean forward = i % 2 == 0;
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < TRANSFERS_PER_THREAD; j++) {
+                    cardService.transferBetweenCards(transfer(forward ? cardA : cardB, forward ? cardB : cardA,
+                            "10.00"), user.getId());
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        int total = THREADS * TRANSFERS_PER_THREAD;
+        assertEquals(total, transactionRepository.count());
+        assertEquals(total, groups.totalAmount() - itemsBefore);
+        assertTrue(groups.count() - groupsBefore < total);
+        assertEquals(new BigDecimal("1000.00"), balanceOf(cardA));
+        assertEquals(new BigDecimal("1000.00"), balanceOf(cardB));
+    }
+
+    @Test
+    void rejectedTransfer_FailsOnlyItsCaller() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch start = new CountDownLatch(1);
+
+        Future<?> valid = executor.submit(() -> {
+            start.await();
+            return cardService.transferBetweenCards(transfer(cardA, cardB, "300.00"), user.getId());
+        });
+        Future<?> rejected = executor.submit(() -> {
+            start.await();
+            return cardService.transferBetweenCards(transfer(cardB, cardA, "5000.00"), user.getId());
+        });
+        start.countDown();
+
+        valid.get();
+        ExecutionException failure = assertThrows(ExecutionException.class, rejected::get);
+        assertInstanceOf(InsufficientFundsException.class, failure.getCause());
+        executor.shutdown();
+
+        assertEquals(1, transactionRepository.count());
+        assertEquals(new BigDecimal("700.00"), balanceOf(cardA));
+        assertEquals(new BigDecimal("1300.00"), balanceOf(cardB));
+    }
+
+    @Test
+    void groupedTransfer_WaitsForCardStripeHeldByDirectTransfer() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (CardLockManager.Lease lease = cardLockManager.lock(cardA.getId(), cardA.getId())) {
+            Future<?> blocked = executor.submit(() ->
+                    cardService.transferBetweenCards(transfer(cardA, cardB, "10.00"), user.getId()));
+
+            ExecutionException failure = assertThrows(ExecutionException.class, blocked::get);
+            assertInstanceOf(ServiceBusyException.class, failure.getCause());
+        }
+
+        executor.submit(() -> cardService.transferBetweenCards(transfer(cardA, cardB, "10.00"), user.getId())).get();
+        executor.shutdown();
+        assertEquals(1, transactionRepository.count());
+        assertEquals(new BigDecimal("990.00"), balanceOf(cardA));
+    }
+
+    private CardTransferRequest transfer(Card from, Card to, String amount) {
+        return new CardTransferRequest(from.getId(), to.getId(), new BigDecimal(amount));
+    }
+
+    private BigDecimal balanceOf(Card card) {
+        return cardRepository.findById(card.getId()).orElseThrow().getBalance();
+    }
+
+    private Card card(String lastDigits, String balance) {
+        return Card.builder()
+                .cardNumberEncrypted("encrypted-" + lastDigits)
+                .cardNumberMasked("**** **** **** " + lastDigits)
+                .cardHolder("Group Commit User")
+                .expiryDate(LocalDate.now().plusYears(1))
+                .cvvEncrypted("encrypted-cvv")
+                .status(Card.CardStatus.ACTIVE)
+                .balance(new BigDecimal(balance))
+                .user(user)
+                .build();
+    }
+}
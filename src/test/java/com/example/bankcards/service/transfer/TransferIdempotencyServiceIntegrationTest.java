@@ -0,0 +1,135 @@
+package com.example.bankcards.service.transfer;
+
+import com.example.bankcards.dto.request.CardTransferRequest;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.IdempotencyKeyReuseException;
+import com.example.bankcards.exception.InsufficientFundsException;
+import com.example.bankcards.repository.BankCardRepository;
+import com.example.bankcards.repository.CardTransactionRepository;
+import com.example.bankcards.repository.IdempotencyRecordRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.CardService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class TransferIdempotencyServiceIntegrationTest {
+
+    @Autowired
+    private TransferIdempotencyService idempotencyService;
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private BankCardRepository cardRepository;
+
+    @Autowired
+    private CardTransactionRepository transactionRepository;
+
+    @Autowired
+    private IdempotencyRecordRepository recordRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User user;
+    private Card card1;
+    private Card card2;
+
+    @BeforeEach
+    void setUp() {
+        recordRepository.deleteAll();
+        transactionRepository.deleteAll();
+        cardRepository.deleteAll();
+        userRepository.deleteAll();
+
+        user = userRepository.save(User.builder()
+                .username("idempotent_user")
+                .password("password")
+                .email("idempotent@test.com")
+                .role(User.Role.USER)
+                .enabled(true)
+                .build());
+
+        card1 = cardRepository.save(card("1111", "1000.00"));
+        card2 = cardRepository.save(card("2222", "500.00"));
+    }
+
+    @Test
+    void execute_RetryReplaysStoredOutcome() {
+        CardTransferRequest request = new CardTransferRequest(card1.getId(), card2.getId(), new BigDecimal("100.00"));
+
+        TransferIdempotencyService.TransferOutcome first = execute("retry-key", request);
+        TransferIdempotencyService.TransferOutcome second = execute("retry-key",
+                new CardTransferRequest(card1.getId(), card2.getId(), new BigDecimal("100")));
+
+        assertFalse(first.replayed());
+        assertTrue(second.replayed());
+        assertEquals(first.transactionId(), second.transactionId());
+        assertEquals(new BigDecimal("900.00"), balanceOf(card1));
+        assertEquals(new BigDecimal("600.00"), balanceOf(card2));
+        assertEquals(1, transactionRepository.count());
+        assertEquals(1, recordRepository.count());
+    }
+
+    @Test
+    void execute_DifferentPayloadWithSameKeyRejected() {
+        execute("reused-key", new CardTransferRequest(card1.getId(), card2.getId(), new BigDecimal("100.00")));
+
+        assertThrows(IdempotencyKeyReuseException.class, () -> execute("reused-key",
+                new CardTransferRequest(card1.getId(), card2.getId(), new BigDecimal("200.00"))));
+        assertEquals(new BigDecimal("900.00"), balanceOf(card1));
+    }
+
+    @Test
+    void execute_FailedTransferDoesNotConsumeKey() {
+        CardTransferRequest tooLarge = new CardTransferRequest(card1.getId(), card2.getId(), new BigDecimal("5000.00"));
+
+        assertThrows(InsufficientFundsException.class, () -> execute("failed-key", tooLarge));
+        assertEquals(0, recordRepository.count());
+
+        cardRepository.findById(card1.getId()).ifPresent(card -> {
+            card.setBalance(new BigDecimal("6000.00"));
+            cardRepository.save(card);
+        });
+
+        assertFalse(execute("failed-key", tooLarge).replayed());
+        assertEquals(new BigDecimal("1000.00"), balanceOf(card1));
+    }
+
+    private TransferIdempotencyService.TransferOutcome execute(String key, CardTransferRequest request) {
+        return idempotencyService.execute(user.getId(), key, request,
+                () -> cardService.transferBetweenCards(request, user.getId()));
+    }
+
+    private BigDecimal balanceOf(Card card) {
+        return cardRepository.findById(card.getId()).orElseThrow().getBalance();
+    }
+
+    private Card card(String lastDigits, String balance) {
+        return Card.builder()
+                .cardNumberEncrypted("encrypted-" + lastDigits)
+                .cardNumberMasked("**** **** **** " + lastDigits)
+                .cardHolder("Idempotent User")
+                .expiryDate(LocalDate.now().plusYears(1))
+                .cvvEncrypted("encrypted-cvv")
+                .status(Card.CardStatus.ACTIVE)
+                .balance(new BigDecimal(balance))
+                .user(user)
+                .build();
+    }
+}